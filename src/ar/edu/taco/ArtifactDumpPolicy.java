@@ -0,0 +1,55 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco;
+
+/**
+ * Which intermediate artifacts of the JML simplification are written to the
+ * output directory.
+ */
+public enum ArtifactDumpPolicy {
+
+	/**
+	 * Nothing is written unless the next stage needs it.
+	 */
+	NONE,
+
+	/**
+	 * The fully simplified compilation units.
+	 */
+	FINAL,
+
+	/**
+	 * The fully simplified compilation units and, in a separate directory,
+	 * the result of every simplifier.
+	 */
+	PER_PASS;
+
+	public static ArtifactDumpPolicy parse(String value) {
+		if (value.equalsIgnoreCase("none")) {
+			return NONE;
+		} else if (value.equalsIgnoreCase("final")) {
+			return FINAL;
+		} else if (value.equalsIgnoreCase("perPass") || value.equalsIgnoreCase("per_pass")) {
+			return PER_PASS;
+		}
+		throw new TacoException("Unknown artifact dump policy: " + value + ". Valid values are none, final and perPass");
+	}
+
+}
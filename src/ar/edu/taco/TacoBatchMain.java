@@ -0,0 +1,261 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Generates the ALS files for a batch of methods in a single JVM.</p>
+ * <p>The manifest file has one job per line:</p>
+ * <pre>
+ * &lt;configFile&gt; &lt;classToCheck&gt; &lt;methodToCheck&gt; [key=value ...]
+ * </pre>
+ * <p>Empty lines and lines starting with <code>#</code> are ignored. Jobs for
+ * the same configuration file, class and extra properties share the JML
+ * parsing, simplification and SimpleJML translation, as long as the
+ * front-end does not depend on the method under analysis.</p>
+ * <p>An optional second argument sets the number of jobs translated
+ * concurrently. Every job runs in its own <code>TacoContext</code>. The JML
+ * parsing and simplification of a job can run while another job is
+ * translated to JDynAlloy, DynAlloy and Alloy. The translation reads the
+ * JDynAlloy registries up to the Alloy plugins, so it still runs one job at a
+ * time, see <code>TacoContext</code>: at most two jobs make progress at
+ * once.</p>
+ */
+public class TacoBatchMain {
+
+	private static final String COMMENT_PREFIX = "#";
+
+	private final Map<String, TacoFrontEndResult> frontEndCache = new HashMap<String, TacoFrontEndResult>();
+
+	private final AtomicInteger reusedFrontEnds = new AtomicInteger();
+
+	private final int threads;
+
+	public TacoBatchMain(int threads) {
+		this.threads = threads;
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 1 && args.length != 2) {
+			System.err.println("Usage: TacoBatchMain <manifest file> [threads]");
+			return;
+		}
+		int threads = 1;
+		if (args.length == 2) {
+			try {
+				threads = Integer.parseInt(args[1]);
+			} catch (NumberFormatException e) {
+				threads = 0;
+			}
+			if (threads < 1) {
+				System.err.println("Error found:");
+				System.err.println("Invalid number of threads: " + args[1]);
+				return;
+			}
+		}
+
+		List<BatchJob> jobs;
+		try {
+			jobs = readManifest(args[0]);
+		} catch (IOException e) {
+			System.err.println("Error found:");
+			System.err.println("Manifest file could not be read: " + e.getMessage());
+			return;
+		} catch (IllegalArgumentException e) {
+			System.err.println("Error found:");
+			System.err.println(e.getMessage());
+			return;
+		}
+
+		new TacoBatchMain(threads).run(jobs);
+	}
+
+	public void run(List<BatchJob> jobs) {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		try {
+			for (final BatchJob job : jobs) {
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						return runJob(job);
+					}
+				}));
+			}
+
+			int failedJobs = 0;
+			for (Future<Boolean> result : results) {
+				try {
+					if (!result.get()) {
+						failedJobs++;
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new TacoException("Batch interrupted");
+				} catch (ExecutionException e) {
+					failedJobs++;
+					e.getCause().printStackTrace();
+				}
+			}
+			System.out.println("");
+			System.out.println("Jobs: " + jobs.size() + ", failed: " + failedJobs + ", reused front-ends: " + reusedFrontEnds.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private boolean runJob(BatchJob job) {
+		System.out.println("****** Generating " + job.getClassToCheck() + "." + job.getMethodToCheck() + " ******");
+		try {
+			TacoMain tacoMain = new TacoMain(null);
+			Properties overridingProperties = job.getProperties();
+
+			String key = job.getFrontEndKey();
+			TacoFrontEndResult frontEnd;
+			synchronized (frontEndCache) {
+				frontEnd = frontEndCache.get(key);
+			}
+			if (frontEnd != null) {
+				reusedFrontEnds.incrementAndGet();
+			} else {
+				frontEnd = tacoMain.runFrontEnd(job.getConfigFile(), overridingProperties);
+				if (frontEnd.isMethodIndependent()) {
+					synchronized (frontEndCache) {
+						frontEndCache.put(key, frontEnd);
+					}
+				}
+			}
+			tacoMain.runBackEnd(job.getConfigFile(), overridingProperties, frontEnd);
+			return true;
+		} catch (IllegalArgumentException e) {
+			System.err.println("Error found in " + job + ":");
+			System.err.println(e.getMessage());
+		} catch (TacoException e) {
+			System.err.println("Error found in " + job + ":");
+			System.err.println(e.getMessage());
+		}
+		return false;
+	}
+
+	public static List<BatchJob> readManifest(String manifestFilename) throws IOException {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		BufferedReader reader = new BufferedReader(new FileReader(manifestFilename));
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith(COMMENT_PREFIX)) {
+					continue;
+				}
+				String[] tokens = line.split("\\s+");
+				if (tokens.length < 3) {
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + manifestFilename
+							+ ": expected <configFile> <classToCheck> <methodToCheck> [key=value ...]");
+				}
+				Map<String, String> extraProperties = new TreeMap<String, String>();
+				for (int i = 3; i < tokens.length; i++) {
+					int separator = tokens[i].indexOf('=');
+					if (separator <= 0) {
+						throw new IllegalArgumentException("Line " + lineNumber + " of " + manifestFilename + ": malformed property " + tokens[i]);
+					}
+					extraProperties.put(tokens[i].substring(0, separator), tokens[i].substring(separator + 1));
+				}
+				jobs.add(new BatchJob(tokens[0], tokens[1], tokens[2], extraProperties));
+			}
+		} finally {
+			reader.close();
+		}
+		return jobs;
+	}
+
+	/**
+	 * A single line of the manifest.
+	 */
+	public static class BatchJob {
+
+		private final String configFile;
+
+		private final String classToCheck;
+
+		private final String methodToCheck;
+
+		private final Map<String, String> extraProperties;
+
+		public BatchJob(String configFile, String classToCheck, String methodToCheck, Map<String, String> extraProperties) {
+			this.configFile = configFile;
+			this.classToCheck = classToCheck;
+			this.methodToCheck = methodToCheck;
+			this.extraProperties = new TreeMap<String, String>(extraProperties);
+		}
+
+		public String getConfigFile() {
+			return configFile;
+		}
+
+		public String getClassToCheck() {
+			return classToCheck;
+		}
+
+		public String getMethodToCheck() {
+			return methodToCheck;
+		}
+
+		/**
+		 * @return a fresh copy of the overriding properties for this job.
+		 */
+		public Properties getProperties() {
+			Properties properties = new Properties();
+			properties.putAll(extraProperties);
+			properties.put(TacoConfigurator.CLASS_TO_CHECK_FIELD, classToCheck);
+			properties.put(TacoConfigurator.METHOD_TO_CHECK_FIELD, methodToCheck);
+			return properties;
+		}
+
+		/**
+		 * Jobs with the same key only differ in the method to check.
+		 */
+		String getFrontEndKey() {
+			return configFile + "|" + classToCheck + "|" + extraProperties;
+		}
+
+		@Override
+		public String toString() {
+			return configFile + " " + classToCheck + " " + methodToCheck;
+		}
+	}
+
+}
@@ -29,11 +29,13 @@ import java.util.Set;
 
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.log4j.Logger;
 
 import ar.edu.jdynalloy.IJDynAlloyConfig;
 import ar.edu.jdynalloy.JDynAlloyConfig.LoopResolutionEnum;
 import ar.edu.jdynalloy.factory.JExpressionFactory;
 import ar.edu.taco.alloy.AlloyCustomScope;
+import ar.edu.taco.alloy.SizeOfEncoding;
 import ar.edu.taco.infer.InferredScope;
 import ar.edu.taco.simplejml.helpers.JavaClassNameNormalizer;
 
@@ -200,10 +202,10 @@ public class TacoConfigurator extends PropertiesConfiguration implements
 	private static final boolean USE_TIGHT_UPPER_BOUNDS_DEFAULT = false;
 
 	// original: output
-	private static final String OUTPUT_DIR = "andrea/tasks";
+	public static final String OUTPUT_DIR = "andrea/tasks";
 	private static final String OUTPUT_DIR_DEFAULT = "andrea/tasks";
 
-	private static final String TYPE_SCOPES = "type_scopes";
+	public static final String TYPE_SCOPES = "type_scopes";
 
 	private static final String INFER_SCOPE = "inferScope";
 	private static final boolean DEFAULT_INFER_SCOPE = false;
@@ -220,11 +222,46 @@ public class TacoConfigurator extends PropertiesConfiguration implements
 	public static final String MAX_STRYKER_METHODS_FOR_FILE = "maxStrykerMethodForFile";
 	private static final int DEFAULT_MAX_STRYKER_METHODS_FOR_FILE = 50;
 
+	public static final String PARSE_SIMPLIFIED_SOURCES_IN_MEMORY = "parseSimplifiedSourcesInMemory";
+	private static final boolean DEFAULT_PARSE_SIMPLIFIED_SOURCES_IN_MEMORY = false;
+
+	public static final String PARALLEL_SIMPLIFICATION = "parallelSimplification";
+	private static final boolean DEFAULT_PARALLEL_SIMPLIFICATION = false;
+
+	public static final String PARALLEL_TRANSLATION = "parallelTranslation";
+	private static final boolean DEFAULT_PARALLEL_TRANSLATION = false;
+
+	public static final String ARTIFACT_DUMP_POLICY = "artifactDumpPolicy";
+	private static final String DEFAULT_ARTIFACT_DUMP_POLICY = "none";
+
+	public static final String PRECOMPILED_MODULES_SNAPSHOT_DIR = "precompiledModulesSnapshotDir";
+	private static final String DEFAULT_PRECOMPILED_MODULES_SNAPSHOT_DIR = "precompiledmodules";
+
+	public static final String PRUNE_UNREACHABLE_BUILT_IN_MODULES = "pruneUnreachableBuiltInModules";
+	private static final boolean DEFAULT_PRUNE_UNREACHABLE_BUILT_IN_MODULES = false;
+
+	public static final String RUN_REPORT = "runReport";
+	private static final boolean DEFAULT_RUN_REPORT = false;
+
+	public static final String GENERATE_TIGHT_UPPER_BOUNDS = "generateTightUpperBounds";
+	private static final boolean DEFAULT_GENERATE_TIGHT_UPPER_BOUNDS = false;
+
+	public static final String TIGHT_UPPER_BOUNDS_CACHE_DIR = "tightUpperBoundsCacheDir";
+	private static final String DEFAULT_TIGHT_UPPER_BOUNDS_CACHE_DIR = "upperbounds";
+
+	public static final String SBP_CACHE_DIR = "sbpCacheDir";
+	private static final String DEFAULT_SBP_CACHE_DIR = "";
+
+	public static final String SIZE_OF_ENCODING = "sizeOfEncoding";
+	private static final String DEFAULT_SIZE_OF_ENCODING = "enumerated";
+
 	public static final String[] aux_classes = new String[]{"java.util.Set"};
 	
+	private static Logger log = Logger.getLogger(TacoConfigurator.class);
+
 	private static TacoConfigurator instance;
 
-	private static String generatedInvariantFilename = "";
+	private static boolean globalFallbackLogged = false;
 
 	public TacoConfigurator(String configurationFile,
 			Properties overridingProperties) {
@@ -245,7 +282,12 @@ public class TacoConfigurator extends PropertiesConfiguration implements
 			}
 			TacoCustomScope tacoScope = buildTacoScope();
 			this.tacoScope = tacoScope;
-			instance = this;
+			TacoContext context = TacoContext.getCurrent();
+			if (context != null) {
+				context.setConfigurator(this);
+			} else {
+				instance = this;
+			}
 		} catch (ConfigurationException e) {
 			throw new TacoException(e);
 		}
@@ -260,15 +302,6 @@ public class TacoConfigurator extends PropertiesConfiguration implements
 	}
 
 
-	public static void setGeneratedInvariantFilename(String fileName){
-		generatedInvariantFilename = fileName;
-	}
-
-	public static String getGeneratedInvariantFilename(){
-		return generatedInvariantFilename;
-	}
-
-
 	private TacoCustomScope buildTacoScope() {
 		TacoCustomScope taco_scope = new TacoCustomScope();
 		taco_scope.setAlloyBitwidth(this.getBitwidth());
@@ -294,14 +327,34 @@ public class TacoConfigurator extends PropertiesConfiguration implements
 		return taco_scope;
 	}
 
+	/**
+	 * @return the configuration of the run bound to the current thread or,
+	 *         without a bound run, the one built last outside of any run. A
+	 *         bound run that has no configuration yet also gets the latter,
+	 *         which is logged once: it belongs to another run.
+	 */
 	public static TacoConfigurator getInstance() {
+		TacoContext context = TacoContext.getCurrent();
+		if (context != null && context.getConfigurator() != null) {
+			return context.getConfigurator();
+		}
 		if (instance == null) {
 			// instance = new DynJML4AlloyConfigurator();
 			throw new IllegalStateException("Configuration has not been set");
 		}
+		if (context != null) {
+			logGlobalFallback();
+		}
 		return instance;
 	}
 
+	private static synchronized void logGlobalFallback() {
+		if (!globalFallbackLogged) {
+			globalFallbackLogged = true;
+			log.warn("The current TacoContext has no configuration, using the one built outside of any TacoContext");
+		}
+	}
+
 	@Override
 	public boolean getAbstractSignatureObject() {
 		return this.getBoolean(ABSTRACT_SIGNATURE_OBJECT_FIELD,
@@ -787,6 +840,110 @@ public class TacoConfigurator extends PropertiesConfiguration implements
 		return this.getInt(MAX_STRYKER_METHODS_FOR_FILE,
 				DEFAULT_MAX_STRYKER_METHODS_FOR_FILE);
 	}
+
+	/**
+	 * @return true if the simplified compilation units are type checked again
+	 *         from a scratch directory, in a memory file system when there is
+	 *         one, instead of from the output directory. They are still
+	 *         parsed again. Off by default, so the simplified sources are
+	 *         written to the output directory.
+	 */
+	public boolean getParseSimplifiedSourcesInMemory() {
+		return this.getBoolean(PARSE_SIMPLIFIED_SOURCES_IN_MEMORY, DEFAULT_PARSE_SIMPLIFIED_SOURCES_IN_MEMORY);
+	}
+
+	/**
+	 * @return true if the compilation units are simplified concurrently, one
+	 *         task per unit. The simplified units are the same either way.
+	 */
+	public boolean getParallelSimplification() {
+		return this.getBoolean(PARALLEL_SIMPLIFICATION, DEFAULT_PARALLEL_SIMPLIFICATION);
+	}
+
+	/**
+	 * @return true if the simplified compilation units are translated to
+	 *         JDynAlloy concurrently, one task per unit. The modules are the
+	 *         same either way.
+	 */
+	public boolean getParallelTranslation() {
+		return this.getBoolean(PARALLEL_TRANSLATION, DEFAULT_PARALLEL_TRANSLATION);
+	}
+
+	/**
+	 * @return which simplified compilation units must be written to the
+	 *         output directory for debugging.
+	 */
+	public ArtifactDumpPolicy getArtifactDumpPolicy() {
+		return ArtifactDumpPolicy.parse(this.getString(ARTIFACT_DUMP_POLICY, DEFAULT_ARTIFACT_DUMP_POLICY));
+	}
+
+	/**
+	 * @return the directory where snapshots of the parsed precompiled modules
+	 *         are kept between runs, <code>precompiledmodules</code> under the
+	 *         output directory by default, or the empty string to keep them in
+	 *         memory only.
+	 */
+	public String getPrecompiledModulesSnapshotDir() {
+		if (!this.containsKey(PRECOMPILED_MODULES_SNAPSHOT_DIR)) {
+			return this.getOutputDir() + java.io.File.separator + DEFAULT_PRECOMPILED_MODULES_SNAPSHOT_DIR;
+		}
+		return this.getString(PRECOMPILED_MODULES_SNAPSHOT_DIR);
+	}
+
+	/**
+	 * @return true if, when no builtInModules are listed, only the built-in
+	 *         modules reachable from the analysed classes are loaded.
+	 */
+	public boolean getPruneUnreachableBuiltInModules() {
+		return this.getBoolean(PRUNE_UNREACHABLE_BUILT_IN_MODULES, DEFAULT_PRUNE_UNREACHABLE_BUILT_IN_MODULES);
+	}
+
+	/**
+	 * @return true if stages, simplifiers and plugins are timed and a JSON
+	 *         report is written next to every generated .als file.
+	 */
+	public boolean getRunReport() {
+		return this.getBoolean(RUN_REPORT, DEFAULT_RUN_REPORT);
+	}
+
+	public boolean getGenerateTightUpperBounds() {
+		return this.getBoolean(GENERATE_TIGHT_UPPER_BOUNDS, DEFAULT_GENERATE_TIGHT_UPPER_BOUNDS);
+	}
+
+	/**
+	 * @return the directory where generated tight upper bounds are kept
+	 *         between runs, <code>upperbounds</code> under the output
+	 *         directory by default, or the empty string to keep them in
+	 *         memory only.
+	 */
+	public String getTightUpperBoundsCacheDir() {
+		if (!this.containsKey(TIGHT_UPPER_BOUNDS_CACHE_DIR)) {
+			return this.getOutputDir() + java.io.File.separator + DEFAULT_TIGHT_UPPER_BOUNDS_CACHE_DIR;
+		}
+		return this.getString(TIGHT_UPPER_BOUNDS_CACHE_DIR);
+	}
+
+	/**
+	 * @return the directory where generated symmetry breaking predicates are
+	 *         kept between runs, or the empty string to keep them in memory
+	 *         only.
+	 */
+	public String getSBPCacheDir() {
+		return this.getString(SBP_CACHE_DIR, DEFAULT_SBP_CACHE_DIR);
+	}
+
+	/**
+	 * The encoding is <code>enumerated</code> unless set: it is the one the
+	 * existing models were checked with, and
+	 * <code>ant sizeof-benchmark</code> has no recorded results yet to show
+	 * <code>bitwise</code> is faster at the bitwidths in use.
+	 *
+	 * @return how the size of a set is translated to a Java integer when
+	 *         useJavaArithmetic is set.
+	 */
+	public SizeOfEncoding getSizeOfEncoding() {
+		return SizeOfEncoding.parse(this.getString(SIZE_OF_ENCODING, DEFAULT_SIZE_OF_ENCODING));
+	}
 	
 	
 	public int getLowerBound() {
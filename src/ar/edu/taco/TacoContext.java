@@ -0,0 +1,202 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import ar.edu.taco.infer.InferredScope;
+import ar.edu.taco.jml.parser.JmlParser;
+import ar.edu.taco.utils.FreshNameSupply;
+
+/**
+ * <p>State of a single TACO run: configuration, inferred scopes, JML parser
+ * and any other component that used to be a process wide singleton.</p>
+ * <p>The context is bound to the running thread with {@link #enter(TacoContext)}.
+ * While a context is bound, <code>TacoConfigurator.getInstance()</code>,
+ * <code>InferredScope.getInstance()</code>, <code>JmlParser.getInstance()</code>,
+ * <code>UBoundRepository.getInstance()</code> and
+ * <code>FreshNameSupply.getInstance()</code> answer the instances of
+ * that context. Without a bound context they keep answering the global
+ * instances, as before.</p>
+ * <p>The JML type loader, the JDynAlloy configuration with its literal and
+ * static field registries and the DynAlloy compiler live in external
+ * libraries and are shared by the whole process. Code touching them must
+ * hold {@link #JML_LOCK}, {@link #JDYNALLOY_LOCK} and {@link #DYNALLOY_LOCK}
+ * respectively, and runs writing to an output directory hold its
+ * {@link #getOutputDirLock(String) lock}. Locks are taken in this order: the
+ * output directory, {@link #JDYNALLOY_LOCK}, {@link #JML_LOCK}, and
+ * {@link #DYNALLOY_LOCK} last.</p>
+ */
+public class TacoContext {
+
+	/**
+	 * Guards the JML type loader and the MJC compiler behind it, used by the
+	 * JML parser, the simplifiers and the SimpleJML translation.
+	 */
+	public static final Object JML_LOCK = new Object();
+
+	/**
+	 * Guards JDynAlloyConfig and the registries cleared by
+	 * <code>JDynAlloyConfig.reset()</code>. The Alloy plugins read the literal
+	 * and class registries, so it is held up to the Alloy translation.
+	 */
+	public static final Object JDYNALLOY_LOCK = new Object();
+
+	/**
+	 * Guards the DynAlloy compiler and the DynAlloy to Alloy translation.
+	 */
+	public static final Object DYNALLOY_LOCK = new Object();
+
+	private static final Map<String, Object> outputDirLocks = new HashMap<String, Object>();
+
+	private static final ThreadLocal<TacoContext> current = new ThreadLocal<TacoContext>();
+
+	/**
+	 * Incremented every time the shared registries are reset. Must be read
+	 * and written holding {@link #JDYNALLOY_LOCK}.
+	 */
+	private static long sharedStateGeneration = 0;
+
+	private TacoConfigurator configurator;
+
+	private InferredScope inferredScope;
+
+	private JmlParser jmlParser;
+
+	private String generatedInvariantFilename = "";
+
+	private final FreshNameSupply nameSupply = new FreshNameSupply();
+
+	private final Map<Class<?>, Object> components = new HashMap<Class<?>, Object>();
+
+	/**
+	 * @return the context bound to the current thread, or null if none.
+	 */
+	public static TacoContext getCurrent() {
+		return current.get();
+	}
+
+	/**
+	 * Binds <code>context</code> to the current thread.
+	 *
+	 * @return the previously bound context, to be restored with
+	 *         {@link #exit(TacoContext)}.
+	 */
+	public static TacoContext enter(TacoContext context) {
+		TacoContext previous = current.get();
+		current.set(context);
+		return previous;
+	}
+
+	public static void exit(TacoContext previous) {
+		if (previous == null) {
+			current.remove();
+		} else {
+			current.set(previous);
+		}
+	}
+
+	/**
+	 * Runs writing to the same output directory overwrite each other's
+	 * intermediate files, such as <code>output.dals</code>.
+	 *
+	 * @return the lock of <code>outputDir</code>, the same object for every
+	 *         path naming that directory.
+	 */
+	public static Object getOutputDirLock(String outputDir) {
+		String path = new File(outputDir).getAbsoluteFile().toPath().normalize().toString();
+		synchronized (outputDirLocks) {
+			Object lock = outputDirLocks.get(path);
+			if (lock == null) {
+				lock = new Object();
+				outputDirLocks.put(path, lock);
+			}
+			return lock;
+		}
+	}
+
+	/**
+	 * Records a reset of the shared registries. The caller must hold
+	 * {@link #JDYNALLOY_LOCK}.
+	 *
+	 * @return the new generation.
+	 */
+	static long sharedStateReset() {
+		return ++sharedStateGeneration;
+	}
+
+	/**
+	 * The caller must hold {@link #JDYNALLOY_LOCK}.
+	 */
+	static long getSharedStateGeneration() {
+		return sharedStateGeneration;
+	}
+
+	public synchronized TacoConfigurator getConfigurator() {
+		return configurator;
+	}
+
+	public synchronized void setConfigurator(TacoConfigurator configurator) {
+		this.configurator = configurator;
+	}
+
+	public synchronized InferredScope getInferredScope() {
+		return inferredScope;
+	}
+
+	public synchronized void setInferredScope(InferredScope inferredScope) {
+		this.inferredScope = inferredScope;
+	}
+
+	public synchronized JmlParser getJmlParser() {
+		if (jmlParser == null) {
+			jmlParser = new JmlParser();
+		}
+		return jmlParser;
+	}
+
+	public FreshNameSupply getNameSupply() {
+		return nameSupply;
+	}
+
+	public synchronized String getGeneratedInvariantFilename() {
+		return generatedInvariantFilename;
+	}
+
+	public synchronized void setGeneratedInvariantFilename(String generatedInvariantFilename) {
+		this.generatedInvariantFilename = generatedInvariantFilename;
+	}
+
+	/**
+	 * Per run instance of a component that is not visible from this package.
+	 *
+	 * @return the instance registered for <code>key</code>, or null.
+	 */
+	public synchronized <T> T getComponent(Class<T> key) {
+		return key.cast(components.get(key));
+	}
+
+	public synchronized <T> void putComponent(Class<T> key, T component) {
+		components.put(key, component);
+	}
+
+}
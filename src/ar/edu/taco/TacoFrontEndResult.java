@@ -0,0 +1,172 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.multijava.mjc.JCompilationUnitType;
+
+import ar.edu.jdynalloy.ast.JDynAlloyModule;
+import ar.edu.taco.jml.JmlToSimpleJmlContext;
+import ar.edu.taco.simplejml.SimpleJmlToJDynAlloyContext;
+
+/**
+ * <p>Output of the TACO front-end: JML parsing, AST simplification, SimpleJML
+ * and JFSL translation.</p>
+ * <p>When the front-end is method independent (no specification method call
+ * had to be rewritten for the method under analysis) the same result can be
+ * handed to the back-end for every method of the class. If the JDynAlloy
+ * registries were reset by another run in the meantime, the back-end
+ * translates the simplified compilation units again.</p>
+ * <p>The back-end rewrites the modules it is given, so the translation is
+ * kept serialized and every back-end gets a deep copy of its own. If the
+ * modules can't be serialized, the translation is only handed out once and
+ * the next back-end translates again.</p>
+ */
+public class TacoFrontEndResult {
+
+	private static Logger log = Logger.getLogger(TacoFrontEndResult.class);
+
+	private final List<JCompilationUnitType> simplifiedCompilationUnits;
+
+	private final JmlToSimpleJmlContext jmlToSimpleJmlContext;
+
+	private final boolean methodIndependent;
+
+	private final boolean bitwidthIndependent;
+
+	private SimpleJmlToJDynAlloyContext simpleJmlToJDynAlloyContext;
+
+	private List<JDynAlloyModule> modules = Collections.emptyList();
+
+	/**
+	 * The serialized modules, null if they couldn't be serialized.
+	 */
+	private byte[] modulesSnapshot = null;
+
+	private long sharedStateGeneration = -1;
+
+	public TacoFrontEndResult(List<JCompilationUnitType> simplifiedCompilationUnits, JmlToSimpleJmlContext jmlToSimpleJmlContext,
+			boolean methodIndependent, boolean bitwidthIndependent) {
+		this.simplifiedCompilationUnits = simplifiedCompilationUnits;
+		this.jmlToSimpleJmlContext = jmlToSimpleJmlContext;
+		this.methodIndependent = methodIndependent;
+		this.bitwidthIndependent = bitwidthIndependent;
+	}
+
+	/**
+	 * Stores the JDynAlloy translation of the simplified compilation units.
+	 * 
+	 * @param sharedStateGeneration
+	 *            generation of the JDynAlloy registries the translation
+	 *            registered its literals and static fields in.
+	 */
+	synchronized void setTranslation(SimpleJmlToJDynAlloyContext simpleJmlToJDynAlloyContext, List<JDynAlloyModule> modules, long sharedStateGeneration) {
+		this.simpleJmlToJDynAlloyContext = simpleJmlToJDynAlloyContext;
+		this.modules = new ArrayList<JDynAlloyModule>(modules);
+		this.modulesSnapshot = serialize(this.modules);
+		this.sharedStateGeneration = sharedStateGeneration;
+	}
+
+	private static byte[] serialize(List<JDynAlloyModule> modules) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(modules);
+			out.close();
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			log.warn("JDynAlloy modules can't be serialized, the front-end will be translated for every back-end: " + e.getMessage());
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<JDynAlloyModule> deserialize(byte[] snapshot) {
+		try {
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(snapshot));
+			try {
+				return (List<JDynAlloyModule>) in.readObject();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new TacoException("JDynAlloy modules couldn't be copied: " + e.getMessage());
+		} catch (ClassNotFoundException e) {
+			throw new TacoException("JDynAlloy modules couldn't be copied: " + e.getMessage());
+		}
+	}
+
+	public List<JCompilationUnitType> getSimplifiedCompilationUnits() {
+		return simplifiedCompilationUnits;
+	}
+
+	public JmlToSimpleJmlContext getJmlToSimpleJmlContext() {
+		return jmlToSimpleJmlContext;
+	}
+
+	public SimpleJmlToJDynAlloyContext getSimpleJmlToJDynAlloyContext() {
+		return simpleJmlToJDynAlloyContext;
+	}
+
+	/**
+	 * @return a deep copy of the JDynAlloy modules translated from the source
+	 *         code, owned by the caller.
+	 */
+	public synchronized List<JDynAlloyModule> getModules() {
+		if (modulesSnapshot != null) {
+			return deserialize(modulesSnapshot);
+		}
+		// not copyable: hand out the translation once, then ask for a new one
+		List<JDynAlloyModule> translation = modules;
+		modules = Collections.emptyList();
+		sharedStateGeneration = -1;
+		return translation;
+	}
+
+	/**
+	 * @return true if the result can be reused to analyse any method of the
+	 *         class to check.
+	 */
+	public boolean isMethodIndependent() {
+		return methodIndependent;
+	}
+
+	/**
+	 * @return true if the JDynAlloy translation of the simplified
+	 *         compilation units does not depend on the bitwidth.
+	 */
+	public boolean isBitwidthIndependent() {
+		return bitwidthIndependent;
+	}
+
+	synchronized long getSharedStateGeneration() {
+		return sharedStateGeneration;
+	}
+
+}
@@ -29,8 +29,10 @@ import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.Set;
@@ -52,13 +54,16 @@ import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
+import org.apache.log4j.Logger;
 import org.multijava.mjc.JCompilationUnitType;
 
 import ar.edu.jdynalloy.JDynAlloyConfig;
 import ar.edu.jdynalloy.MethodToCheckNotFoundException;
 import ar.edu.jdynalloy.ast.JDynAlloyModule;
+import ar.edu.taco.alloy.bound.UBoundGenerator;
 import ar.edu.taco.engine.AlloyStage;
 import ar.edu.taco.engine.DynalloyStage;
+import ar.edu.taco.engine.ITacoStage;
 import ar.edu.taco.engine.JDynAlloyParsingStage;
 import ar.edu.taco.engine.JDynAlloyPrinterStage;
 import ar.edu.taco.engine.JDynAlloyStage;
@@ -66,15 +71,17 @@ import ar.edu.taco.engine.JavaTraceStage;
 import ar.edu.taco.engine.JmlStage;
 import ar.edu.taco.engine.PrecompiledModules;
 import ar.edu.taco.engine.SimpleJmlStage;
+import ar.edu.taco.engine.StageScheduler;
 import ar.edu.taco.jfsl.JfslStage;
 import ar.edu.taco.jml.JmlToSimpleJmlContext;
 import ar.edu.taco.jml.parser.JmlParser;
-import ar.edu.taco.simplejml.SimpleJmlToJDynAlloyContext;
+import ar.edu.taco.utils.BackgroundFileWriter;
 import ar.edu.taco.utils.FileUtils;
+import ar.edu.taco.utils.RunReport;
+import ar.edu.taco.utils.jml.JmlAstNodeCounter;
 import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
 import ar.uba.dc.rfm.dynalloy.DynAlloyCompiler;
-import ar.uba.dc.rfm.dynalloy.analyzer.AlloyAnalysisResult;
 import ar.uba.dc.rfm.dynalloy.ast.DynalloyModule;
 import ar.uba.dc.rfm.dynalloy.ast.ProgramDeclaration;
 
@@ -100,6 +107,7 @@ import ar.uba.dc.rfm.dynalloy.ast.ProgramDeclaration;
  */
 public class TacoMain {
 
+    private static Logger log = Logger.getLogger(TacoMain.class);
 
     private static final String CMD = "Taco";
     private static final String HEADER = "Taco static analysis tool.";
@@ -111,6 +119,15 @@ public class TacoMain {
 
     private Object inputToFix;
 
+    private final TacoContext context = new TacoContext();
+
+    /**
+     * Configuration keys the front-end does not read. The JDynAlloy to
+     * DynAlloy translation only reads them in some configurations, see
+     * runSweep.
+     */
+    private static final String[] SCOPE_KEYS = { TacoConfigurator.OBJECT_SCOPE, TacoConfigurator.TYPE_SCOPES, TacoConfigurator.BITWIDTH };
+
     /**
      * @param args
      */
@@ -318,112 +335,503 @@ public class TacoMain {
 
 
     public void runDriver(String configFile, Properties overridingProperties) throws IllegalArgumentException {
+        TacoContext previousContext = TacoContext.enter(this.context);
+        try {
+            TacoFrontEndResult frontEnd = parseAndSimplify(configFile, overridingProperties);
+            UBoundGenerator.Request upperBounds;
+            synchronized (TacoContext.getOutputDirLock(TacoConfigurator.getInstance().getOutputDir())) {
+                synchronized (TacoContext.JDYNALLOY_LOCK) {
+                    StageScheduler scheduler = new StageScheduler();
+                    translateFrontEnd(configFile, overridingProperties, frontEnd, scheduler);
+                    JDynAlloyStage translation = translateBackEnd(overridingProperties, frontEnd, scheduler);
+                    scheduler.run();
+                    // the Alloy plugins read the literal and class
+                    // registries, no other run may reset them meanwhile
+                    upperBounds = translateToAlloy(translation);
+                }
+            }
+            generateTightUpperBounds(upperBounds);
+            RunReport.getInstance().flush();
+            BackgroundFileWriter.getInstance().flush();
+        } finally {
+            TacoContext.exit(previousContext);
+        }
+    }
+
+    /**
+     * Builds the configuration and runs the front-end: JML parsing, AST
+     * simplification, SimpleJML and JFSL translation.
+     *
+     * @param configFile
+     * @param overridingProperties
+     *            Properties that overrides properties file's values
+     * @return the translated JDynAlloy modules and the contexts needed by the
+     *         back-end.
+     */
+    public TacoFrontEndResult runFrontEnd(String configFile, Properties overridingProperties) throws IllegalArgumentException {
+        TacoContext previousContext = TacoContext.enter(this.context);
+        try {
+            TacoFrontEndResult frontEnd = parseAndSimplify(configFile, overridingProperties);
+            synchronized (TacoContext.getOutputDirLock(TacoConfigurator.getInstance().getOutputDir())) {
+                synchronized (TacoContext.JDYNALLOY_LOCK) {
+                    StageScheduler scheduler = new StageScheduler();
+                    translateFrontEnd(configFile, overridingProperties, frontEnd, scheduler);
+                    scheduler.run();
+                }
+            }
+            BackgroundFileWriter.getInstance().flush();
+            return frontEnd;
+        } finally {
+            TacoContext.exit(previousContext);
+        }
+    }
+
+    /**
+     * Runs the back-end (built-in modules, JDynAlloy and DynAlloy translation)
+     * for the method in <code>overridingProperties</code> on top of an already
+     * computed front-end.
+     *
+     * @param configFile
+     * @param overridingProperties
+     *            Properties that overrides properties file's values
+     * @param frontEnd
+     *            a method independent front-end for the same class and
+     *            configuration, or the front-end computed for this very method.
+     */
+    public void runBackEnd(String configFile, Properties overridingProperties, TacoFrontEndResult frontEnd) throws IllegalArgumentException {
         if (configFile == null) {
             throw new IllegalArgumentException("Config file not found, please verify option -cf");
         }
 
-        List<JCompilationUnitType> compilation_units = null;
-        String classToCheck = null;
-        String methodToCheck = overridingProperties.getProperty(TacoConfigurator.METHOD_TO_CHECK_FIELD);
+        TacoContext previousContext = TacoContext.enter(this.context);
+        try {
+            // configured for this method, the front-end may have been
+            // configured for another one
+            String outputDir = new TacoConfigurator(configFile, overridingProperties).getOutputDir();
+            UBoundGenerator.Request upperBounds;
+            synchronized (TacoContext.getOutputDirLock(outputDir)) {
+                synchronized (TacoContext.JDYNALLOY_LOCK) {
+                    StageScheduler scheduler = new StageScheduler();
+                    if (frontEnd.getSharedStateGeneration() == TacoContext.getSharedStateGeneration()) {
+                        // JDynAlloyConfig.reset() is not called: it would also clear the
+                        // literals and static fields registered while running the front-end.
+                        JDynAlloyConfig.buildConfig(configFile, overridingProperties);
+                    } else {
+                        // the literals and static fields registered by the
+                        // front-end were reset by another run: translate again
+                        translateFrontEnd(configFile, overridingProperties, frontEnd, scheduler);
+                    }
+                    JDynAlloyStage translation = translateBackEnd(overridingProperties, frontEnd, scheduler);
+                    scheduler.run();
+                    // the Alloy plugins read the literal and class
+                    // registries, no other run may reset them meanwhile
+                    upperBounds = translateToAlloy(translation);
+                }
+            }
+            generateTightUpperBounds(upperBounds);
+            RunReport.getInstance().flush();
+            BackgroundFileWriter.getInstance().flush();
+        } finally {
+            TacoContext.exit(previousContext);
+        }
+    }
 
-        // Start configurator
-        JDynAlloyConfig.reset();
-        JDynAlloyConfig.buildConfig(configFile, overridingProperties);
+    /**
+     * Writes one Alloy model per point of <code>points</code>, each one in its
+     * own subdirectory of the output directory. The front-end and the
+     * JDynAlloy to DynAlloy translation only run again when a point changes
+     * something they depend on: a point that only changes the scopes of the
+     * previous one (or its bitwidth, when the translation does not depend on
+     * it) only runs the DynAlloy to Alloy translation.
+     *
+     * @param configFile
+     * @param overridingProperties
+     *            Properties that overrides properties file's values
+     * @param points
+     *            Properties that override <code>overridingProperties</code>
+     *            for every point.
+     */
+    public void runSweep(String configFile, Properties overridingProperties, List<Properties> points) throws IllegalArgumentException {
+        if (configFile == null) {
+            throw new IllegalArgumentException("Config file not found, please verify option -cf");
+        }
 
-        List<JDynAlloyModule> jdynalloy_modules = new ArrayList<JDynAlloyModule>();
-        SimpleJmlToJDynAlloyContext simpleJmlToJDynAlloyContext;
-        if (TacoConfigurator.getInstance().getBoolean(TacoConfigurator.JMLPARSER_ENABLED, TacoConfigurator.JMLPARSER_ENABLED_DEFAULT)) {
-            // JAVA PARSING
-            String sourceRootDir = TacoConfigurator.getInstance().getString(TacoConfigurator.JMLPARSER_SOURCE_PATH_STR);
+        TacoContext previousContext = TacoContext.enter(this.context);
+        try {
+            String outputDir = new TacoConfigurator(configFile, overridingProperties).getOutputDir();
+            // the points are written below the output directory. The
+            // translation is reused across points, no other run may reset the
+            // JDynAlloy registries in the meantime
+            List<UBoundGenerator.Request> upperBounds = new ArrayList<UBoundGenerator.Request>();
+            synchronized (TacoContext.getOutputDirLock(outputDir)) {
+                synchronized (TacoContext.JDYNALLOY_LOCK) {
+                    resetConfiguration(configFile, overridingProperties);
+
+                    Map<Properties, TacoFrontEndResult> frontEnds = new HashMap<Properties, TacoFrontEndResult>();
+                    Properties translationKey = null;
+                    JDynAlloyStage translation = null;
+                    String relevantClasses = null;
+
+                    for (Properties point : points) {
+                        Properties pointProperties = new Properties();
+                        pointProperties.putAll(overridingProperties);
+                        pointProperties.putAll(point);
+
+                        Properties frontEndKey = new Properties();
+                        frontEndKey.putAll(pointProperties);
+                        for (String key : SCOPE_KEYS) {
+                            frontEndKey.remove(key);
+                        }
+                        TacoFrontEndResult frontEnd = frontEnds.get(frontEndKey);
+                        if (frontEnd == null) {
+                            frontEnd = parseAndSimplify(configFile, pointProperties);
+                            frontEnds.put(frontEndKey, frontEnd);
+                        }
+
+                        pointProperties.put(TacoConfigurator.OUTPUT_DIR, outputDir + FILE_SEP + getSweepPointName(point));
+                        JDynAlloyConfig.buildConfig(configFile, pointProperties);
+
+                        Properties pointTranslationKey = new Properties();
+                        pointTranslationKey.putAll(frontEndKey);
+                        if (TacoConfigurator.getInstance().getPruneUnreachableBuiltInModules()) {
+                            // the scopes choose the reachable built-in modules
+                            copyProperty(pointProperties, pointTranslationKey, TacoConfigurator.TYPE_SCOPES);
+                        }
+                        if (TacoConfigurator.getInstance().getRelevancyAnalysis() || !frontEnd.isBitwidthIndependent()) {
+                            copyProperty(pointProperties, pointTranslationKey, TacoConfigurator.BITWIDTH);
+                        }
+
+                        if (!pointTranslationKey.equals(translationKey) || frontEnd.getSharedStateGeneration() != TacoContext.getSharedStateGeneration()) {
+                            StageScheduler scheduler = new StageScheduler();
+                            translateFrontEnd(configFile, pointProperties, frontEnd, scheduler);
+                            translation = translateBackEnd(pointProperties, frontEnd, scheduler);
+                            scheduler.run();
+                            translationKey = pointTranslationKey;
+                            relevantClasses = join(TacoConfigurator.getInstance().getList(TacoConfigurator.RELEVANT_CLASSES));
+                        } else {
+                            // same output.dals, only the scopes of the Alloy command change
+                            if (!relevantClasses.isEmpty()) {
+                                pointProperties.put(TacoConfigurator.RELEVANT_CLASSES, relevantClasses);
+                            }
+                            JDynAlloyConfig.buildConfig(configFile, pointProperties);
+                        }
+                        upperBounds.add(translateToAlloy(translation));
+                        RunReport.getInstance().flush();
+                    }
+                }
+            }
+            for (UBoundGenerator.Request pointUpperBounds : upperBounds) {
+                generateTightUpperBounds(pointUpperBounds);
+            }
+            BackgroundFileWriter.getInstance().flush();
+        } finally {
+            TacoContext.exit(previousContext);
+        }
+    }
 
-            if (TacoConfigurator.getInstance().getString(TacoConfigurator.CLASS_TO_CHECK_FIELD) == null) {
-                throw new TacoException("Config key 'CLASS_TO_CHECK_FIELD' is mandatory. Please check your config file or add the -c parameter");
+    /**
+     * @return a directory name for the point, made of its keys and values.
+     */
+    private static String getSweepPointName(Properties point) {
+        List<String> keys = new ArrayList<String>(point.stringPropertyNames());
+        Collections.sort(keys);
+        StringBuilder name = new StringBuilder();
+        for (String key : keys) {
+            if (name.length() > 0) {
+                name.append('_');
             }
-            List<String> files = new ArrayList<String>(Arrays.asList(JDynAlloyConfig.getInstance().getClasses()));
-            classToCheck = TacoConfigurator.getInstance().getString(TacoConfigurator.CLASS_TO_CHECK_FIELD);
-            if (!files.contains(classToCheck)) {
-                files.add(classToCheck);
+            name.append(key).append('=').append(point.getProperty(key));
+        }
+        if (name.length() == 0) {
+            return "default";
+        }
+        return name.toString().replaceAll("[^A-Za-z0-9=.,_-]", "_");
+    }
+
+    private static void copyProperty(Properties from, Properties to, String key) {
+        String value = from.getProperty(key);
+        if (value != null) {
+            to.setProperty(key, value);
+        }
+    }
+
+    private static String join(List<?> values) {
+        StringBuilder joined = new StringBuilder();
+        for (Object value : values) {
+            if (joined.length() > 0) {
+                joined.append(',');
             }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+
+    private long resetConfiguration(String configFile, Properties overridingProperties) {
+        // fresh names only depend on the input being translated
+        this.context.getNameSupply().reset();
+        JDynAlloyConfig.reset();
+        long generation = TacoContext.sharedStateReset();
+        JDynAlloyConfig.buildConfig(configFile, overridingProperties);
+        return generation;
+    }
 
+    private TacoFrontEndResult parseAndSimplify(String configFile, Properties overridingProperties) throws IllegalArgumentException {
+        if (configFile == null) {
+            throw new IllegalArgumentException("Config file not found, please verify option -cf");
+        }
+
+        List<JCompilationUnitType> compilation_units = null;
+        String classToCheck = null;
+
+        List<JCompilationUnitType> simplified_compilation_units = null;
+        JmlToSimpleJmlContext jmlToSimpleJmlContext = null;
+        boolean methodIndependent = true;
+        boolean bitwidthIndependent = true;
+
+        // the JML checker type loader is shared by the whole process, and the
+        // simplifiers resolve types through it
+        synchronized (TacoContext.JML_LOCK) {
+            // Start configurator. The JDynAlloy registries are only reset
+            // by the translation, which may be running for another job.
+            this.context.getNameSupply().reset();
+            new TacoConfigurator(configFile, overridingProperties);
+
+            if (TacoConfigurator.getInstance().getBoolean(TacoConfigurator.JMLPARSER_ENABLED, TacoConfigurator.JMLPARSER_ENABLED_DEFAULT)) {
+                // JAVA PARSING
+                String sourceRootDir = TacoConfigurator.getInstance().getString(TacoConfigurator.JMLPARSER_SOURCE_PATH_STR);
+
+                if (TacoConfigurator.getInstance().getString(TacoConfigurator.CLASS_TO_CHECK_FIELD) == null) {
+                    throw new TacoException("Config key 'CLASS_TO_CHECK_FIELD' is mandatory. Please check your config file or add the -c parameter");
+                }
+                List<String> files = new ArrayList<String>(Arrays.asList(TacoConfigurator.getInstance().getClasses()));
+                classToCheck = TacoConfigurator.getInstance().getString(TacoConfigurator.CLASS_TO_CHECK_FIELD);
+                if (!files.contains(classToCheck)) {
+                    files.add(classToCheck);
+                }
 
-            String userDir = System.getProperty("user.dir") + System.getProperty("file.separator") + "bin";
-            boolean compilationSuccess = JmlParser.getInstance().initialize(sourceRootDir, userDir /* Unused */, files);
 
-            compilation_units = JmlParser.getInstance().getCompilationUnits();
-            // END JAVA PARSING
+                String userDir = System.getProperty("user.dir") + System.getProperty("file.separator") + "bin";
+                RunReport.Measurement parsing = RunReport.start("stage", "JML parsing");
+                boolean compilationSuccess;
+                try {
+                    compilationSuccess = JmlParser.getInstance().initialize(sourceRootDir, userDir /* Unused */, files);
 
-            // BEGIN SIMPLIFICATION
-            JmlStage aJavaCodeSimplifier = new JmlStage(compilation_units);
-            aJavaCodeSimplifier.execute();
-            JmlToSimpleJmlContext jmlToSimpleJmlContext = aJavaCodeSimplifier.getJmlToSimpleJmlContext();
-            List<JCompilationUnitType> simplified_compilation_units = aJavaCodeSimplifier.get_simplified_compilation_units();
+                    compilation_units = JmlParser.getInstance().getCompilationUnits();
+                } finally {
+                    parsing.stop();
+                }
+                parsing.count("compilationUnits", compilation_units.size());
+                if (RunReport.isEnabled()) {
+                    for (JCompilationUnitType compilation_unit : compilation_units) {
+                        parsing.count("nodes", JmlAstNodeCounter.count(compilation_unit));
+                    }
+                }
+                // END JAVA PARSING
+
+                // the only method dependent simplification is the removal of
+                // method calls in specifications
+                for (JCompilationUnitType compilation_unit : compilation_units) {
+                    SpecMethodCallDetectorVisitor detector = new SpecMethodCallDetectorVisitor();
+                    compilation_unit.accept(detector);
+                    if (detector.isSpecMethodCallFound()) {
+                        methodIndependent = false;
+                    }
+                    if (detector.isIntSizeFound()) {
+                        bitwidthIndependent = false;
+                    }
+                }
 
-            // END SIMPLIFICATION
+                // BEGIN SIMPLIFICATION
+                JmlStage aJavaCodeSimplifier = new JmlStage(compilation_units);
+                RunReport.Measurement simplification = RunReport.start("stage", "JML simplification");
+                try {
+                    aJavaCodeSimplifier.execute();
+                } finally {
+                    simplification.stop();
+                }
+                jmlToSimpleJmlContext = aJavaCodeSimplifier.getJmlToSimpleJmlContext();
+                simplified_compilation_units = aJavaCodeSimplifier.get_simplified_compilation_units();
+
+                // END SIMPLIFICATION
+            }
+        }
+
+        return new TacoFrontEndResult(simplified_compilation_units, jmlToSimpleJmlContext, methodIndependent, bitwidthIndependent);
+    }
+
+    /**
+     * Adds the stages that translate the simplified compilation units to
+     * JDynAlloy. Resets the JDynAlloy registries right away, so the caller
+     * must hold <code>TacoContext.JDYNALLOY_LOCK</code> until the stages and
+     * the back-end are done. The stages that use the JML type loader take
+     * <code>TacoContext.JML_LOCK</code> themselves.
+     */
+    private void translateFrontEnd(String configFile, Properties overridingProperties, final TacoFrontEndResult frontEnd, StageScheduler scheduler) {
+        final long generation = resetConfiguration(configFile, overridingProperties);
+
+        if (frontEnd.getSimplifiedCompilationUnits() != null) {
+            final List<JCompilationUnitType> simplified_compilation_units = frontEnd.getSimplifiedCompilationUnits();
 
             // BEGIN JAVA TO JDYNALLOY TRANSLATION
             // JDynAlloy modules have Alloy contracts and dynAlloy programs
-            SimpleJmlStage aJavaToJDynAlloyTranslator = new SimpleJmlStage(simplified_compilation_units);
+            final SimpleJmlStage aJavaToJDynAlloyTranslator = new SimpleJmlStage(simplified_compilation_units);
             //HERE IS WHERE THE PREDS AND VARS ARE PRODUCED
-            aJavaToJDynAlloyTranslator.execute();
+            scheduler.add("SimpleJML to JDynAlloy", new ITacoStage() {
+                @Override
+                public void execute() {
+                    synchronized (TacoContext.JML_LOCK) {
+                        aJavaToJDynAlloyTranslator.execute();
+                    }
+                }
+            });
             // END JAVA TO JDYNALLOY TRANSLATION
 
-            simpleJmlToJDynAlloyContext = aJavaToJDynAlloyTranslator.getSimpleJmlToJDynAlloyContext();
-
             // JFSL TO JDYNALLOY TRANSLATION
-            JfslStage aJfslToDynJAlloyTranslator = new JfslStage(simplified_compilation_units, aJavaToJDynAlloyTranslator.getModules(), jmlToSimpleJmlContext,
-                    simpleJmlToJDynAlloyContext);
-            aJfslToDynJAlloyTranslator.execute();
-
-            aJfslToDynJAlloyTranslator = null;
+            // built once the SimpleJML to JDynAlloy context is known
+            scheduler.add("JFSL to JDynAlloy", new ITacoStage() {
+                @Override
+                public void execute() {
+                    JfslStage aJfslToDynJAlloyTranslator = new JfslStage(simplified_compilation_units, aJavaToJDynAlloyTranslator.getModules(),
+                            frontEnd.getJmlToSimpleJmlContext(), aJavaToJDynAlloyTranslator.getSimpleJmlToJDynAlloyContext());
+                    synchronized (TacoContext.JML_LOCK) {
+                        aJfslToDynJAlloyTranslator.execute();
+                    }
+                }
+            });
             // END JFSL TO JDYNALLOY TRANSLATION
 
             // PRINT JDYNALLOY
-            JDynAlloyPrinterStage printerStage = new JDynAlloyPrinterStage(aJavaToJDynAlloyTranslator.getModules());
-            printerStage.execute();
-            printerStage = null;
+            // the modules are rendered before the back-end updates the
+            // registries, the files are written while the back-end runs
+            final JDynAlloyPrinterStage jDynAlloyPrinter = new JDynAlloyPrinterStage(aJavaToJDynAlloyTranslator.getModules());
+            scheduler.add("JDynAlloy printer", jDynAlloyPrinter);
             // END PRINT JDYNALLOY
 
-            jdynalloy_modules.addAll(aJavaToJDynAlloyTranslator.getModules());
+            scheduler.add("front-end result", new ITacoStage() {
+                @Override
+                public void execute() {
+                    frontEnd.setTranslation(aJavaToJDynAlloyTranslator.getSimpleJmlToJDynAlloyContext(), aJavaToJDynAlloyTranslator.getModules(), generation);
+                }
+            });
 
         } else {
-            simpleJmlToJDynAlloyContext = null;
+            frontEnd.setTranslation(null, new ArrayList<JDynAlloyModule>(), generation);
         }
+    }
 
+    /**
+     * Adds the back-end stages for the method in
+     * <code>overridingProperties</code>, up to the DynAlloy translation. They
+     * run after the front-end stages added to the same scheduler.
+     *
+     * @return the JDynAlloy to DynAlloy stage, once the scheduler is run its
+     *         output can be translated to Alloy with
+     *         {@link #translateToAlloy(JDynAlloyStage)}.
+     */
+    private JDynAlloyStage translateBackEnd(Properties overridingProperties, final TacoFrontEndResult frontEnd, StageScheduler scheduler) {
+        // the back-end prunes and rewrites its own copy of the cached modules
+        final List<JDynAlloyModule> jdynalloy_modules = new ArrayList<JDynAlloyModule>();
         // JDYNALLOY BUILT-IN MODULES
-        PrecompiledModules precompiledModules = null;
+        final PrecompiledModules precompiledModules;
         if (this.inputToFix != null){
             precompiledModules = new PrecompiledModules((HashMap<String, Object>)inputToFix);
         } else {
             precompiledModules = new PrecompiledModules();
         }
-        precompiledModules.execute();
-        jdynalloy_modules.addAll(precompiledModules.getModules());
+        scheduler.add("built-in modules", new ITacoStage() {
+            @Override
+            public void execute() {
+                List<JDynAlloyModule> frontEndModules = frontEnd.getModules();
+                jdynalloy_modules.addAll(frontEndModules);
+                precompiledModules.setReachabilityRoots(frontEndModules);
+                precompiledModules.execute();
+                jdynalloy_modules.addAll(precompiledModules.getModules());
+            }
+        });
         // END JDYNALLOY BUILT-IN MODULES
 
         // JDYNALLOY STATIC FIELDS CLASS
-        JDynAlloyModule staticFieldsModule = precompiledModules.generateStaticFieldsModule();
-        jdynalloy_modules.add(staticFieldsModule);
-        /**/	staticFieldsModule = null;
+        scheduler.add("static fields module", new ITacoStage() {
+            @Override
+            public void execute() {
+                jdynalloy_modules.add(precompiledModules.generateStaticFieldsModule());
+            }
+        });
         // END JDYNALLOY STATIC FIELDS CLASS
 
         // JDYNALLOY PARSING
         if (TacoConfigurator.getInstance().getBoolean(TacoConfigurator.JDYNALLOY_PARSER_ENABLED, TacoConfigurator.JDYNALLOY_PARSER_ENABLED_DEFAULT)) {
-            JDynAlloyParsingStage jDynAlloyParser = new JDynAlloyParsingStage(jdynalloy_modules);
-            jDynAlloyParser.execute();
-            jdynalloy_modules.addAll(jDynAlloyParser.getParsedModules());
-            /**/		jDynAlloyParser = null;
+            final JDynAlloyParsingStage jDynAlloyParser = new JDynAlloyParsingStage(jdynalloy_modules);
+            scheduler.add("JDynAlloy parsing", new ITacoStage() {
+                @Override
+                public void execute() {
+                    jDynAlloyParser.execute();
+                    jdynalloy_modules.addAll(jDynAlloyParser.getParsedModules());
+                }
+            });
         }
         // END JDYNALLOY PARSING
 
         // BEGIN JDYNALLOY TO DYNALLOY TRANSLATION
         String methodToCheckWithoutTyping = overridingProperties.getProperty("methodToCheck").substring(0, overridingProperties.getProperty("methodToCheck").indexOf('('));
-        JDynAlloyStage dynJAlloyToDynAlloyTranslator = new JDynAlloyStage(jdynalloy_modules, overridingProperties.getProperty("classToCheck"), methodToCheckWithoutTyping, inputToFix);
+        final JDynAlloyStage dynJAlloyToDynAlloyTranslator = new JDynAlloyStage(jdynalloy_modules, overridingProperties.getProperty("classToCheck"), methodToCheckWithoutTyping, inputToFix);
         dynJAlloyToDynAlloyTranslator.setJavaArithmetic(TacoConfigurator.getInstance().getUseJavaArithmetic());
         dynJAlloyToDynAlloyTranslator.setRemoveQuantifiers(TacoConfigurator.getInstance().getRemoveQuantifiers());
-        dynJAlloyToDynAlloyTranslator.execute();
+        scheduler.add("JDynAlloy to DynAlloy", dynJAlloyToDynAlloyTranslator);
         // END JDYNALLOY TO DYNALLOY TRANSLATION
 
-        AlloyAnalysisResult alloy_analysis_result = null;
+        return dynJAlloyToDynAlloyTranslator;
+    }
+
+    /**
+     * Translates the output of <code>translation</code> to Alloy. The Alloy
+     * plugins read the integer literals and the class hierarchy registered in
+     * the JDynAlloy registries, so the caller must still hold
+     * <code>TacoContext.JDYNALLOY_LOCK</code>, and the lock of the output
+     * directory the translation wrote to.
+     *
+     * @return the tight upper bounds to generate from the invariant model,
+     *         see {@link #generateTightUpperBounds(UBoundGenerator.Request)},
+     *         or null.
+     */
+    private UBoundGenerator.Request translateToAlloy(final JDynAlloyStage translation) {
+        final List<DynalloyStage> dynalloyStages = new ArrayList<DynalloyStage>();
+        synchronized (TacoContext.DYNALLOY_LOCK) {
+            StageScheduler scheduler = new StageScheduler();
+            scheduler.add("DynAlloy to Alloy", new ITacoStage() {
+                @Override
+                public void execute() {
+                    DynalloyStage dynalloyStage = translateDynAlloyToAlloy(translation);
+                    if (dynalloyStage != null) {
+                        dynalloyStages.add(dynalloyStage);
+                    }
+                }
+            });
+            scheduler.run();
+        }
+        return dynalloyStages.isEmpty() ? null : dynalloyStages.get(0).getUpperBoundRequest();
+    }
+
+    /**
+     * Runs the Alloy analyzer on the invariant model for its tight upper
+     * bounds, if <code>upperBounds</code> is not null. It takes a run of the
+     * analyzer per instance, so it is called once every lock is released.
+     */
+    private static void generateTightUpperBounds(final UBoundGenerator.Request upperBounds) {
+        if (upperBounds == null) {
+            return;
+        }
+        StageScheduler scheduler = new StageScheduler();
+        scheduler.add("tight upper bounds", new ITacoStage() {
+            @Override
+            public void execute() {
+                upperBounds.generate();
+            }
+        });
+        scheduler.run();
+    }
+
+    private DynalloyStage translateDynAlloyToAlloy(JDynAlloyStage dynJAlloyToDynAlloyTranslator) {
         DynalloyStage dynalloyToAlloy = null;
 
         // GRAB PREDICATES COMING FROM ARITHMETIC EXPRESSIONS
@@ -459,6 +867,7 @@ public class TacoMain {
 
         }
 
+        return dynalloyToAlloy;
     }
 
     /**
@@ -470,104 +879,51 @@ public class TacoMain {
 
     @SuppressWarnings("unchecked")
     public void run(String configFile, Properties overridingProperties) throws IllegalArgumentException {
-
-        runDriver(configFile, overridingProperties);
-        Properties invProperties = overridingProperties;
-//        String oldMethod = invProperties.getProperty(TacoConfigurator.METHOD_TO_CHECK_FIELD);
-        invProperties.setProperty(TacoConfigurator.METHOD_TO_CHECK_FIELD, "generateInvariant()");
-        runDriver(configFile, invProperties);
-        String theGeneratedInvariantAlsFile = TacoConfigurator.getGeneratedInvariantFilename();
-        String theActualALS = "";
+        TacoContext previousContext = TacoContext.enter(this.context);
         try {
-            File alsInvFile = new File(TacoConfigurator.getGeneratedInvariantFilename());
-            Scanner myReader = new Scanner(alsInvFile);
-            while (myReader.hasNextLine()) {
-                String data = myReader.nextLine();
-                theActualALS += "\r\n" + data;
-            }
-            myReader.close();
-            alsInvFile.delete();
-
-            theActualALS = theActualALS.replace("fact {\r\n", "fact {");
-            String classToCheck = TacoConfigurator.getInstance().getClassToCheck();
-            String fullyQualifiedMethodToCheck = classToCheck + "_" + "generateInvariant";
-            String preconditionPred = "fact {  precondition" + "_" + fullyQualifiedMethodToCheck + "[(QF";
-            boolean test = theActualALS.contains(preconditionPred);
-            theActualALS = theActualALS.replace(preconditionPred, "run {  " + classToCheck + "_object_invariant" + "[(QF");
-            preconditionPred = "fact {  precondition" + "_" + fullyQualifiedMethodToCheck + "[QF";
-            theActualALS = theActualALS.replace(preconditionPred, "run {  " + classToCheck + "_object_invariant" + "[QF");
-
-            int indexRun = theActualALS.indexOf("run {");
-            String startingInRun = theActualALS.substring(indexRun);
-            int indexClosingBracket = startingInRun.indexOf(']');
-            String startingInRunUntilClosingBracket = startingInRun.substring(0,indexClosingBracket+1);
-            
-            String runWithoutThrows = removeThrows(startingInRunUntilClosingBracket);
-            theActualALS = theActualALS.replace(startingInRunUntilClosingBracket, runWithoutThrows);
-
-            int indexAllScopes = theActualALS.indexOf("for 0 but");
-            String scopesHoldingSuffix = theActualALS.substring(indexAllScopes);
-            int posEndScopes = scopesHoldingSuffix.indexOf('\r');
-            String allScopes = scopesHoldingSuffix.substring(0, posEndScopes);
-
-            indexRun = theActualALS.indexOf("run {");
-            startingInRun =  theActualALS.substring(indexRun);
-            int indexClosingBrace = startingInRun.indexOf('}');
-            String runUntilClosingBrace = theActualALS.substring(indexRun, indexRun + indexClosingBrace + 1);
-            String runWithScopes = runUntilClosingBrace + " " + allScopes;
-            theActualALS = theActualALS.replace(runUntilClosingBrace, runWithScopes);
-
-            int posCheck = theActualALS.indexOf("check check");
-            String fromChechCheck = theActualALS.substring(posCheck);
-            int posCRLN = fromChechCheck.indexOf("\r\n");
-            String theCheckCheckUntilEOL = fromChechCheck.substring(0, posCRLN + 2);
-            theActualALS = theActualALS.replace(theCheckCheckUntilEOL, "");
-            String oldFileName = TacoConfigurator.getGeneratedInvariantFilename();
-            String newFileName = TacoConfigurator.getGeneratedInvariantFilename().replace("als", "inv");
-            PrintWriter theNewFile = new PrintWriter(newFileName);
-            theNewFile.append(theActualALS);
-            theNewFile.checkError();
-            theNewFile.close();
-
-
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+            runMethodAndInvariant(configFile, overridingProperties);
+        } finally {
+            TacoContext.exit(previousContext);
         }
+    }
 
+    private void runMethodAndInvariant(String configFile, Properties overridingProperties) throws IllegalArgumentException {
 
-        
-    }
+        TacoFrontEndResult frontEnd = runFrontEnd(configFile, overridingProperties);
+        TacoConfigurator configurator = TacoConfigurator.getInstance();
+        if (!(configurator.getGenerateTightUpperBounds() && configurator.getUseTightUpperBounds() && configurator.getUseJavaSBP())) {
+            runBackEnd(configFile, overridingProperties, frontEnd);
+            runInvariant(configFile, overridingProperties, frontEnd);
+            return;
+        }
 
-    private String removeThrows(String theString) {
-        theString = theString.replace("\r\n", "");
-        boolean hasTwoBlanks = theString.contains("  ");
-        while (hasTwoBlanks){
-            theString = theString.replace("  ", "");
-            hasTwoBlanks = theString.contains("  ");
+        // the method is analysed with the tight upper bounds generated from
+        // the invariant model, see UBoundGenerator, so that model goes first.
+        // The method is translated even if it can't be written.
+        RuntimeException invariantFailure = null;
+        try {
+            runInvariant(configFile, overridingProperties, frontEnd);
+        } catch (RuntimeException e) {
+            log.warn("The invariant model could not be translated, tight upper bounds not generated: " + e.getMessage());
+            invariantFailure = e;
         }
-        boolean hasThrow = theString.contains("QF.throw");
-        while (hasThrow){
-            int posLastThrow = theString.lastIndexOf("QF.throw_");
-            String pendingString = theString.substring(posLastThrow);
-            if (pendingString.contains(",")){
-                int posFirstComma = pendingString.indexOf(',');
-                String actualThrowIncludingComma = pendingString.substring(0,posFirstComma+1);
-                theString = theString.replace(actualThrowIncludingComma, "");
-            } else { //there has to be a closing bracket
-                int posBracket = pendingString.indexOf(']');
-                String actualThrow = pendingString.substring(0,posBracket);
-                theString = theString.replace(actualThrow, "");
-                if (theString.contains(",]")) {
-                    theString = theString.replace(",]", "]");
-                }
-                if (theString.contains(",,")) {
-                    theString = theString.replace(",,", ",");
-                }
-            }
-            hasThrow = theString.contains("QF.throw");
+        runBackEnd(configFile, overridingProperties, frontEnd);
+        if (invariantFailure != null) {
+            throw invariantFailure;
         }
+    }
 
-        return theString;
+    private void runInvariant(String configFile, Properties overridingProperties, TacoFrontEndResult frontEnd) {
+        Properties invProperties = new Properties();
+        invProperties.putAll(overridingProperties);
+        invProperties.setProperty(TacoConfigurator.METHOD_TO_CHECK_FIELD, "generateInvariant()");
+        if (frontEnd.isMethodIndependent()) {
+            // the simplified units and JDynAlloy modules are the same for
+            // generateInvariant(), only the back-end has to run again
+            runBackEnd(configFile, invProperties, frontEnd);
+        } else {
+            runDriver(configFile, invProperties);
+        }
     }
 
     /**
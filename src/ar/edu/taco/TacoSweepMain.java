@@ -0,0 +1,135 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * <p>Generates one ALS file per point of a grid of configurations for a
+ * single method, translating the source code once.</p>
+ * <p>The grid file has one dimension per line:</p>
+ * <pre>
+ * &lt;key&gt;=&lt;value&gt;|&lt;value&gt;|...
+ * </pre>
+ * <p>Empty lines and lines starting with <code>#</code> are ignored. The
+ * points are every combination of the values, the last line changes the
+ * fastest. Put the scope dimensions (<code>objectScope</code>,
+ * <code>type_scopes</code>, <code>int.bitwidth</code>) last: consecutive
+ * points that only differ in them share the whole translation up to
+ * DynAlloy, see <code>TacoMain.runSweep</code>. Every point is written to its
+ * own subdirectory of the output directory.</p>
+ */
+public class TacoSweepMain {
+
+	private static final String COMMENT_PREFIX = "#";
+
+	private static final String VALUE_SEPARATOR = "|";
+
+	public static void main(String[] args) {
+		if (args.length != 4) {
+			System.err.println("Usage: TacoSweepMain <configFile> <classToCheck> <methodToCheck> <grid file>");
+			return;
+		}
+
+		List<Properties> points;
+		try {
+			points = readGrid(args[3]);
+		} catch (IOException e) {
+			System.err.println("Error found:");
+			System.err.println("Grid file could not be read: " + e.getMessage());
+			return;
+		} catch (IllegalArgumentException e) {
+			System.err.println("Error found:");
+			System.err.println(e.getMessage());
+			return;
+		}
+
+		Properties overridingProperties = new Properties();
+		overridingProperties.put(TacoConfigurator.CLASS_TO_CHECK_FIELD, args[1]);
+		overridingProperties.put(TacoConfigurator.METHOD_TO_CHECK_FIELD, args[2]);
+
+		System.out.println("****** Generating " + args[1] + "." + args[2] + " for " + points.size() + " points ******");
+		try {
+			new TacoMain(null).runSweep(args[0], overridingProperties, points);
+		} catch (IllegalArgumentException e) {
+			System.err.println("Error found:");
+			System.err.println(e.getMessage());
+		} catch (TacoException e) {
+			System.err.println("Error found:");
+			System.err.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the points of the grid, the last dimension changes the
+	 *         fastest.
+	 */
+	public static List<Properties> readGrid(String gridFilename) throws IOException {
+		List<Properties> points = new ArrayList<Properties>();
+		points.add(new Properties());
+		BufferedReader reader = new BufferedReader(new FileReader(gridFilename));
+		try {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.length() == 0 || line.startsWith(COMMENT_PREFIX)) {
+					continue;
+				}
+				int separator = line.indexOf('=');
+				if (separator <= 0) {
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + gridFilename + ": expected <key>=<value>|<value>|...");
+				}
+				String key = line.substring(0, separator).trim();
+				List<String> values = new ArrayList<String>();
+				for (String value : Arrays.asList(line.substring(separator + 1).split("\\" + VALUE_SEPARATOR))) {
+					if (value.trim().length() > 0) {
+						values.add(value.trim());
+					}
+				}
+				if (values.isEmpty()) {
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + gridFilename + ": no values for " + key);
+				}
+
+				List<Properties> extendedPoints = new ArrayList<Properties>();
+				for (Properties point : points) {
+					for (String value : values) {
+						Properties extendedPoint = new Properties();
+						extendedPoint.putAll(point);
+						extendedPoint.put(key, value);
+						extendedPoints.add(extendedPoint);
+					}
+				}
+				points = extendedPoints;
+			}
+		} finally {
+			reader.close();
+		}
+		return points;
+	}
+
+}
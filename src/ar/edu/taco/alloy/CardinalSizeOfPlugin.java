@@ -2,61 +2,274 @@ package ar.edu.taco.alloy;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.infer.InferredScope;
 import ar.edu.taco.simplejml.builtin.JavaPrimitiveIntegerValue;
-import ar.uba.dc.rfm.dynalloy.plugin.AlloyStringPlugin;
+import ar.edu.taco.utils.AlloyOutputSink;
+import ar.uba.dc.rfm.alloy.AlloyTyping;
+import ar.uba.dc.rfm.alloy.AlloyVariable;
+import ar.uba.dc.rfm.alloy.ast.AlloyModule;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprConstant;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprFunction;
+import ar.uba.dc.rfm.alloy.ast.formulas.PredicateFormula;
+import ar.uba.dc.rfm.alloy.util.AlloyMutator;
+import ar.uba.dc.rfm.alloy.util.ExpressionMutator;
+import ar.uba.dc.rfm.alloy.util.FormulaMutator;
+import ar.uba.dc.rfm.dynalloy.plugin.AlloyASTPlugin;
 
-public class CardinalSizeOfPlugin implements AlloyStringPlugin {
+/**
+ * Declares the size-of function and predicate of JavaPrimitiveIntegerValue,
+ * and the literals they need. They are declarations, not facts: the module
+ * only has facts and assertions as formulas, so they are handed to the
+ * output sink as text.
+ */
+public class CardinalSizeOfPlugin implements AlloyASTPlugin {
+
+	private static final String LITERAL_REFERENCE = "(?:pred_java_primitive_integer_value_literal_|fun_java_primitive_integer_value_literal_|JavaPrimitiveIntegerLiteral)(\\d+)";
+
+	private static final Pattern LITERAL_ID = Pattern.compile(LITERAL_REFERENCE);
+
+	private static final Pattern LITERAL_REFERENCE_IN_TEXT = Pattern.compile(LITERAL_REFERENCE + "\\b");
+
+	private static final Pattern BIT_FIELD = Pattern.compile("\\bb(\\d+)\\b");
+
+	private final AlloyOutputSink outputSink;
+
+	public CardinalSizeOfPlugin(AlloyOutputSink outputSink) {
+		this.outputSink = outputSink;
+	}
 
 	/* (non-Javadoc)
-	 * @see ar.uba.dc.rfm.dynalloy.plugin.AlloyStringPlugin#transform(java.lang.String)
+	 * @see ar.uba.dc.rfm.dynalloy.plugin.AlloyASTPlugin#transform(ar.uba.dc.rfm.alloy.ast.AlloyModule)
 	 */
 	@Override
-	public String transform(String input) {
+	public AlloyModule transform(AlloyModule input) {
 
 		if (TacoConfigurator.getInstance().getUseJavaArithmetic() == true) {
 
 			String java_primitive_integer_value_sig_id = JavaPrimitiveIntegerValue.getInstance().getModule().getSignature().getSignatureId();
-			if (input.contains(java_primitive_integer_value_sig_id)) {
-
-				List<String> alloy_predicates = new LinkedList<String>();
-				List<String> alloy_functions = new LinkedList<String>();
+			if (usesSignature(input, java_primitive_integer_value_sig_id)) {
 
 				int bitwidth = getBitwidth();
 /*mfrias-1->0*/	if (bitwidth > 0) {
-					int number_of_non_negatives = (int) Math.pow(2, bitwidth-1);
+					if (TacoConfigurator.getInstance().getSizeOfEncoding() == SizeOfEncoding.BITWISE) {
+						int signature_bits = signature_bits(java_primitive_integer_value_sig_id, input, outputSink.getFragments(), bitwidth);
+						outputSink.append(bitwise_size_of(bitwidth, signature_bits, referenced_int_literals(input, outputSink.getFragments())));
+					} else {
+						outputSink.append(enumerated_size_of(bitwidth));
+					}
+				}
+			}
+		}
+		return input;
 
-					// positive literals
-					for (int i = 0; i < number_of_non_negatives; i++) {
+	}
 
-						if (!JavaPrimitiveIntegerValue.getInstance().is_int_literal_already_defined(i)) {
-							alloy_predicates.add(JavaPrimitiveIntegerValue.getInstance().pred_java_primitive_integer_value_literal(i));
-							alloy_functions.add(JavaPrimitiveIntegerValue.getInstance().fun_java_primitive_integer_value_literal(i));
-						}
+	/**
+	 * One literal for every non negative integer and a size-of predicate
+	 * that enumerates them.
+	 */
+	static String enumerated_size_of(int bitwidth) {
+		List<String> alloy_predicates = new LinkedList<String>();
+		List<String> alloy_functions = new LinkedList<String>();
 
-					}
+		int number_of_non_negatives = (int) Math.pow(2, bitwidth-1);
 
-					String pred_java_primitive_integer_value_size_of = JavaPrimitiveIntegerValue.getInstance().pred_java_primitive_integer_value_size_of(number_of_non_negatives);
-					String fun_java_primitive_integer_value_size_of = JavaPrimitiveIntegerValue.getInstance().fun_java_primitive_integer_value_size_of();
-					alloy_predicates.add(pred_java_primitive_integer_value_size_of);
-					alloy_functions.add(fun_java_primitive_integer_value_size_of);
-				}
+		// positive literals
+		for (int i = 0; i < number_of_non_negatives; i++) {
 
-				StringBuffer buff = new StringBuffer();
-				buff.append(input);
-				for (String alloy_function : alloy_functions) {
-					buff.append(alloy_function);
-				}
-				for (String alloy_predicate : alloy_predicates) {
-					buff.append(alloy_predicate);
-				}
-				return buff.toString();
+			if (!JavaPrimitiveIntegerValue.getInstance().is_int_literal_already_defined(i)) {
+				alloy_predicates.add(JavaPrimitiveIntegerValue.getInstance().pred_java_primitive_integer_value_literal(i));
+				alloy_functions.add(JavaPrimitiveIntegerValue.getInstance().fun_java_primitive_integer_value_literal(i));
 			}
+
 		}
-		return input;
 
+		String pred_java_primitive_integer_value_size_of = JavaPrimitiveIntegerValue.getInstance().pred_java_primitive_integer_value_size_of(number_of_non_negatives);
+		String fun_java_primitive_integer_value_size_of = JavaPrimitiveIntegerValue.getInstance().fun_java_primitive_integer_value_size_of();
+		alloy_predicates.add(pred_java_primitive_integer_value_size_of);
+		alloy_functions.add(fun_java_primitive_integer_value_size_of);
+
+		StringBuffer buff = new StringBuffer();
+		for (String alloy_function : alloy_functions) {
+			buff.append(alloy_function);
+		}
+		for (String alloy_predicate : alloy_predicates) {
+			buff.append(alloy_predicate);
+		}
+		return buff.toString();
+	}
+
+	/**
+	 * A size-of predicate that sets every bit of the result from the
+	 * cardinality of the set (bit k is <code>rem[div[#s, 2^k], 2]</code>).
+	 * The sign bit and every bit of the signature above it are always false.
+	 * Sizes above the largest non negative integer of the bitwidth have no
+	 * result, as in the enumerated encoding.
+	 *
+	 * Literals are only declared if the module refers to them without
+	 * declaring them, as the upper bound declarations do.
+	 *
+	 * @param signature_bits
+	 *            the number of bit fields of the JavaPrimitiveIntegerValue
+	 *            signature, at least <code>bitwidth</code>.
+	 */
+	static String bitwise_size_of(int bitwidth, int signature_bits, Set<Integer> referenced_int_literals) {
+		int max_non_negative = (int) Math.pow(2, bitwidth-1) - 1;
+
+		StringBuffer buff = new StringBuffer();
+		for (int i : referenced_int_literals) {
+			if (i <= max_non_negative && !JavaPrimitiveIntegerValue.getInstance().is_int_literal_already_defined(i)) {
+				buff.append(JavaPrimitiveIntegerValue.getInstance().fun_java_primitive_integer_value_literal(i));
+				buff.append(JavaPrimitiveIntegerValue.getInstance().pred_java_primitive_integer_value_literal(i));
+			}
+		}
+
+		buff.append("\n");
+		buff.append("fun fun_java_primitive_integer_value_size_of[s: set univ]: JavaPrimitiveIntegerValue {\n");
+		buff.append("  {ret: JavaPrimitiveIntegerValue | pred_java_primitive_integer_value_size_of[s, ret]}\n");
+		buff.append("}\n");
+		buff.append("\n");
+		buff.append("pred pred_java_primitive_integer_value_size_of[s: set univ, ret: JavaPrimitiveIntegerValue] {\n");
+		buff.append("  let n = #s | {\n");
+		buff.append("    n >= 0 and n =< " + max_non_negative + "\n");
+		int power_of_two = 1;
+		for (int bit = 0; bit < bitwidth - 1; bit++) {
+			String n_shifted = bit == 0 ? "n" : "div[n, " + power_of_two + "]";
+			buff.append(String.format("    (ret.b%02d in true) <=> (rem[%s, 2] = 1)\n", bit, n_shifted));
+			power_of_two *= 2;
+		}
+		for (int bit = bitwidth - 1; bit < Math.max(bitwidth, signature_bits); bit++) {
+			buff.append(String.format("    ret.b%02d in false\n", bit));
+		}
+		buff.append("  }\n");
+		buff.append("}\n");
+		buff.append("\n");
+		return buff.toString();
+	}
+
+	/**
+	 * @return the number of bit fields of the signature, as declared in the
+	 *         Alloy text of the module or in the fragments other plugins
+	 *         added, or <code>bitwidth</code> if none declares it.
+	 */
+	private static int signature_bits(String signature_id, AlloyModule alloy_module, List<String> fragments, int bitwidth) {
+		int signature_bits = signature_bits(signature_id, alloy_module.getAlloyStr());
+		for (String fragment : fragments) {
+			signature_bits = Math.max(signature_bits, signature_bits(signature_id, fragment));
+		}
+		return signature_bits > 0 ? signature_bits : bitwidth;
+	}
+
+	/**
+	 * @return one more than the highest bit field <code>bNN</code> of the
+	 *         declaration of <code>signature_id</code> in
+	 *         <code>alloy_str</code>, 0 if it is not declared there.
+	 */
+	static int signature_bits(String signature_id, String alloy_str) {
+		Matcher declaration = Pattern.compile("\\bsig\\s+" + Pattern.quote(signature_id) + "\\s*\\{([^}]*)\\}").matcher(alloy_str);
+		int signature_bits = 0;
+		while (declaration.find()) {
+			Matcher bit_field = BIT_FIELD.matcher(declaration.group(1));
+			while (bit_field.find()) {
+				signature_bits = Math.max(signature_bits, Integer.parseInt(bit_field.group(1)) + 1);
+			}
+		}
+		return signature_bits;
+	}
+
+	/**
+	 * @return the non negative literals the module refers to, through their
+	 *         predicate, function or signature: in the facts and assertions
+	 *         of the module, and in the parts that only exist as text (the
+	 *         Alloy text of the module and the fragments other plugins
+	 *         added).
+	 */
+	private static Set<Integer> referenced_int_literals(AlloyModule alloy_module, List<String> fragments) {
+		Set<Integer> int_literals = new TreeSet<Integer>();
+		alloy_module.accept(new AlloyMutator(new IntLiteralCollector(int_literals)));
+		collect_int_literals(alloy_module.getAlloyStr(), int_literals);
+		for (String fragment : fragments) {
+			collect_int_literals(fragment, int_literals);
+		}
+		return int_literals;
+	}
+
+	static void collect_int_literals(String alloy_str, Set<Integer> int_literals) {
+		Matcher matcher = LITERAL_REFERENCE_IN_TEXT.matcher(alloy_str);
+		while (matcher.find()) {
+			int_literals.add(Integer.valueOf(matcher.group(1)));
+		}
+	}
+
+	private static void collect_int_literal(String id, Set<Integer> int_literals) {
+		Matcher matcher = LITERAL_ID.matcher(id);
+		if (matcher.matches()) {
+			int_literals.add(Integer.valueOf(matcher.group(1)));
+		}
+	}
+
+	/**
+	 * Collects the literals of the predicate calls, function calls and
+	 * constants of the formulas it visits.
+	 */
+	static class IntLiteralCollector extends FormulaMutator {
+
+		private final Set<Integer> int_literals;
+
+		IntLiteralCollector(Set<Integer> int_literals) {
+			super(new IntLiteralExpressionCollector(int_literals));
+			this.int_literals = int_literals;
+		}
+
+		@Override
+		public Object visit(PredicateFormula n) {
+			collect_int_literal(n.getPredicateId(), int_literals);
+			return super.visit(n);
+		}
+	}
+
+	private static class IntLiteralExpressionCollector extends ExpressionMutator {
+
+		private final Set<Integer> int_literals;
+
+		IntLiteralExpressionCollector(Set<Integer> int_literals) {
+			this.int_literals = int_literals;
+		}
+
+		@Override
+		public Object visit(ExprFunction n) {
+			collect_int_literal(n.getFunctionId(), int_literals);
+			return super.visit(n);
+		}
+
+		@Override
+		public Object visit(ExprConstant n) {
+			collect_int_literal(n.getConstantId(), int_literals);
+			return super.visit(n);
+		}
+	}
+
+	/**
+	 * The signature is either declared in the Alloy text of the module or
+	 * used by some field of QF.
+	 */
+	private static boolean usesSignature(AlloyModule alloy_module, String signature_id) {
+		if (alloy_module.getAlloyStr().contains(signature_id)) {
+			return true;
+		}
+		AlloyTyping qf_fields = alloy_module.getGlobalSig().getFields();
+		for (AlloyVariable qf_field : qf_fields.varSet()) {
+			if (qf_fields.get(qf_field).toString().contains(signature_id)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -0,0 +1,32 @@
+package ar.edu.taco.alloy;
+
+import ar.edu.taco.TacoException;
+
+/**
+ * How <code>CardinalSizeOfPlugin</code> relates the size of a set with the
+ * <code>JavaPrimitiveIntegerValue</code> that represents it.
+ */
+public enum SizeOfEncoding {
+
+	/**
+	 * One literal predicate and function for every non negative integer, and
+	 * a size-of predicate with one case per literal.
+	 */
+	ENUMERATED,
+
+	/**
+	 * Every bit of the result is computed from the cardinality of the set,
+	 * and only the literals the model refers to are declared.
+	 */
+	BITWISE;
+
+	public static SizeOfEncoding parse(String value) {
+		if (value.equalsIgnoreCase("enumerated")) {
+			return ENUMERATED;
+		} else if (value.equalsIgnoreCase("bitwise")) {
+			return BITWISE;
+		}
+		throw new TacoException("Unknown size-of encoding: " + value + ". Valid values are enumerated and bitwise");
+	}
+
+}
@@ -0,0 +1,128 @@
+package ar.edu.taco.alloy;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ar.uba.dc.rfm.dynalloy.analyzer.AlloyAnalyzer;
+import edu.mit.csail.sdg.alloy4.A4Reporter;
+
+/**
+ * Compares the size-of encodings of <code>CardinalSizeOfPlugin</code>: for
+ * every bitwidth and encoding, a model that only asks for the size of a set
+ * is written and analysed, and the size of the file, the time Alloy takes to
+ * translate it to CNF and the number of clauses are printed.
+ *
+ * <code>SizeOfEncodingBenchmark [elements [bitwidth ...]]</code>, by default
+ * 5 elements and bitwidths 4 to 10.
+ */
+public class SizeOfEncodingBenchmark {
+
+	private static final int DEFAULT_ELEMENTS = 5;
+
+	private static final int DEFAULT_MIN_BITWIDTH = 4;
+
+	private static final int DEFAULT_MAX_BITWIDTH = 10;
+
+	/**
+	 * Times the translation: Alloy reports the start of the translation and,
+	 * once the CNF is built, the start of the solver.
+	 */
+	private static class TranslationReporter extends A4Reporter {
+
+		private long translation_start;
+
+		private long translation_millis = -1;
+
+		private int clauses = -1;
+
+		@Override
+		public void translate(String solver, int bitwidth, int maxseq, int skolemDepth, int symmetry) {
+			translation_start = System.currentTimeMillis();
+		}
+
+		@Override
+		public void solve(int primaryVars, int totalVars, int clauses) {
+			this.translation_millis = System.currentTimeMillis() - translation_start;
+			this.clauses = clauses;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ELEMENTS;
+		List<Integer> bitwidths = new ArrayList<Integer>();
+		for (int i = 1; i < args.length; i++) {
+			bitwidths.add(Integer.parseInt(args[i]));
+		}
+		if (bitwidths.isEmpty()) {
+			for (int bitwidth = DEFAULT_MIN_BITWIDTH; bitwidth <= DEFAULT_MAX_BITWIDTH; bitwidth++) {
+				bitwidths.add(bitwidth);
+			}
+		}
+
+		System.out.println(String.format("%-8s %-10s %10s %14s %14s %10s", "bitwidth", "encoding", "als bytes", "translate ms",
+				"analysis ms", "clauses"));
+		for (int bitwidth : bitwidths) {
+			for (SizeOfEncoding encoding : SizeOfEncoding.values()) {
+				run(encoding, bitwidth, elements);
+			}
+		}
+	}
+
+	private static void run(SizeOfEncoding encoding, int bitwidth, int elements) throws IOException {
+		String model = buildModel(encoding, bitwidth, elements);
+		File model_file = File.createTempFile("sizeof", ".als");
+		try {
+			FileWriter writer = new FileWriter(model_file);
+			try {
+				writer.write(model);
+			} finally {
+				writer.close();
+			}
+
+			TranslationReporter reporter = new TranslationReporter();
+			long start = System.currentTimeMillis();
+			String result;
+			try {
+				AlloyAnalyzer analyzer = new AlloyAnalyzer(model_file.getAbsolutePath(), reporter);
+				analyzer.analyzeCommand(null, AlloyAnalyzer.build_A4Options());
+				result = String.format("%14d %14d %10d", reporter.translation_millis, System.currentTimeMillis() - start, reporter.clauses);
+			} catch (Exception e) {
+				result = "failed: " + e.getMessage();
+			}
+			System.out.println(String.format("%-8d %-10s %10d %s", bitwidth, encoding.name().toLowerCase(), model_file.length(), result));
+		} finally {
+			model_file.delete();
+		}
+	}
+
+	private static String buildModel(SizeOfEncoding encoding, int bitwidth, int elements) {
+		StringBuffer buff = new StringBuffer();
+		buff.append("abstract sig boolean {}\n");
+		buff.append("one sig true extends boolean {}\n");
+		buff.append("one sig false extends boolean {}\n");
+		buff.append("\n");
+		buff.append("sig JavaPrimitiveIntegerValue {\n");
+		for (int bit = 0; bit < bitwidth; bit++) {
+			buff.append(String.format("   b%02d: boolean%s\n", bit, bit < bitwidth - 1 ? "," : ""));
+		}
+		buff.append("}\n");
+		buff.append("\n");
+		buff.append("sig Elem {}\n");
+		buff.append("one sig Bag { elems: set Elem }\n");
+
+		if (encoding == SizeOfEncoding.BITWISE) {
+			buff.append(CardinalSizeOfPlugin.bitwise_size_of(bitwidth, bitwidth, Collections.<Integer> emptySet()));
+		} else {
+			buff.append(CardinalSizeOfPlugin.enumerated_size_of(bitwidth));
+		}
+
+		buff.append("\n");
+		buff.append("run { some fun_java_primitive_integer_value_size_of[Bag.elems] } for " + elements + " but " + bitwidth + " Int\n");
+		return buff.toString();
+	}
+
+}
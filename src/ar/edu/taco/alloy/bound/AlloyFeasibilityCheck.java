@@ -0,0 +1,91 @@
+package ar.edu.taco.alloy.bound;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ar.edu.taco.TacoException;
+import ar.uba.dc.rfm.dynalloy.analyzer.AlloyAnalysisException;
+import ar.uba.dc.rfm.dynalloy.analyzer.AlloyAnalysisResult;
+import ar.uba.dc.rfm.dynalloy.analyzer.AlloyAnalyzer;
+import ar.uba.dc.rfm.dynalloy.visualization.VizException;
+import edu.mit.csail.sdg.alloy4.A4Reporter;
+import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.alloy4compiler.ast.Sig;
+import edu.mit.csail.sdg.alloy4compiler.translator.A4Solution;
+import edu.mit.csail.sdg.alloy4compiler.translator.A4Tuple;
+
+/**
+ * Runs the only command of a model with the Alloy analyzer, as
+ * <code>AlloyStage</code> does, and reads the field from the instance.
+ */
+class AlloyFeasibilityCheck implements UBoundGenerator.FeasibilityCheck {
+
+	private static final String GLOBAL_SIG_LABEL = "this/QF";
+
+	@Override
+	public Set<List<String>> findTuples(String alloy_model, String field_label) {
+		File model_file = null;
+		try {
+			model_file = File.createTempFile("ubound", ".als");
+			FileWriter writer = new FileWriter(model_file);
+			try {
+				writer.write(alloy_model);
+			} finally {
+				writer.close();
+			}
+
+			AlloyAnalyzer analyzer = new AlloyAnalyzer(model_file.getAbsolutePath(), new A4Reporter());
+			AlloyAnalysisResult result = analyzer.analyzeCommand(null, AlloyAnalyzer.build_A4Options());
+			if (!result.isSAT()) {
+				return null;
+			}
+			return readTuples(result.getAlloy_solution(), field_label);
+		} catch (IOException e) {
+			throw new TacoException("findTuples: " + e);
+		} catch (VizException e) {
+			throw new TacoException(e.getMessage());
+		} catch (AlloyAnalysisException e) {
+			throw new TacoException(e.getMessage());
+		} catch (Err e) {
+			throw new TacoException(e.getMessage());
+		} finally {
+			if (model_file != null) {
+				model_file.delete();
+			}
+		}
+	}
+
+	/**
+	 * @return the tuples of <code>QF.&lt;field_label&gt;</code>, without the
+	 *         <code>QF</code> atom, and the atoms by signature
+	 *         (<code>List_0$0</code> is <code>List_0</code>).
+	 */
+	private static Set<List<String>> readTuples(A4Solution solution, String field_label) throws Err {
+		for (Sig sig : solution.getAllReachableSigs()) {
+			if (!sig.label.equals(GLOBAL_SIG_LABEL)) {
+				continue;
+			}
+			for (Sig.Field field : sig.getFields()) {
+				if (field.label.equals(field_label)) {
+					Set<List<String>> tuples = new HashSet<List<String>>();
+					for (A4Tuple tuple : solution.eval(field)) {
+						tuples.add(Arrays.asList(signatureOf(tuple.atom(1)), signatureOf(tuple.atom(2))));
+					}
+					return tuples;
+				}
+			}
+		}
+		throw new TacoException("The invariant model has no field QF." + field_label);
+	}
+
+	private static String signatureOf(String atom) {
+		int index = atom.lastIndexOf('$');
+		return index < 0 ? atom : atom.substring(0, index);
+	}
+
+}
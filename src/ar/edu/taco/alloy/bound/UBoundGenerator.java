@@ -0,0 +1,316 @@
+package ar.edu.taco.alloy.bound;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.log4j.Logger;
+
+import ar.edu.jdynalloy.ast.JDynAlloyModule;
+import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoException;
+import ar.edu.taco.alloy.AlloyCustomScope;
+import ar.edu.taco.alloy.AlloyScope;
+import ar.edu.taco.infer.InferredScope;
+import ar.edu.taco.jdynalloy.JDynAlloyClassDiagram;
+import ar.edu.taco.jdynalloy.JDynAlloyClassDiagramBuilder;
+
+/**
+ * Computes tight upper bounds for the forward and backward fields that the
+ * symmetry breaking predicates split every recursive field into
+ * (<code>QF.f&lt;field&gt;_0</code> and <code>QF.b&lt;field&gt;_0</code>).
+ *
+ * The recursive fields come from the class diagram of the analysed modules,
+ * and the atoms of every type (<code>T_0, ..., T_k</code>) from its scope, as
+ * the symmetry breaking predicates declare them. The feasible tuples are
+ * collected from instances of the invariant model (the <code>.inv</code>
+ * file): the class to check with its symmetry breaking predicates and a
+ * single <code>run { &lt;class&gt;_object_invariant[...] }</code> command.
+ * The command is extended to ask for a tuple of the field not seen in the
+ * previous instances, until there is none, so the bounds only remove what no
+ * instance of the invariant can have at the scopes of the model. A single
+ * instance can't have every feasible tuple (<code>List_0 -&gt; null</code>
+ * and <code>List_0 -&gt; List_1</code>, say), but every instance adds all the
+ * tuples it has, so a field takes a few runs instead of one per tuple.
+ *
+ * The analyzer runs are slow, {@link #fromInvariantModel(String, List)} only
+ * reads the model and {@link Request#generate()} runs them once the
+ * translation locks are released.
+ *
+ * The bounds are written in the repository format, see
+ * <code>UBoundSAXHandler</code>.
+ */
+public class UBoundGenerator {
+
+	/**
+	 * Runs the only command of an Alloy model.
+	 */
+	interface FeasibilityCheck {
+		/**
+		 * @return the tuples of <code>QF.&lt;field_label&gt;</code> in the
+		 *         instance found, each one as the labels of its atoms
+		 *         (<code>List_0</code>, <code>null</code>), or null if the
+		 *         model has no instance.
+		 */
+		Set<List<String>> findTuples(String alloy_model, String field_label);
+	}
+
+	/**
+	 * The bounds of an invariant model, read while the translation locks are
+	 * held, to be generated once they are released.
+	 */
+	public static final class Request {
+
+		private final String key;
+
+		private final String invariant_filename;
+
+		private final String invariant_model;
+
+		private final JDynAlloyClassDiagram class_diagram;
+
+		private final Map<String, Integer> scopes;
+
+		private Request(String key, String invariant_filename, String invariant_model, JDynAlloyClassDiagram class_diagram,
+				Map<String, Integer> scopes) {
+			this.key = key;
+			this.invariant_filename = invariant_filename;
+			this.invariant_model = invariant_model;
+			this.class_diagram = class_diagram;
+			this.scopes = scopes;
+		}
+
+		/**
+		 * Runs the analyzer on the invariant model and stores the bounds,
+		 * unless another run stored them meanwhile.
+		 */
+		public void generate() {
+			UBoundRepository repository = UBoundRepository.getInstance();
+			if (repository.hasEntry(key)) {
+				return;
+			}
+			String upper_bound_xml = new UBoundGenerator(new AlloyFeasibilityCheck()).generate(invariant_model, class_diagram, scopes);
+			if (upper_bound_xml == null) {
+				log.warn("No symmetry breaking fields in " + invariant_filename + ", tight upper bounds not generated");
+				return;
+			}
+			repository.store(key, upper_bound_xml);
+		}
+	}
+
+	private static Logger log = Logger.getLogger(UBoundGenerator.class);
+
+	private static final String RUN_COMMAND = "run {";
+
+	private static final String NULL_ATOM = "null";
+
+	private final FeasibilityCheck feasibility_check;
+
+	UBoundGenerator(FeasibilityCheck feasibility_check) {
+		this.feasibility_check = feasibility_check;
+	}
+
+	/**
+	 * Reads the invariant model of this run, unless a previous run already
+	 * generated its bounds. The model is read at once since the next run
+	 * writing to the same output directory overwrites it.
+	 *
+	 * @param invariant_filename
+	 *            the invariant model of the class to check.
+	 * @param jdynalloy_modules
+	 *            the modules the invariant model was translated from.
+	 * @return the bounds to generate, or null.
+	 */
+	public static Request fromInvariantModel(String invariant_filename, List<JDynAlloyModule> jdynalloy_modules) {
+		UBoundRepository repository = UBoundRepository.getInstance();
+		String key = repository.getGeneratedEntryKey();
+		if (key == null) {
+			log.warn("Tight upper bounds are only generated for explicit type scopes");
+			return null;
+		}
+		if (repository.hasEntry(key)) {
+			return null;
+		}
+
+		String invariant_model = readModel(invariant_filename);
+		JDynAlloyClassDiagram class_diagram = JDynAlloyClassDiagramBuilder.buildClassDiagram(jdynalloy_modules);
+		Map<String, Integer> scopes = new HashMap<String, Integer>();
+		for (String signature_id : class_diagram.getSignatureIds()) {
+			scopes.put(signature_id, scopeOf(signature_id));
+		}
+		return new Request(key, invariant_filename, invariant_model, class_diagram, scopes);
+	}
+
+	/**
+	 * @param scopes
+	 *            the scope of every signature of the class diagram.
+	 * @return the bounds in the repository format, or null if the model has
+	 *         no forward and backward fields.
+	 */
+	String generate(String invariant_model, JDynAlloyClassDiagram class_diagram, Map<String, Integer> scopes) {
+		// InvariantRunPlugin appends the only command after everything else
+		int run_position = invariant_model.lastIndexOf(RUN_COMMAND);
+		if (run_position < 0) {
+			throw new TacoException("The invariant model has no run command");
+		}
+
+		Map<String, String> field_types = collectFields(invariant_model, class_diagram);
+		if (field_types.isEmpty()) {
+			return null;
+		}
+
+		StringBuilder xml = new StringBuilder();
+		xml.append("<upperbound>\n");
+		for (Map.Entry<String, String> field_type : field_types.entrySet()) {
+			String field_label = field_type.getKey();
+			List<String> atoms = atomsOf(field_type.getValue(), scopes);
+			List<String> targets = new ArrayList<String>(atoms);
+			if (field_label.startsWith("f")) {
+				targets.add(NULL_ATOM);
+			}
+
+			List<List<String>> candidates = new ArrayList<List<String>>();
+			for (String source : atoms) {
+				for (String target : targets) {
+					candidates.add(Arrays.asList(source, target));
+				}
+			}
+
+			Set<List<String>> seen_tuples = findFeasibleTuples(invariant_model, run_position, field_label, candidates);
+
+			xml.append("<field label=\"").append(field_label).append("\" arity=\"2\" >\n");
+			int feasible_tuples = 0;
+			for (List<String> tuple : candidates) {
+				if (seen_tuples.contains(tuple)) {
+					xml.append("  <tuple>\n");
+					xml.append("    <atom label=\"").append(tuple.get(0)).append("\" />\n");
+					xml.append("    <atom label=\"").append(tuple.get(1)).append("\" />\n");
+					xml.append("  </tuple>\n");
+					feasible_tuples++;
+				}
+			}
+			xml.append("</field>\n");
+			log.debug(field_label + ": " + feasible_tuples + " of " + candidates.size() + " tuples are feasible");
+		}
+		xml.append("</upperbound>\n");
+		return xml.toString();
+	}
+
+	/**
+	 * Asks for instances of the invariant model with a tuple of the field
+	 * not seen yet, until there is none or every candidate was seen.
+	 *
+	 * @return the tuples of the field in some instance of the model.
+	 */
+	private Set<List<String>> findFeasibleTuples(String invariant_model, int run_position, String field_label, List<List<String>> candidates) {
+		Set<List<String>> seen_tuples = new HashSet<List<String>>();
+		while (!seen_tuples.containsAll(candidates)) {
+			StringBuilder unseen = new StringBuilder("QF.").append(field_label);
+			if (!seen_tuples.isEmpty()) {
+				unseen.insert(0, "(").append(" - (");
+				String separator = "";
+				for (List<String> tuple : candidates) {
+					if (!seen_tuples.contains(tuple)) {
+						continue;
+					}
+					unseen.append(separator).append("(").append(tuple.get(0)).append(" -> ").append(tuple.get(1)).append(")");
+					separator = " + ";
+				}
+				unseen.append("))");
+			}
+			String unseen_model = invariant_model.substring(0, run_position) + RUN_COMMAND + " some " + unseen + " and "
+					+ invariant_model.substring(run_position + RUN_COMMAND.length());
+
+			Set<List<String>> instance_tuples = feasibility_check.findTuples(unseen_model, field_label);
+			if (instance_tuples == null) {
+				break;
+			}
+			// the atoms of the type are the ones of the candidates, as the
+			// symmetry breaking predicates constrain them
+			instance_tuples.retainAll(candidates);
+			if (!seen_tuples.addAll(instance_tuples)) {
+				throw new TacoException("The instance of " + field_label + " has no unseen tuple");
+			}
+		}
+		return seen_tuples;
+	}
+
+	/**
+	 * @return the atoms the symmetry breaking predicates declare for the type
+	 *         (<code>one sig T_0, ..., T_k extends T {}</code>).
+	 */
+	private static List<String> atomsOf(String type, Map<String, Integer> scopes) {
+		Integer scope = scopes.get(type);
+		if (scope == null) {
+			throw new TacoException("No scope for " + type);
+		}
+		List<String> atoms = new ArrayList<String>();
+		for (int i = 0; i < scope.intValue(); i++) {
+			atoms.add(type + "_" + i);
+		}
+		return atoms;
+	}
+
+	/**
+	 * @return the type of every forward and backward field, by label. A
+	 *         field is taken if it relates a signature to itself (and null),
+	 *         and the symmetry breaking predicates split it in the model.
+	 */
+	private static Map<String, String> collectFields(String invariant_model, JDynAlloyClassDiagram class_diagram) {
+		Map<String, String> field_types = new LinkedHashMap<String, String>();
+		for (String signature_id : new TreeSet<String>(class_diagram.getSignatureIds())) {
+			for (String field : new TreeSet<String>(class_diagram.getFieldIds(signature_id))) {
+				Set<String> targets = new TreeSet<String>(class_diagram.getFieldTargetSignatureIds(signature_id, field));
+				targets.remove(NULL_ATOM);
+				if (!targets.equals(Collections.singleton(signature_id))) {
+					continue;
+				}
+				if (invariant_model.contains("QF.f" + field + "_0") && invariant_model.contains("QF.b" + field + "_0")) {
+					field_types.put("b" + field + "_0", signature_id);
+					field_types.put("f" + field + "_0", signature_id);
+				}
+			}
+		}
+		return field_types;
+	}
+
+	/**
+	 * The number of atoms of the type, as the symmetry breaking predicates
+	 * compute it (see <code>SBPUtils.getScope</code>).
+	 */
+	private static int scopeOf(String signature_id) {
+		TacoConfigurator configurator = TacoConfigurator.getInstance();
+		AlloyScope alloy_scope;
+		if (configurator.getInferScope() == true
+				&& !configurator.getTacoCustomScope().getCustomTypes().contains(signature_id.replace("_", "."))) {
+			alloy_scope = new AlloyScope(InferredScope.getInstance());
+		} else {
+			alloy_scope = new AlloyScope(new AlloyCustomScope(configurator.getTacoCustomScope()));
+		}
+		return alloy_scope.getConcreteScopeOf(signature_id);
+	}
+
+	private static String readModel(String invariant_filename) {
+		try {
+			Scanner scanner = new Scanner(new File(invariant_filename));
+			try {
+				return scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+			} finally {
+				scanner.close();
+			}
+		} catch (FileNotFoundException e) {
+			throw new TacoException("Invariant model not found: " + invariant_filename);
+		}
+	}
+
+}
@@ -0,0 +1,356 @@
+package ar.edu.taco.alloy.bound;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compiled form of the upper bound repository (the <code>xml</code>
+ * directory). Every XML file becomes an entry, keyed by its name without
+ * extension (e.g. <code>roops_core_objects_AvlTree-03</code>), and every atom
+ * and field label is interned once for the whole index.
+ *
+ * Layout, big endian:
+ *
+ * <pre>
+ * magic version
+ * atom_count (length utf8_bytes)*
+ * entry_count (length utf8_key entry_offset)*
+ * entries: field_count (label_atom arity tuple_count atom*)*
+ * </pre>
+ *
+ * Entry offsets are relative to the start of the entries. Fields are sorted
+ * by label and tuples by their atom labels, the order
+ * <code>UBoundSAXHandler</code> leaves them in, so decoding needs no
+ * sorting. The file is memory mapped, only the header is read when loading.
+ */
+class UBoundIndex {
+
+	static final String INDEX_FILENAME = "ubounds.idx";
+
+	private static final String XML_EXTENSION = ".xml";
+
+	private static final int MAGIC = 0x55424958;
+
+	private static final int VERSION = 1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Upper bound of a single field, atoms are ids in the atom table.
+	 */
+	static class FieldBound {
+
+		final int label;
+
+		final int arity;
+
+		final int[] tuples;
+
+		FieldBound(int label, int arity, int[] tuples) {
+			this.label = label;
+			this.arity = arity;
+			this.tuples = tuples;
+		}
+
+		int getTupleCount() {
+			return tuples.length / arity;
+		}
+
+		int getAtom(int tuple, int position) {
+			return tuples[tuple * arity + position];
+		}
+	}
+
+	private final String[] atoms;
+
+	private final Map<String, Integer> entry_offsets;
+
+	private final ByteBuffer entries;
+
+	private UBoundIndex(String[] atoms, Map<String, Integer> entry_offsets, ByteBuffer entries) {
+		this.atoms = atoms;
+		this.entry_offsets = entry_offsets;
+		this.entries = entries;
+	}
+
+	public static UBoundIndex load(File index_file) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(index_file, "r");
+		MappedByteBuffer buffer;
+		try {
+			FileChannel channel = file.getChannel();
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			// the mapping stays valid once the file is closed
+			file.close();
+		}
+
+		if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+			throw new IOException(index_file + " is not an upper bound index");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException(index_file + " has version " + version + ", expected " + VERSION);
+		}
+
+		String[] atoms = new String[buffer.getInt()];
+		for (int i = 0; i < atoms.length; i++) {
+			atoms[i] = readString(buffer);
+		}
+		int entry_count = buffer.getInt();
+		Map<String, Integer> entry_offsets = new HashMap<String, Integer>(entry_count * 2);
+		for (int i = 0; i < entry_count; i++) {
+			String key = readString(buffer);
+			entry_offsets.put(key, buffer.getInt());
+		}
+		return new UBoundIndex(atoms, entry_offsets, buffer.slice());
+	}
+
+	public boolean contains(String key) {
+		return entry_offsets.containsKey(key);
+	}
+
+	public String getAtom(int atom_id) {
+		return atoms[atom_id];
+	}
+
+	/**
+	 * @return the bounds of the entry, or null if the index does not have it.
+	 */
+	public List<FieldBound> getFieldBounds(String key) {
+		Integer offset = entry_offsets.get(key);
+		if (offset == null) {
+			return null;
+		}
+		// absolute reads only, the buffer is shared by every thread
+		int position = offset;
+		int field_count = entries.getInt(position);
+		position += 4;
+		List<FieldBound> field_bounds = new ArrayList<FieldBound>(field_count);
+		for (int i = 0; i < field_count; i++) {
+			int label = entries.getInt(position);
+			int arity = entries.getInt(position + 4);
+			int tuple_count = entries.getInt(position + 8);
+			position += 12;
+			int[] tuples = new int[tuple_count * arity];
+			for (int j = 0; j < tuples.length; j++) {
+				tuples[j] = entries.getInt(position);
+				position += 4;
+			}
+			field_bounds.add(new FieldBound(label, arity, tuples));
+		}
+		return field_bounds;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Compiles every XML file of <code>xml_dir</code> into
+	 * <code>index_file</code>.
+	 */
+	public static void compile(File xml_dir, File index_file) throws IOException {
+		File[] xml_files = xml_dir.listFiles();
+		if (xml_files == null) {
+			throw new IOException(xml_dir + " is not a directory");
+		}
+		Arrays.sort(xml_files);
+
+		final Map<String, Integer> atom_ids = new LinkedHashMap<String, Integer>();
+		Map<String, List<FieldBound>> compiled_entries = new TreeMap<String, List<FieldBound>>();
+		for (File xml_file : xml_files) {
+			String filename = xml_file.getName();
+			if (filename.endsWith(XML_EXTENSION)) {
+				String key = filename.substring(0, filename.length() - XML_EXTENSION.length());
+				compiled_entries.put(key, readXML(xml_file, atom_ids));
+			}
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(index_file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(atom_ids.size());
+			for (String atom : atom_ids.keySet()) {
+				writeString(out, atom);
+			}
+
+			out.writeInt(compiled_entries.size());
+			int offset = 0;
+			for (Map.Entry<String, List<FieldBound>> entry : compiled_entries.entrySet()) {
+				writeString(out, entry.getKey());
+				out.writeInt(offset);
+				offset += 4;
+				for (FieldBound field_bound : entry.getValue()) {
+					offset += 12 + 4 * field_bound.tuples.length;
+				}
+			}
+
+			for (List<FieldBound> field_bounds : compiled_entries.values()) {
+				out.writeInt(field_bounds.size());
+				for (FieldBound field_bound : field_bounds) {
+					out.writeInt(field_bound.label);
+					out.writeInt(field_bound.arity);
+					out.writeInt(field_bound.getTupleCount());
+					for (int atom : field_bound.tuples) {
+						out.writeInt(atom);
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads the fields of an upper bound XML file. Fields are sorted by label
+	 * and tuples by their atom labels, repeated ones are dropped, as
+	 * <code>UBoundSAXHandler</code> does.
+	 */
+	private static List<FieldBound> readXML(File xml_file, final Map<String, Integer> atom_ids) throws IOException {
+		final Map<String, FieldBound> field_bounds = new TreeMap<String, FieldBound>();
+
+		DefaultHandler handler = new DefaultHandler() {
+
+			private String field_label;
+
+			private int arity;
+
+			private List<String[]> tuples = new ArrayList<String[]>();
+
+			private List<String> tuple = new ArrayList<String>();
+
+			@Override
+			public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+				if (qName.equals("field")) {
+					field_label = attributes.getValue("label");
+					arity = Integer.parseInt(attributes.getValue("arity"));
+					tuples.clear();
+				} else if (qName.equals("tuple")) {
+					tuple.clear();
+				} else if (qName.equals("atom")) {
+					tuple.add(attributes.getValue("label"));
+				}
+			}
+
+			@Override
+			public void endElement(String uri, String localName, String qName) throws SAXException {
+				if (qName.equals("tuple")) {
+					tuples.add(tuple.toArray(new String[tuple.size()]));
+				} else if (qName.equals("field")) {
+					if (tuple_arity_mismatch()) {
+						throw new SAXException("Field " + field_label + " has tuples of arity other than " + arity);
+					}
+					if (!field_bounds.containsKey(field_label)) {
+						field_bounds.put(field_label, new FieldBound(intern(field_label), arity, intern_tuples()));
+					}
+				}
+			}
+
+			private boolean tuple_arity_mismatch() {
+				for (String[] each_tuple : tuples) {
+					if (each_tuple.length != arity) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			private int[] intern_tuples() {
+				Collections.sort(tuples, new Comparator<String[]>() {
+					@Override
+					public int compare(String[] left, String[] right) {
+						for (int i = 0; i < left.length; i++) {
+							int compare_component = left[i].compareTo(right[i]);
+							if (compare_component != 0) {
+								return compare_component;
+							}
+						}
+						return 0;
+					}
+				});
+				List<Integer> atoms = new ArrayList<Integer>();
+				String[] previous_tuple = null;
+				for (String[] each_tuple : tuples) {
+					if (previous_tuple != null && Arrays.equals(previous_tuple, each_tuple)) {
+						continue;
+					}
+					for (String atom : each_tuple) {
+						atoms.add(intern(atom));
+					}
+					previous_tuple = each_tuple;
+				}
+				int[] result = new int[atoms.size()];
+				for (int i = 0; i < result.length; i++) {
+					result[i] = atoms.get(i);
+				}
+				return result;
+			}
+
+			private int intern(String atom) {
+				Integer atom_id = atom_ids.get(atom);
+				if (atom_id == null) {
+					atom_id = atom_ids.size();
+					atom_ids.put(atom, atom_id);
+				}
+				return atom_id;
+			}
+		};
+
+		try {
+			SAXParserFactory.newInstance().newSAXParser().parse(xml_file, handler);
+		} catch (ParserConfigurationException e) {
+			throw new IOException(xml_file + ": " + e, e);
+		} catch (SAXException e) {
+			throw new IOException(xml_file + ": " + e, e);
+		}
+		return new ArrayList<FieldBound>(field_bounds.values());
+	}
+
+	/**
+	 * Compiles the upper bound repository:
+	 * <code>UBoundIndex [xml_dir [index_file]]</code>. The index is written
+	 * to <code>xml_dir/ubounds.idx</code> by default.
+	 */
+	public static void main(String[] args) throws IOException {
+		File xml_dir = new File(args.length > 0 ? args[0] : "xml");
+		File index_file = args.length > 1 ? new File(args[1]) : new File(xml_dir, INDEX_FILENAME);
+		long start = System.currentTimeMillis();
+		compile(xml_dir, index_file);
+		System.out.println("Upper bound index written to " + index_file + " (" + index_file.length() + " bytes, "
+				+ (System.currentTimeMillis() - start) + " ms)");
+	}
+
+}
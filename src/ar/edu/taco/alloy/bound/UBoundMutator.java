@@ -2,6 +2,7 @@ package ar.edu.taco.alloy.bound;
 
 import java.util.Set;
 
+import ar.edu.taco.utils.AlloyOutputSink;
 import ar.uba.dc.rfm.alloy.ast.AlloyModule;
 import ar.uba.dc.rfm.alloy.util.AlloyMutator;
 
@@ -9,24 +10,26 @@ class UBoundMutator extends AlloyMutator {
 
 	private String upper_bound_str;
 	private Set<Integer> int_literals;
+	private AlloyOutputSink output_sink;
 
-	public UBoundMutator(Set<Integer> int_literals) {
+	public UBoundMutator(Set<Integer> int_literals, AlloyOutputSink output_sink) {
 		this.int_literals = int_literals;
+		this.output_sink = output_sink;
 	}
 
+	/**
+	 * The declarations of the missing literals and the bounds go to the
+	 * output sink, the module is left as is.
+	 */
 	@Override
 	public Object visit(AlloyModule n) {
 
-		StringBuffer buff = new StringBuffer();
-		buff.append(n.getAlloyStr());
-
 		String int_literal_decl = declare_missing_int_literals(n.getAlloyStr());
-		buff.append(int_literal_decl);
+		output_sink.append(int_literal_decl);
 
-		buff.append(upper_bound_str);
-		String new_alloy_str = buff.toString();
+		output_sink.append(upper_bound_str);
 
-		return new AlloyModule(new_alloy_str, n.getGlobalSig(), n.getFacts(), n.getAssertions());
+		return n;
 
 	}
 
@@ -13,6 +13,7 @@ import ar.edu.taco.infer.Scope;
 import ar.edu.taco.infer.InferredScope;
 import ar.edu.taco.jdynalloy.JDynAlloyClassDiagram;
 import ar.edu.taco.jdynalloy.JDynAlloyClassDiagramBuilder;
+import ar.edu.taco.utils.AlloyOutputSink;
 import ar.uba.dc.rfm.alloy.AlloyVariable;
 import ar.uba.dc.rfm.alloy.ast.AlloyModule;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
@@ -23,6 +24,14 @@ public class UBoundPlugin implements AlloyASTPlugin {
 
 	private List<JDynAlloyModule> src_jdynalloy_modules;
 
+	private final AlloyOutputSink outputSink;
+
+	private boolean useGeneratedUpperBounds = true;
+
+	public UBoundPlugin(AlloyOutputSink outputSink) {
+		this.outputSink = outputSink;
+	}
+
 	@Override
 	public AlloyModule transform(AlloyModule alloyModule) {
 
@@ -53,7 +62,7 @@ public class UBoundPlugin implements AlloyASTPlugin {
 			alloy_scope = new AlloyScope(alloy_custom_scope );
 		}
 
-		List<UBound> upper_bounds = UBoundRepository.getInstance().getUpperBound(class_diagram, alloy_scope);
+		List<UBound> upper_bounds = UBoundRepository.getInstance().getUpperBound(class_diagram, alloy_scope, useGeneratedUpperBounds);
 
 		if (upper_bounds != null) {
 
@@ -75,7 +84,7 @@ public class UBoundPlugin implements AlloyASTPlugin {
 			}
 			String ubounds_str = buff.toString();
 			if (!ubounds_str.isEmpty()) {
-				UBoundMutator mutator = new UBoundMutator(int_literals);
+				UBoundMutator mutator = new UBoundMutator(int_literals, outputSink);
 				mutator.setUpperBoundStr(ubounds_str);
 				AlloyModule alloy_module = (AlloyModule) alloyModule.accept(mutator);
 				return alloy_module;
@@ -130,4 +139,13 @@ public class UBoundPlugin implements AlloyASTPlugin {
 		this.src_jdynalloy_modules = src_jdynalloy_modules;
 	}
 
+	/**
+	 * @param useGeneratedUpperBounds
+	 *            false to take only the bounds of the repository, as for the
+	 *            invariant model the bounds are generated from.
+	 */
+	public void setUseGeneratedUpperBounds(boolean useGeneratedUpperBounds) {
+		this.useGeneratedUpperBounds = useGeneratedUpperBounds;
+	}
+
 }
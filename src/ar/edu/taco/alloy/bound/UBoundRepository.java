@@ -1,22 +1,47 @@
 package ar.edu.taco.alloy.bound;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
+import org.apache.log4j.Logger;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoContext;
 import ar.edu.taco.TacoException;
 import ar.edu.taco.alloy.AlloyScope;
 import ar.edu.taco.jdynalloy.JDynAlloyClassDiagram;
+import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprConstant;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprJoin;
 
 class UBoundRepository {
 
@@ -25,11 +50,62 @@ class UBoundRepository {
 		
 		private String xmlDoc;
 
-		public UpperBoundXML(String xmlDoc) {
+		private String key;
+
+		public UpperBoundXML(String xmlDoc, String key) {
 			this.xmlDoc = xmlDoc;
+			this.key = key;
 		}
 	}
 
+	private static Logger log = Logger.getLogger(UBoundRepository.class);
+
+	private static final String REPOSITORY_DIR = "xml";
+
+	private static final Map<String, String> ROOPS_CASE_STUDIES;
+
+	/**
+	 * Options that change where and how a run writes its outputs, or which
+	 * method it checks, but not the invariant model of the class to check.
+	 */
+	private static final Set<String> MODEL_INDEPENDENT_KEYS = new HashSet<String>(Arrays.asList(TacoConfigurator.METHOD_TO_CHECK_FIELD,
+			TacoConfigurator.OUTPUT_DIR, TacoConfigurator.USE_TIGHT_UPPER_BOUNDS, TacoConfigurator.GENERATE_TIGHT_UPPER_BOUNDS,
+			TacoConfigurator.TIGHT_UPPER_BOUNDS_CACHE_DIR, TacoConfigurator.SBP_CACHE_DIR, TacoConfigurator.PRECOMPILED_MODULES_SNAPSHOT_DIR,
+			TacoConfigurator.ARTIFACT_DUMP_POLICY, TacoConfigurator.PARSE_SIMPLIFIED_SOURCES_IN_MEMORY, TacoConfigurator.PARALLEL_SIMPLIFICATION,
+			TacoConfigurator.PARALLEL_TRANSLATION, TacoConfigurator.RUN_REPORT, TacoConfigurator.GENERATE_UNIT_TEST_CASE,
+			TacoConfigurator.ATTEMPT_TO_CORRECT_BUG, TacoConfigurator.MAX_STRYKER_METHODS_FOR_FILE));
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	static {
+		Map<String, String> roops_case_studies = new HashMap<String, String>();
+		roops_case_studies.put("roops_core_objects_AvlTree", "roops_core_objects_AvlNode");
+		roops_case_studies.put("roops_core_objects_BinomialHeap", "roops_core_objects_BinomialHeapNode");
+		roops_case_studies.put("roops_core_objects_BinTree", "roops_core_objects_BinTreeNode");
+		roops_case_studies.put("roops_core_objects_FibHeap", "roops_core_objects_FibHeapNode");
+		roops_case_studies.put("roops_core_objects_LinkedList", "roops_core_objects_LinkedListNode");
+		roops_case_studies.put("roops_core_objects_NodeCachingLinkedList", "roops_core_objects_LinkedListNode");
+		roops_case_studies.put("roops_core_objects_SinglyLinkedList", "roops_core_objects_SinglyLinkedListNode");
+		roops_case_studies.put("roops_core_objects_TreeSet", "roops_core_objects_TreeSetEntry");
+		ROOPS_CASE_STUDIES = Collections.unmodifiableMap(roops_case_studies);
+	}
+
+	/**
+	 * Upper bounds already read, by XML file. They are never modified, so
+	 * every run of the process shares them.
+	 */
+	private static final ConcurrentMap<String, List<UBound>> upper_bounds_cache = new ConcurrentHashMap<String, List<UBound>>();
+
+	private static UBoundIndex index = null;
+
+	private static volatile long index_last_modified = 0;
+
+	/**
+	 * Bounds computed by <code>UBoundGenerator</code>, by key. Like the
+	 * repository ones, they are never modified.
+	 */
+	private static final ConcurrentMap<String, List<UBound>> generated_upper_bounds = new ConcurrentHashMap<String, List<UBound>>();
+
 	private UBoundRepository() {
 
 	}
@@ -37,6 +113,15 @@ class UBoundRepository {
 	private static UBoundRepository instance = null;
 
 	public static UBoundRepository getInstance() {
+		TacoContext context = TacoContext.getCurrent();
+		if (context != null) {
+			UBoundRepository repository = context.getComponent(UBoundRepository.class);
+			if (repository == null) {
+				repository = new UBoundRepository();
+				context.putComponent(UBoundRepository.class, repository);
+			}
+			return repository;
+		}
 		if (instance == null) {
 			instance = new UBoundRepository();
 		}
@@ -50,8 +135,8 @@ class UBoundRepository {
 		if (class_to_check.equals(entry_class_name)) {
 			if (alloy_scope.getScopeOf(entry_class_name) == 1) {
 				int scope = alloy_scope.getScopeOf(node_class_name);
-				String xml_filename = "xml" + java.io.File.separator + entry_class_name + "-" + (scope < 10 ? "0" : "") + scope + ".xml";
-				return new UpperBoundXML(xml_filename);
+				String key = entry_class_name + "-" + (scope < 10 ? "0" : "") + scope;
+				return new UpperBoundXML(getXMLFilename(key), key);
 			}
 		}
 
@@ -60,18 +145,8 @@ class UBoundRepository {
 
 	private UpperBoundXML look_up_roops_repository(String class_to_check, AlloyScope alloy_scope) {
 
-		Map<String, String> roops_case_studies = new HashMap<String, String>();
-		roops_case_studies.put("roops_core_objects_AvlTree", "roops_core_objects_AvlNode");
-		roops_case_studies.put("roops_core_objects_BinomialHeap", "roops_core_objects_BinomialHeapNode");
-		roops_case_studies.put("roops_core_objects_BinTree", "roops_core_objects_BinTreeNode");
-		roops_case_studies.put("roops_core_objects_FibHeap", "roops_core_objects_FibHeapNode");
-		roops_case_studies.put("roops_core_objects_LinkedList", "roops_core_objects_LinkedListNode");
-		roops_case_studies.put("roops_core_objects_NodeCachingLinkedList", "roops_core_objects_LinkedListNode");
-		roops_case_studies.put("roops_core_objects_SinglyLinkedList", "roops_core_objects_SinglyLinkedListNode");
-		roops_case_studies.put("roops_core_objects_TreeSet", "roops_core_objects_TreeSetEntry");
-
-		if (roops_case_studies.containsKey(class_to_check)) {
-			return look_up_repository(class_to_check, roops_case_studies.get(class_to_check), alloy_scope);
+		if (ROOPS_CASE_STUDIES.containsKey(class_to_check)) {
+			return look_up_repository(class_to_check, ROOPS_CASE_STUDIES.get(class_to_check), alloy_scope);
 		} else
 			return null;
 	}
@@ -82,29 +157,266 @@ class UBoundRepository {
 		return xml_doc;
 	}
 
-	public List<UBound> getUpperBound(JDynAlloyClassDiagram class_diagram, AlloyScope alloy_scope) {
+	/**
+	 * Bounds computed by <code>UBoundGenerator</code> are stored by class to
+	 * check, type scopes, bitwidth and a digest of everything the invariant
+	 * model is translated from, e.g.
+	 * <code>roops_core_objects_AvlTree-roops_core_objects_AvlNode_3-bw4-1f0c...</code>.
+	 * The digest covers the Java sources of the analysed classes and every
+	 * option but the ones in <code>MODEL_INDEPENDENT_KEYS</code>, so any run
+	 * of the same class, whatever its method, output directory or batch job,
+	 * finds the bounds a previous one generated.
+	 * 
+	 * @return the key for the current configuration, or null if it has no
+	 *         type scopes.
+	 */
+	String getGeneratedEntryKey() {
+		TacoConfigurator configurator = TacoConfigurator.getInstance();
+		String[] type_scopes = configurator.getTypeScopes();
+		if (type_scopes == null || type_scopes.length == 0) {
+			return null;
+		}
+		List<String> sorted_type_scopes = new ArrayList<String>();
+		for (String type_scope : type_scopes) {
+			sorted_type_scopes.add(type_scope.trim().replaceAll("[^A-Za-z0-9_]", "_"));
+		}
+		Collections.sort(sorted_type_scopes);
+
+		StringBuilder key = new StringBuilder(configurator.getClassToCheck());
+		for (String type_scope : sorted_type_scopes) {
+			key.append("-").append(type_scope);
+		}
+		key.append("-bw").append(configurator.getBitwidth());
+		key.append("-").append(digestModelSources(configurator));
+		return key.toString();
+	}
+
+	/**
+	 * @return the SHA-1 of the options and Java sources the invariant model
+	 *         of the class to check is translated from.
+	 */
+	private static String digestModelSources(TacoConfigurator configurator) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new TacoException(e.getMessage());
+		}
+
+		SortedMap<String, String> options = new TreeMap<String, String>();
+		for (Iterator<?> keys = configurator.getKeys(); keys.hasNext();) {
+			String option = (String) keys.next();
+			if (!MODEL_INDEPENDENT_KEYS.contains(option)) {
+				options.put(option, String.valueOf(configurator.getProperty(option)));
+			}
+		}
+		for (Map.Entry<String, String> option : options.entrySet()) {
+			md.update((option.getKey() + "=" + option.getValue() + "\n").getBytes(UTF8));
+		}
+
+		SortedSet<String> classes = new TreeSet<String>(Arrays.asList(configurator.getClasses()));
+		classes.add(configurator.getString(TacoConfigurator.CLASS_TO_CHECK_FIELD));
+		String source_root = configurator.getString(TacoConfigurator.JMLPARSER_SOURCE_PATH_STR, "");
+		for (String class_name : classes) {
+			File source = new File(source_root, class_name.replace('.', File.separatorChar) + ".java");
+			md.update((class_name + "\n").getBytes(UTF8));
+			if (source.isFile()) {
+				try {
+					md.update(readFully(source));
+				} catch (IOException e) {
+					throw new TacoException("Source " + source + " can't be read: " + e.getMessage());
+				}
+			}
+		}
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : md.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static byte[] readFully(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static String getXMLFilename(String key) {
+		return REPOSITORY_DIR + java.io.File.separator + key + ".xml";
+	}
+
+	private static File getGeneratedFile(String cache_dir, String key) {
+		return new File(cache_dir, key + ".xml");
+	}
+
+	/**
+	 * @return true if bounds were generated for <code>key</code>, by this
+	 *         process or, unless <code>tightUpperBoundsCacheDir</code> is
+	 *         empty, by a previous one.
+	 */
+	public boolean hasEntry(String key) {
+		if (generated_upper_bounds.containsKey(key)) {
+			return true;
+		}
+		String cache_dir = TacoConfigurator.getInstance().getTightUpperBoundsCacheDir();
+		return !cache_dir.equals("") && getGeneratedFile(cache_dir, key).isFile();
+	}
+
+	/**
+	 * Adds generated bounds, in the repository format. They are kept in
+	 * memory for the lifetime of the JVM and written to
+	 * <code>tightUpperBoundsCacheDir</code> unless it is empty. The
+	 * repository of hand checked bounds is never written.
+	 */
+	public void store(String key, String upper_bound_xml) {
+		generated_upper_bounds.put(key, Collections.unmodifiableList(parseUpperBounds(new InputSource(new StringReader(upper_bound_xml)))));
+
+		String cache_dir = TacoConfigurator.getInstance().getTightUpperBoundsCacheDir();
+		if (cache_dir.equals("")) {
+			return;
+		}
+		File file_xml = getGeneratedFile(cache_dir, key);
+		try {
+			File parent = file_xml.getAbsoluteFile().getParentFile();
+			parent.mkdirs();
+			// other TACO processes may share the directory: never expose a
+			// partially written file
+			File tmp = File.createTempFile(file_xml.getName(), ".tmp", parent);
+			FileWriter writer = new FileWriter(tmp);
+			try {
+				writer.write(upper_bound_xml);
+			} finally {
+				writer.close();
+			}
+			if (!tmp.renameTo(file_xml)) {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			log.warn("Upper bounds " + file_xml + " can't be written: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the bounds generated for <code>key</code>, or null.
+	 */
+	private List<UBound> getGeneratedUpperBound(String key) {
+		List<UBound> upper_bounds = generated_upper_bounds.get(key);
+		if (upper_bounds == null) {
+			String cache_dir = TacoConfigurator.getInstance().getTightUpperBoundsCacheDir();
+			if (cache_dir.equals("")) {
+				return null;
+			}
+			File file_xml = getGeneratedFile(cache_dir, key);
+			if (!file_xml.isFile()) {
+				return null;
+			}
+			upper_bounds = Collections.unmodifiableList(parseUpperBounds(new InputSource(file_xml.toURI().toString())));
+			generated_upper_bounds.putIfAbsent(key, upper_bounds);
+		}
+		return upper_bounds;
+	}
+
+	/**
+	 * @param include_generated
+	 *            whether bounds computed by <code>UBoundGenerator</code> are
+	 *            used when the repository has none.
+	 * @return the upper bounds for the class to check and scope, read only.
+	 */
+	public List<UBound> getUpperBound(JDynAlloyClassDiagram class_diagram, AlloyScope alloy_scope, boolean include_generated) {
 
 		UpperBoundXML upperBoundXML = findUpperBoundXML(class_diagram, alloy_scope);
 
 		if (upperBoundXML != null) {
+			List<UBound> upper_bounds = upper_bounds_cache.get(upperBoundXML.xmlDoc);
+			if (upper_bounds != null) {
+				return upper_bounds;
+			}
+
 			File file_xml = new File(upperBoundXML.xmlDoc);
-			if (!file_xml.exists()) {
+			UBoundIndex upper_bound_index = getIndex();
+			if (upper_bound_index != null && upper_bound_index.contains(upperBoundXML.key)
+					&& (!file_xml.exists() || file_xml.lastModified() <= index_last_modified)) {
+				upper_bounds = decodeUpperBounds(upper_bound_index, upperBoundXML.key);
+			} else if (file_xml.exists()) {
+				upper_bounds = readUpperBoundXML(upperBoundXML);
+			} else {
 				return null;
 			}
-			List<UBound> upper_bounds = readUpperBoundXML(upperBoundXML);
 
+			upper_bounds = Collections.unmodifiableList(upper_bounds);
+			upper_bounds_cache.putIfAbsent(upperBoundXML.xmlDoc, upper_bounds);
 			return upper_bounds;
-		} else
+		} else if (include_generated) {
+			String key = getGeneratedEntryKey();
+			return key == null ? null : getGeneratedUpperBound(key);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the compiled repository, or null if it was not built. See
+	 *         <code>UBoundIndex.main</code>.
+	 */
+	private static synchronized UBoundIndex getIndex() {
+		File index_file = new File(REPOSITORY_DIR, UBoundIndex.INDEX_FILENAME);
+		if (!index_file.exists()) {
 			return null;
+		}
+		if (index == null || index_file.lastModified() != index_last_modified) {
+			index_last_modified = index_file.lastModified();
+			try {
+				index = UBoundIndex.load(index_file);
+			} catch (IOException e) {
+				log.warn("Upper bound index " + index_file + " could not be loaded, reading the XML files: " + e.getMessage());
+				index = null;
+			}
+		}
+		return index;
+	}
+
+	private List<UBound> decodeUpperBounds(UBoundIndex upper_bound_index, String key) {
+		List<UBound> upper_bounds = new ArrayList<UBound>();
+		for (UBoundIndex.FieldBound field_bound : upper_bound_index.getFieldBounds(key)) {
+			ExprJoin field = UBoundSAXHandler.buildField(upper_bound_index.getAtom(field_bound.label));
+			if (field_bound.getTupleCount() == 0) {
+				upper_bounds.add(new UBound(field, UBoundSAXHandler.buildExprProductNone(field_bound.arity)));
+			} else {
+				List<AlloyExpression> tuples = new ArrayList<AlloyExpression>(field_bound.getTupleCount());
+				for (int i = 0; i < field_bound.getTupleCount(); i++) {
+					List<ExprConstant> atoms = new ArrayList<ExprConstant>(field_bound.arity);
+					for (int j = 0; j < field_bound.arity; j++) {
+						atoms.add(ExprConstant.buildExprConstant(upper_bound_index.getAtom(field_bound.getAtom(i, j))));
+					}
+					tuples.add(UBoundSAXHandler.buildExprProduct(atoms));
+				}
+				upper_bounds.add(new UBound(field, UBoundSAXHandler.buildExprUnion(tuples)));
+			}
+		}
+		return upper_bounds;
 	}
 
 	private List<UBound> readUpperBoundXML(UpperBoundXML upperBoundXML) {
+		return parseUpperBounds(new InputSource(new File(upperBoundXML.xmlDoc).toURI().toString()));
+	}
+
+	private static List<UBound> parseUpperBounds(InputSource input) {
 
 		try {
 			SAXParserFactory factory = SAXParserFactory.newInstance();
 			SAXParser saxParser = factory.newSAXParser();
 			UBoundSAXHandler upper_bound_handler = new UBoundSAXHandler();
-			saxParser.parse(upperBoundXML.xmlDoc, upper_bound_handler);
+			saxParser.parse(input, upper_bound_handler);
 			return upper_bound_handler.getUpperBounds();
 
 		} catch (ParserConfigurationException e) {
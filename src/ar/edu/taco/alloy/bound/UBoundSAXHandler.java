@@ -1,5 +1,6 @@
 package ar.edu.taco.alloy.bound;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeSet;
@@ -47,7 +48,7 @@ class UBoundSAXHandler extends DefaultHandler {
 			String field_name = attributes.getValue("label");
 			String current_arity_str = attributes.getValue("arity");
 			current_arity = new Integer(current_arity_str);
-			current_field = ExprJoin.join(ExprConstant.buildExprConstant("QF"), ExprConstant.buildExprConstant(field_name));
+			current_field = buildField(field_name);
 			current_tuple_set.clear();
 
 		} else if (qName.equals("tuple")) {
@@ -69,7 +70,7 @@ class UBoundSAXHandler extends DefaultHandler {
 
 			UBound new_upper_bound;
 			if (current_tuple_set.isEmpty()) {
-				new_upper_bound = new UBound(current_field, buildExprProductNone());
+				new_upper_bound = new UBound(current_field, buildExprProductNone(current_arity));
 			} else {
 				new_upper_bound = new UBound(current_field, buildExprUnion(current_tuple_set));
 			}
@@ -86,7 +87,11 @@ class UBoundSAXHandler extends DefaultHandler {
 
 	}
 
-	private AlloyExpression buildExprProduct(List<ExprConstant> atom_list) {
+	static ExprJoin buildField(String field_name) {
+		return ExprJoin.join(ExprConstant.buildExprConstant("QF"), ExprConstant.buildExprConstant(field_name));
+	}
+
+	static AlloyExpression buildExprProduct(List<ExprConstant> atom_list) {
 		AlloyExpression result = null;
 		for (ExprConstant atom : atom_list) {
 			if (result == null) {
@@ -98,7 +103,7 @@ class UBoundSAXHandler extends DefaultHandler {
 		return result;
 	}
 
-	private AlloyExpression buildExprUnion(TreeSet<AlloyExpression> tuple_set) {
+	static AlloyExpression buildExprUnion(Collection<AlloyExpression> tuple_set) {
 		AlloyExpression result = null;
 		for (AlloyExpression tuple : tuple_set) {
 			if (result == null) {
@@ -110,10 +115,10 @@ class UBoundSAXHandler extends DefaultHandler {
 		return result;
 	}
 
-	private AlloyExpression buildExprProductNone() {
+	static AlloyExpression buildExprProductNone(int arity) {
 		AlloyExpression result = null;
 
-		for (int i = 0; i < current_arity; i++) {
+		for (int i = 0; i < arity; i++) {
 			if (result == null) {
 				result = ExprConstant.buildExprConstant("none");
 			} else {
@@ -489,6 +489,38 @@ public class JDynAlloyClassHierarchy {
 
 	}
 
+	/**
+	 * @return everything the symmetry breaking predicates are generated from:
+	 *         the java types with their scopes, the root nodes and the
+	 *         fields, in the order the predicates enumerate them.
+	 */
+	String describe() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("types:");
+		for (String javaType : javaTypes().all()) {
+			buffer.append(" ").append(javaType).append("#").append(SBPUtils.getScope(javaType));
+		}
+		buffer.append("\nroot nodes:");
+		describeFields(buffer, rootNodes().all());
+		for (Map.Entry<String, List<JField>> entry : rootNodes().ofType().entrySet()) {
+			buffer.append("\nroot nodes of ").append(entry.getKey()).append(":");
+			describeFields(buffer, entry.getValue());
+		}
+		buffer.append("\nrecursive fields:");
+		describeFields(buffer, recursiveFields);
+		buffer.append("\nnon-recursive fields:");
+		describeFields(buffer, nonRecursiveFields);
+		buffer.append("\nfields:");
+		describeFields(buffer, javaTypes().fields);
+		return buffer.toString();
+	}
+
+	private static void describeFields(StringBuilder buffer, List<JField> fields) {
+		for (JField field : fields) {
+			buffer.append(" ").append(field.getFieldVariable()).append(":").append(field.getFieldType());
+		}
+	}
+
 	public String toString() {
 		StringBuffer buffer = new StringBuffer();
 		buffer.append("type ordering:\n");
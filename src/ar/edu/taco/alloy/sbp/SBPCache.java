@@ -0,0 +1,124 @@
+package ar.edu.taco.alloy.sbp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import ar.edu.taco.TacoException;
+
+/**
+ * Symmetry breaking predicates already generated, keyed by the digest of
+ * everything they are generated from: types and their scopes, root nodes and
+ * fields (see <code>JDynAlloyClassHierarchy.describe()</code>). They are kept
+ * in memory for the lifetime of the JVM and, if a directory is configured,
+ * on disk.
+ */
+class SBPCache {
+
+	private static Logger log = Logger.getLogger(SBPCache.class);
+
+	/**
+	 * Must change whenever the generated text changes for the same inputs.
+	 */
+	private static final int SBP_VERSION = 1;
+
+	private static final String SBP_EXTENSION = ".sbp";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final SBPCache instance = new SBPCache();
+
+	private final Map<String, String> predicates = new HashMap<String, String>();
+
+	static SBPCache getInstance() {
+		return instance;
+	}
+
+	private SBPCache() {
+	}
+
+	String key(JDynAlloyClassHierarchy sbpInfo) {
+		return digest(SBP_VERSION + "|" + sbpInfo.describe());
+	}
+
+	/**
+	 * @return the predicates stored under <code>key</code>, or null.
+	 */
+	String load(String key, String cacheDir) {
+		String sbp;
+		synchronized (this) {
+			sbp = predicates.get(key);
+		}
+		if (sbp == null && !cacheDir.equals("")) {
+			sbp = readFile(cacheFile(cacheDir, key));
+			if (sbp != null) {
+				synchronized (this) {
+					predicates.put(key, sbp);
+				}
+			}
+		}
+		return sbp;
+	}
+
+	void store(String key, String sbp, String cacheDir) {
+		synchronized (this) {
+			predicates.put(key, sbp);
+		}
+		if (!cacheDir.equals("")) {
+			writeFile(cacheFile(cacheDir, key), sbp);
+		}
+	}
+
+	private static File cacheFile(String cacheDir, String key) {
+		return new File(cacheDir, key + SBP_EXTENSION);
+	}
+
+	private static String readFile(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			return new String(Files.readAllBytes(file.toPath()), UTF8);
+		} catch (IOException e) {
+			log.debug("symmetry breaking predicates " + file + " can't be read: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static void writeFile(File file, String sbp) {
+		try {
+			File parent = file.getAbsoluteFile().getParentFile();
+			parent.mkdirs();
+			// other TACO processes may share the directory: never expose a
+			// partially written file
+			File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+			Files.write(tmp.toPath(), sbp.getBytes(UTF8));
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			log.warn("symmetry breaking predicates " + file + " can't be written: " + e.getMessage());
+		}
+	}
+
+	private static String digest(String content) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			StringBuilder hex = new StringBuilder();
+			for (byte b : md.digest(content.getBytes(UTF8))) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new TacoException(e.getMessage());
+		}
+	}
+
+}
@@ -3,6 +3,8 @@ package ar.edu.taco.alloy.sbp;
 import java.util.List;
 
 import ar.edu.jdynalloy.ast.JDynAlloyModule;
+import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.utils.AlloyOutputSink;
 import ar.uba.dc.rfm.alloy.ast.AlloyModule;
 import ar.uba.dc.rfm.alloy.util.AlloyMutator;
 import ar.uba.dc.rfm.dynalloy.plugin.AlloyASTPlugin;
@@ -11,6 +13,12 @@ public class SymmBreakPredPlugin implements AlloyASTPlugin {
 
 	private JDynAlloyClassHierarchy sbpInfo;
 
+	private final AlloyOutputSink outputSink;
+
+	public SymmBreakPredPlugin(AlloyOutputSink outputSink) {
+		this.outputSink = outputSink;
+	}
+
 	@Override
 	public AlloyModule transform(AlloyModule input) {
 		// For debugging purposes:
@@ -24,19 +32,31 @@ public class SymmBreakPredPlugin implements AlloyASTPlugin {
 			// SBPUtils.debugPrint("pfFinal.als", input);
 			return input;
 		}
-		final StringBuilder alloyStrModified = new StringBuilder(input.getAlloyStr());
-		AlloyMutator p = new SBPInstrumentAlloyProcedureMutator(sbpInfo, alloyStrModified);
+		// The predicates only depend on the types, their scopes, the root
+		// nodes and the fields. The mutator still has to rewrite the fields
+		// and formulas of the module, only the text it appends is reused.
+		String cacheDir = TacoConfigurator.getInstance().getSBPCacheDir();
+		String cacheKey = SBPCache.getInstance().key(sbpInfo);
+		String cachedSBP = SBPCache.getInstance().load(cacheKey, cacheDir);
+
+		final StringBuilder sbp = new StringBuilder();
+		AlloyMutator p = new SBPInstrumentAlloyProcedureMutator(sbpInfo, sbp);
 		AlloyModule output = (AlloyModule) input.accept(p);
-	
-		SBPProcedures sbpProcedures = new SBPProcedures(sbpInfo);
-		sbpProcedures.executeAll(alloyStrModified);
-		
-		alloyStrModified.append("/*\n");
-		alloyStrModified.append(sbpInfo.toString());
-		alloyStrModified.append("\n");
-		alloyStrModified.append("*/\n");
+
+		if (cachedSBP == null) {
+			SBPProcedures sbpProcedures = new SBPProcedures(sbpInfo);
+			sbpProcedures.executeAll(sbp);
+
+			sbp.append("/*\n");
+			sbp.append(sbpInfo.toString());
+			sbp.append("\n");
+			sbp.append("*/\n");
+			cachedSBP = sbp.toString();
+			SBPCache.getInstance().store(cacheKey, cachedSBP, cacheDir);
+		}
+		outputSink.append(cachedSBP);
 		
-		AlloyModule ret = new AlloyModule(alloyStrModified.toString(), output.getGlobalSig(),
+		AlloyModule ret = new AlloyModule(input.getAlloyStr(), output.getGlobalSig(),
 				output.getFacts(), output.getAssertions());
 		
 		// For debugging purposes:
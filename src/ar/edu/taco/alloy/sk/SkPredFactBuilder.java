@@ -10,6 +10,7 @@ import java.util.Set;
 
 import ar.edu.jdynalloy.factory.JPredicateFactory;
 import ar.edu.taco.TacoException;
+import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
 import ar.uba.dc.rfm.alloy.ast.expressions.ExprConstant;
 import ar.uba.dc.rfm.alloy.ast.expressions.ExprJoin;
@@ -41,10 +42,10 @@ class SkPredFactBuilder {
 		return new_axioms;
 	}
 
-	private void fill_sk_pred_set(String alloyStr) {
+	private void fill_sk_pred_set(AlloyTyping qf_fields) {
 		sk_pred_set = new HashSet<SkPredArgument>();
 		SkPredParser sk_parser = new SkPredParser();
-		sk_parser.parse(alloyStr);
+		sk_parser.parse(qf_fields);
 		sk_pred_set.addAll(sk_parser.get_sk_pred_arguments());
 	}
 
@@ -228,8 +229,8 @@ class SkPredFactBuilder {
 
 	private Map<String, Map<String, Map<Integer, Map<Integer, Map<String, SkPredArgument>>>>> sk_pred_map = new HashMap<String, Map<String, Map<Integer, Map<Integer, Map<String, SkPredArgument>>>>>();
 
-	public SkPredFactBuilder(String alloyStr) {
-		fill_sk_pred_set(alloyStr);
+	public SkPredFactBuilder(AlloyTyping qf_fields) {
+		fill_sk_pred_set(qf_fields);
 		fill_sk_pred_map();
 		boolean check_sanity = check_sanity();
 		if (!check_sanity) {
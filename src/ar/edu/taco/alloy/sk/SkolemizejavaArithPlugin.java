@@ -1,41 +1,35 @@
 package ar.edu.taco.alloy.sk;
 
 import java.util.List;
+import java.util.Vector;
 
+import ar.uba.dc.rfm.alloy.ast.AlloyModule;
 import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
-import ar.uba.dc.rfm.alloy.util.FormulaPrinter;
-import ar.uba.dc.rfm.dynalloy.plugin.AlloyStringPlugin;
-
-public class SkolemizejavaArithPlugin implements AlloyStringPlugin {
-
-	public String transform(String input) {
-		SkPredFactBuilder sk_pred_fact_builder = new SkPredFactBuilder(input);
+import ar.uba.dc.rfm.dynalloy.plugin.AlloyASTPlugin;
+
+/**
+ * Constrains the QF fields that skolemize the Java arithmetic predicates.
+ * The arguments are read from the fields of QF, the generated model is
+ * never printed and scanned again, and the constraints are added to the
+ * facts of the module.
+ */
+public class SkolemizejavaArithPlugin implements AlloyASTPlugin {
+
+	@Override
+	public AlloyModule transform(AlloyModule input) {
+		SkPredFactBuilder sk_pred_fact_builder = new SkPredFactBuilder(input.getGlobalSig().getFields());
 		List<AlloyFormula> sk_pred_facts = sk_pred_fact_builder.build_axioms();
 
-		String output;
-		if (!sk_pred_facts.isEmpty()) {
-
-			StringBuffer buff = new StringBuffer();
-			buff.append("\n");
-			buff.append("fact {\n");
-			FormulaPrinter printer = new FormulaPrinter();
-			for (AlloyFormula sk_fact : sk_pred_facts) {
-				String sk_fact_str = (String) sk_fact.accept(printer);
-				buff.append(sk_fact_str + "\n");
-			}
-
-			buff.append("}\n");
-			buff.append("\n");
-
-			String fact_str = buff.toString();
-
-			output = input + fact_str;
-
-		} else {
-			output = input;
+		if (sk_pred_facts.isEmpty()) {
+			return input;
 		}
-		return output;
 
+		Vector<AlloyFormula> facts = new Vector<AlloyFormula>();
+		for (AlloyFormula fact : input.getFacts()) {
+			facts.add(fact);
+		}
+		facts.addAll(sk_pred_facts);
+		return new AlloyModule(input.getAlloyStr(), input.getGlobalSig(), facts, input.getAssertions());
 	}
 
 }
@@ -6,6 +6,7 @@ import ar.uba.dc.rfm.alloy.ast.expressions.ExprVariable;
 import ar.uba.dc.rfm.alloy.ast.expressions.ExpressionVisitor;
 import ar.uba.dc.rfm.alloy.ast.formulas.FormulaVisitor;
 import ar.uba.dc.rfm.dynalloy.ast.programs.InvokeAction;
+import ar.uba.dc.rfm.dynalloy.ast.programs.InvokeProgram;
 import ar.uba.dc.rfm.dynalloy.util.DfsProgramVisitor;
 
 class ArithmeticOpCollector extends DfsProgramVisitor {
@@ -122,6 +123,24 @@ class ArithmeticOpCollector extends DfsProgramVisitor {
         return super.visit(u);
     }
 
+    private boolean skip_program_calls = false;
+
+    /**
+     * Program calls are not visited, not even their actual parameters. Used
+     * when the counts of the called programs are added separately.
+     */
+    void skipProgramCalls() {
+        this.skip_program_calls = true;
+    }
+
+    @Override
+    public Object visit(InvokeProgram u) {
+        if (skip_program_calls) {
+            return null;
+        }
+        return super.visit(u);
+    }
+
     public ArithmeticOpCounter getArithmeticOpCounter() {
         return this.arithmetic_op_counter;
     }
@@ -7,6 +7,14 @@ public class ArithmeticOpCounter {
 	public IntegerOpCounter integerOpCounter = new IntegerOpCounter();
 	public CharOpCounter charOpCounter = new CharOpCounter();
 
-
+	/**
+	 * Adds <code>times</code> the counts of <code>other</code>.
+	 */
+	public void add(ArithmeticOpCounter other, int times) {
+		floatOpCounter.add(other.floatOpCounter, times);
+		longOpCounter.add(other.longOpCounter, times);
+		integerOpCounter.add(other.integerOpCounter, times);
+		charOpCounter.add(other.charOpCounter, times);
+	}
 
 }
@@ -43,4 +43,15 @@ public class CharOpCounter {
 	}
 
 	
+
+	/**
+	 * Adds <code>times</code> the counts of <code>other</code>.
+	 */
+	public void add(CharOpCounter other, int times) {
+		java_primitive_char_value_add += other.java_primitive_char_value_add * times;
+		java_primitive_char_value_sub += other.java_primitive_char_value_sub * times;
+		java_primitive_char_value_decr_incr += other.java_primitive_char_value_decr_incr * times;
+		java_primitive_char_value_narrowing_cast += other.java_primitive_char_value_narrowing_cast * times;
+	}
+
 }
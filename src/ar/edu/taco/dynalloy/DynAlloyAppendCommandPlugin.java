@@ -3,6 +3,7 @@ package ar.edu.taco.dynalloy;
 import java.util.ArrayList;
 
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.utils.AlloyOutputSink;
 import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
 import ar.uba.dc.rfm.dynalloy.ast.AssertionDeclaration;
@@ -12,23 +13,43 @@ import ar.uba.dc.rfm.dynalloy.plugin.DynAlloyASTPlugin;
 
 class DynAlloyAppendCommandPlugin implements DynAlloyASTPlugin {
 
+	private final AlloyOutputSink output_sink;
+
+	private final boolean invariant_output;
+
+	/**
+	 * @param invariant_output
+	 *            true if the only command of the model is the one
+	 *            <code>InvariantRunPlugin</code> adds.
+	 */
+	DynAlloyAppendCommandPlugin(AlloyOutputSink output_sink, boolean invariant_output) {
+		this.output_sink = output_sink;
+		this.invariant_output = invariant_output;
+	}
+
 	@Override
 	public DynalloyModule transform(DynalloyModule input) {
-		StringBuffer sb = new StringBuffer();
-		sb.append(input.getAlloyStr());
+		if (!invariant_output) {
+			appendCommands(input);
+		}
+		// the arithmetic vars and preds are dropped from every model
+		return new DynalloyModule(input.getModuleId(), input.getImports(), input.getAlloyStr(), 
+				input.getActions(), input.getPrograms(), input.getAssertions(), new AlloyTyping(), new ArrayList<AlloyFormula>());
+	}
 
+	private void appendCommands(DynalloyModule input) {
 		TacoConfigurator taco_configurator = TacoConfigurator.getInstance();
 		String scope_of_analysis = taco_configurator.getAssertionArguments();
 		
 		if (taco_configurator.getGenerateCheck() == true) {
 			for (AssertionDeclaration assertion : input.getAssertions())
-				sb.append("check " + assertion.getAssertionId() + " " + scope_of_analysis + "\n");
+				output_sink.append("check " + assertion.getAssertionId() + " " + scope_of_analysis + "\n");
 		}
 
 		if (taco_configurator.getGenerateRun() == true) {
 			for (ProgramDeclaration programDeclaration : input.getPrograms()) {
 				if (programDeclaration.getProgramId().equals(taco_configurator.getMethodToCheck())) {
-					sb.append("run " + programDeclaration.getProgramId() + " " + scope_of_analysis + "\n");
+					output_sink.append("run " + programDeclaration.getProgramId() + " " + scope_of_analysis + "\n");
 				}
 			}
 		}
@@ -36,13 +57,10 @@ class DynAlloyAppendCommandPlugin implements DynAlloyASTPlugin {
 		if (taco_configurator.getIncludeSimulationProgramDeclaration()) {
 			for (ProgramDeclaration programDeclaration : input.getPrograms()) {
 				if (programDeclaration.getProgramId().startsWith("simulate_")) {
-					sb.append("run " + programDeclaration.getProgramId() + " " + scope_of_analysis + "\n");
+					output_sink.append("run " + programDeclaration.getProgramId() + " " + scope_of_analysis + "\n");
 				}
 			}
 		}
-
-		return new DynalloyModule(input.getModuleId(), input.getImports(), sb.toString(), 
-				input.getActions(), input.getPrograms(), input.getAssertions(), new AlloyTyping(), new ArrayList<AlloyFormula>());
 	}
 
 }
@@ -2,10 +2,14 @@ package ar.edu.taco.dynalloy;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
-import ar.edu.jdynalloy.xlator.ObjectCreationCollector;
-import ar.edu.jdynalloy.xlator.ObjectCreationCounter;
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoException;
 import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
 import ar.uba.dc.rfm.da2a.prepare.ClosureRemover;
@@ -16,6 +20,16 @@ import ar.uba.dc.rfm.dynalloy.plugin.DynAlloyASTPlugin;
 import ar.uba.dc.rfm.dynalloy.util.DynalloyMutator;
 import ar.uba.dc.rfm.dynalloy.util.DynalloyVisitor;
 
+/**
+ * Counts the objects allocated and the arithmetic operations performed by
+ * the method under analysis with its loops unrolled, including the ones of
+ * the programs it calls.
+ *
+ * Every program is summarized once and the summary of a caller adds the
+ * summaries of its callees as many times as they are called. The result is
+ * the same as counting on the program with every call inlined, without
+ * building it.
+ */
 public class DynAlloyProgramScopeInferencePlugin implements DynAlloyASTPlugin {
 
 	private ArithmeticOpCollector arithmetic_op_collector = new ArithmeticOpCollector();
@@ -27,11 +41,15 @@ public class DynAlloyProgramScopeInferencePlugin implements DynAlloyASTPlugin {
 		int unroll = TacoConfigurator.getInstance().getDynAlloyToAlloyLoopUnroll();
 		DynalloyModule unrolled_dynalloy = unroll_loops(input, unroll);
 
-		DynalloyModule inlined_unrolled_dynalloy = inline_program_calls(unrolled_dynalloy, unroll);
+		// actions and assertions
+		DynalloyModule module_without_programs = remove_programs(unrolled_dynalloy);
+		collect_object_allocations(module_without_programs);
+		collect_arithmetic_operations(module_without_programs);
 
-		collect_object_allocations(inlined_unrolled_dynalloy);
-
-		collect_arithmetic_operations(inlined_unrolled_dynalloy);
+		String method_to_check = TacoConfigurator.getInstance().getMethodToCheck().substring(0, TacoConfigurator.getInstance().getMethodToCheck().indexOf('('));
+		ProgramScopeSummary method_summary = summarize(unrolled_dynalloy, method_to_check, new HashMap<String, ProgramScopeSummary>(), new HashSet<String>());
+		object_creation_collector.getObjectCreationCounter().add(method_summary.getObjectCreationCounter(), 1);
+		arithmetic_op_collector.getArithmeticOpCounter().add(method_summary.getArithmeticOpCounter(), 1);
 
 		return input;
 	}
@@ -40,22 +58,54 @@ public class DynAlloyProgramScopeInferencePlugin implements DynAlloyASTPlugin {
 		module.accept(new DynalloyVisitor(object_creation_collector));
 	}
 
-	private DynalloyModule inline_program_calls(DynalloyModule dynalloy_module, int unroll) {
-		ProgramInliner program_inliner = new ProgramInliner(dynalloy_module);
-
-		String method_to_check = TacoConfigurator.getInstance().getMethodToCheck().substring(0, TacoConfigurator.getInstance().getMethodToCheck().indexOf('('));
-
-		ProgramDeclaration program_decl = dynalloy_module.getProgram(method_to_check);
-		DynalloyProgram inlined_program = (DynalloyProgram) program_decl.getBody().accept(program_inliner);
-
-		ProgramDeclaration inlined_program_decl = new ProgramDeclaration(program_decl.getProgramId(), program_decl.getParameters(),
-				program_decl.getLocalVariables(), inlined_program, program_decl.getParameterTyping(), program_decl.getPredsFromArithInContracts(), program_decl.getVarsFromArithInContracts());
+	/**
+	 * @param summaries
+	 *            summaries of the programs already visited, by program id.
+	 * @param pending_program_ids
+	 *            programs whose summary is being computed.
+	 */
+	private ProgramScopeSummary summarize(DynalloyModule dynalloy_module, String program_id, Map<String, ProgramScopeSummary> summaries,
+			Set<String> pending_program_ids) {
+		ProgramScopeSummary summary = summaries.get(program_id);
+		if (summary != null) {
+			return summary;
+		}
+		if (!pending_program_ids.add(program_id)) {
+			throw new TacoException("Scope inference does not support recursive programs: " + program_id);
+		}
+
+		ProgramDeclaration program_decl = dynalloy_module.getProgram(program_id);
+		if (program_decl == null) {
+			throw new TacoException("Program " + program_id + " not found in module " + dynalloy_module.getModuleId());
+		}
+		DynalloyProgram program_body = program_decl.getBody();
+
+		ObjectCreationCollector program_object_creation_collector = new ObjectCreationCollector();
+		program_object_creation_collector.skipProgramCalls();
+		program_body.accept(program_object_creation_collector);
+
+		ArithmeticOpCollector program_arithmetic_op_collector = new ArithmeticOpCollector();
+		program_arithmetic_op_collector.skipProgramCalls();
+		program_body.accept(program_arithmetic_op_collector);
+
+		ProgramCallCollector program_call_collector = new ProgramCallCollector();
+		program_body.accept(program_call_collector);
+
+		summary = new ProgramScopeSummary(program_object_creation_collector.getObjectCreationCounter(),
+				program_arithmetic_op_collector.getArithmeticOpCounter());
+		for (Entry<String, Integer> program_call : program_call_collector.getProgramCalls().entrySet()) {
+			summary.add(summarize(dynalloy_module, program_call.getKey(), summaries, pending_program_ids), program_call.getValue());
+		}
+
+		pending_program_ids.remove(program_id);
+		summaries.put(program_id, summary);
+		return summary;
+	}
 
-		DynalloyModule result = new DynalloyModule(dynalloy_module.getModuleId(), dynalloy_module.getImports(), dynalloy_module.getAlloyStr(),
-				dynalloy_module.getActions(), Collections.singleton(inlined_program_decl), 
+	private DynalloyModule remove_programs(DynalloyModule dynalloy_module) {
+		return new DynalloyModule(dynalloy_module.getModuleId(), dynalloy_module.getImports(), dynalloy_module.getAlloyStr(),
+				dynalloy_module.getActions(), Collections.<ProgramDeclaration> emptySet(),
 				dynalloy_module.getAssertions(), new AlloyTyping(), new ArrayList<AlloyFormula>());
-
-		return result;
 	}
 
 	private DynalloyModule unroll_loops(DynalloyModule dynalloy_module, int unroll) {
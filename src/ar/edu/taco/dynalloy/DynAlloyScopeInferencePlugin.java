@@ -3,7 +3,6 @@ package ar.edu.taco.dynalloy;
 import java.util.List;
 
 import ar.edu.jdynalloy.ast.JDynAlloyModule;
-import ar.edu.jdynalloy.xlator.ObjectCreationCounter;
 import ar.edu.taco.infer.ScopeInference;
 import ar.uba.dc.rfm.dynalloy.ast.DynalloyModule;
 import ar.uba.dc.rfm.dynalloy.plugin.DynAlloyASTPlugin;
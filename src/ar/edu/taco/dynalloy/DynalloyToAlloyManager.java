@@ -20,6 +20,7 @@
 
 package ar.edu.taco.dynalloy;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -40,6 +41,8 @@ import ar.edu.taco.alloy.CardinalSizeOfPlugin;
 import ar.edu.taco.alloy.bound.UBoundPlugin;
 import ar.edu.taco.alloy.sbp.SymmBreakPredPlugin;
 import ar.edu.taco.alloy.sk.SkolemizejavaArithPlugin;
+import ar.edu.taco.utils.AlloyOutputSink;
+import ar.edu.taco.utils.RunReport;
 import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.AlloyVariable;
 import ar.uba.dc.rfm.alloy.ast.AlloyModule;
@@ -48,7 +51,10 @@ import ar.uba.dc.rfm.alloy.ast.expressions.ExprVariable;
 import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
 import ar.uba.dc.rfm.dynalloy.DynAlloyCompiler;
 import ar.uba.dc.rfm.dynalloy.DynAlloyOptions;
+import ar.uba.dc.rfm.dynalloy.ast.DynalloyModule;
 import ar.uba.dc.rfm.dynalloy.parser.AssertionNotFound;
+import ar.uba.dc.rfm.dynalloy.plugin.AlloyASTPlugin;
+import ar.uba.dc.rfm.dynalloy.plugin.DynAlloyASTPlugin;
 import ar.uba.dc.rfm.dynalloy.xlator.SpecContext;
 
 public class DynalloyToAlloyManager {
@@ -56,6 +62,8 @@ public class DynalloyToAlloyManager {
 	private DynAlloyCompiler compiler;
 
 	private boolean translatingForStryker = false;
+
+	private boolean invariantOutput = false;
 	
 	public DynalloyToAlloyManager(boolean forStryker){
 		this.translatingForStryker = forStryker;
@@ -81,40 +89,48 @@ public class DynalloyToAlloyManager {
 
 		try {
 			compiler = new DynAlloyCompiler();
+			AlloyOutputSink output_sink = new AlloyOutputSink();
 
 			if (TacoConfigurator.getInstance().getInferScope() == true) {
 
 				DynAlloyProgramScopeInferencePlugin program_scope_inference_plugin = new DynAlloyProgramScopeInferencePlugin();
-				compiler.addDynAlloyASTPlugin(program_scope_inference_plugin);
+				compiler.addDynAlloyASTPlugin(timedDynAlloyPlugin(program_scope_inference_plugin));
 
 				DynAlloyScopeInferencePlugin final_scope_inference_plugin = new DynAlloyScopeInferencePlugin();
 				final_scope_inference_plugin.setProgramScopeInferencePlugin(program_scope_inference_plugin);
 				final_scope_inference_plugin.setJDynAlloyModules(src_jdynalloy_modules);
-				compiler.addDynAlloyASTPlugin(final_scope_inference_plugin);
+				compiler.addDynAlloyASTPlugin(timedDynAlloyPlugin(final_scope_inference_plugin));
 				
 			}
 
-			compiler.addDynAlloyASTPlugin(new DynAlloyAppendCommandPlugin());		
+			compiler.addDynAlloyASTPlugin(timedDynAlloyPlugin(new DynAlloyAppendCommandPlugin(output_sink, invariantOutput)));		
 
 
 			if (TacoConfigurator.getInstance().getUseJavaSBP() == true) {
-				SymmBreakPredPlugin plugin = new SymmBreakPredPlugin();
+				SymmBreakPredPlugin plugin = new SymmBreakPredPlugin(output_sink);
 				plugin.setSourceJDynAlloyModules(this.src_jdynalloy_modules);
-				compiler.addAlloyASTPlugin(plugin);
+				compiler.addAlloyASTPlugin(timedAlloyPlugin(plugin));
 
 				if (TacoConfigurator.getInstance().getUseTightUpperBounds() == true) {
-					UBoundPlugin upperBoundPlugin = new UBoundPlugin();
+					UBoundPlugin upperBoundPlugin = new UBoundPlugin(output_sink);
 					upperBoundPlugin.setSourceJDynAlloyModules(this.src_jdynalloy_modules);
-					compiler.addAlloyASTPlugin(upperBoundPlugin);
+					// tight upper bounds are generated from the invariant
+					// model, see UBoundGenerator
+					upperBoundPlugin.setUseGeneratedUpperBounds(!invariantOutput);
+					compiler.addAlloyASTPlugin(timedAlloyPlugin(upperBoundPlugin));
 				}
 			}
 
 			if (TacoConfigurator.getInstance().getUseJavaArithmetic() == true) {
 				SkolemizejavaArithPlugin sk_plugin = new SkolemizejavaArithPlugin();
-				compiler.addAlloyStringPlugin(sk_plugin);
+				compiler.addAlloyASTPlugin(timedAlloyPlugin(sk_plugin));
+
+				CardinalSizeOfPlugin cardinal_plugin = new CardinalSizeOfPlugin(output_sink);
+				compiler.addAlloyASTPlugin(timedAlloyPlugin(cardinal_plugin));
+			}
 
-				CardinalSizeOfPlugin cardinal_plugin = new CardinalSizeOfPlugin();
-				compiler.addAlloyStringPlugin(cardinal_plugin);
+			if (invariantOutput) {
+				compiler.addAlloyASTPlugin(timedAlloyPlugin(new InvariantRunPlugin(output_sink)));
 			}
 			
 			DynAlloyOptions options = new DynAlloyOptions();
@@ -127,12 +143,22 @@ public class DynalloyToAlloyManager {
 			options.setBuildDynAlloyTrace(false);
 			options.setRemoveExitWhileGuard(removeExitWhileGuard);
 
-			AlloyModule alloyAST = compiler.compile(inputFilename, outputFilename, options, 
-					varsFromInvPerMod, 
-					predsFromInvPerMod,
-					varsFromContractsPerProg,
-					predsFromContractsPerProg, 
-					this.translatingForStryker);
+			RunReport.Measurement compilation = RunReport.start("dynalloy", "DynAlloyCompiler");
+			AlloyModule alloyAST;
+			try {
+				alloyAST = compiler.compile(inputFilename, outputFilename, options, 
+						varsFromInvPerMod, 
+						predsFromInvPerMod,
+						varsFromContractsPerProg,
+						predsFromContractsPerProg, 
+						this.translatingForStryker);
+				// the plugins leave the module text as is, their fragments are
+				// appended once the compiler has written the model
+				output_sink.appendTo(outputFilename);
+			} finally {
+				compilation.stop();
+			}
+			compilation.count("outputBytes", new File(outputFilename).length());
 
 			result = compiler.getSpecContext();
 
@@ -158,8 +184,54 @@ public class DynalloyToAlloyManager {
 		this.src_jdynalloy_modules = src_jdynalloy_modules;
 	}
 
+	/**
+	 * @param invariantOutput
+	 *            true to write the invariant model of the class to check
+	 *            (see <code>InvariantRunPlugin</code>) instead of the model
+	 *            of the method to check.
+	 */
+	public void setInvariantOutput(boolean invariantOutput) {
+		this.invariantOutput = invariantOutput;
+	}
+
 	public DynAlloyCompiler getCompiler() {
 		return compiler;
 	}
 
+	/**
+	 * The plugins are registered wrapped, so that every transformation is
+	 * timed in the <code>RunReport</code> of the run under the name of the
+	 * plugin class.
+	 */
+	private static DynAlloyASTPlugin timedDynAlloyPlugin(final DynAlloyASTPlugin plugin) {
+		return new DynAlloyASTPlugin() {
+			@Override
+			public DynalloyModule transform(DynalloyModule input) {
+				RunReport.Measurement measurement = RunReport.start("plugin", plugin.getClass().getSimpleName());
+				DynalloyModule output;
+				try {
+					output = plugin.transform(input);
+				} finally {
+					measurement.stop();
+				}
+				measurement.count("programs", output.getPrograms().size());
+				return output;
+			}
+		};
+	}
+
+	private static AlloyASTPlugin timedAlloyPlugin(final AlloyASTPlugin plugin) {
+		return new AlloyASTPlugin() {
+			@Override
+			public AlloyModule transform(AlloyModule input) {
+				RunReport.Measurement measurement = RunReport.start("plugin", plugin.getClass().getSimpleName());
+				try {
+					return plugin.transform(input);
+				} finally {
+					measurement.stop();
+				}
+			}
+		};
+	}
+
 }
@@ -39,4 +39,15 @@ public class FloatOpCounter {
 	public int div_count() {
 		return java_primitive_float_value_div;
 	}
+
+	/**
+	 * Adds <code>times</code> the counts of <code>other</code>.
+	 */
+	public void add(FloatOpCounter other, int times) {
+		java_primitive_float_value_mul += other.java_primitive_float_value_mul * times;
+		java_primitive_float_value_div += other.java_primitive_float_value_div * times;
+		java_primitive_float_value_add += other.java_primitive_float_value_add * times;
+		java_primitive_float_value_sub += other.java_primitive_float_value_sub * times;
+	}
+
 }
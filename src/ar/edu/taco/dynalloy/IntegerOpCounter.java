@@ -70,5 +70,17 @@ public class IntegerOpCounter {
 		return java_primitive_integer_value_narrowing_cast;
 	}
 
+	/**
+	 * Adds <code>times</code> the counts of <code>other</code>.
+	 */
+	public void add(IntegerOpCounter other, int times) {
+		java_primitive_integer_value_add += other.java_primitive_integer_value_add * times;
+		java_primitive_integer_value_sub += other.java_primitive_integer_value_sub * times;
+		java_primitive_integer_value_sshr += other.java_primitive_integer_value_sshr * times;
+		java_primitive_integer_value_mul += other.java_primitive_integer_value_mul * times;
+		java_primitive_integer_value_div_rem += other.java_primitive_integer_value_div_rem * times;
+		java_primitive_integer_value_cast_from_char += other.java_primitive_integer_value_cast_from_char * times;
+		java_primitive_integer_value_narrowing_cast += other.java_primitive_integer_value_narrowing_cast * times;
+	}
 
 }
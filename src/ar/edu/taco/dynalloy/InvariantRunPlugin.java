@@ -0,0 +1,103 @@
+package ar.edu.taco.dynalloy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+
+import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoException;
+import ar.edu.taco.utils.AlloyOutputSink;
+import ar.uba.dc.rfm.alloy.ast.AlloyModule;
+import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprConstant;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprJoin;
+import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
+import ar.uba.dc.rfm.alloy.ast.formulas.EqualsFormula;
+import ar.uba.dc.rfm.alloy.ast.formulas.PredicateFormula;
+import ar.uba.dc.rfm.alloy.util.ExpressionMutator;
+import ar.uba.dc.rfm.alloy.util.FormulaMutator;
+import ar.uba.dc.rfm.alloy.util.FormulaPrinter;
+import ar.uba.dc.rfm.dynalloy.plugin.AlloyASTPlugin;
+
+/**
+ * Turns the model of <code>generateInvariant()</code> into the invariant
+ * model (the <code>.inv</code> file). The precondition of generateInvariant()
+ * is taken out of the facts, and the only command of the model runs the
+ * object invariant of the class to check on the same arguments, except the
+ * thrown exception, with the scopes of the analysis.
+ *
+ * Registered after every other Alloy plugin, so the arguments are the ones
+ * of the final model.
+ */
+class InvariantRunPlugin implements AlloyASTPlugin {
+
+	private final AlloyOutputSink output_sink;
+
+	InvariantRunPlugin(AlloyOutputSink output_sink) {
+		this.output_sink = output_sink;
+	}
+
+	@Override
+	public AlloyModule transform(AlloyModule input) {
+		String class_to_check = TacoConfigurator.getInstance().getClassToCheck();
+		PreconditionRemover precondition_remover = new PreconditionRemover("precondition_" + class_to_check + "_generateInvariant");
+		// only the facts: the precondition may also be called from assertions
+		Vector<AlloyFormula> facts = new Vector<AlloyFormula>();
+		for (AlloyFormula fact : input.getFacts()) {
+			facts.add((AlloyFormula) fact.accept(precondition_remover));
+		}
+		AlloyModule output = new AlloyModule(input.getAlloyStr(), input.getGlobalSig(), facts, input.getAssertions());
+
+		List<AlloyExpression> precondition_arguments = precondition_remover.getArguments();
+		if (precondition_arguments == null) {
+			throw new TacoException("The precondition of generateInvariant() is not in the model of " + class_to_check);
+		}
+		List<AlloyExpression> invariant_arguments = new ArrayList<AlloyExpression>();
+		for (AlloyExpression argument : precondition_arguments) {
+			if (!isThrow(argument)) {
+				invariant_arguments.add(argument);
+			}
+		}
+
+		AlloyFormula object_invariant = new PredicateFormula(null, class_to_check + "_object_invariant", invariant_arguments);
+		String scope_of_analysis = TacoConfigurator.getInstance().getAssertionArguments();
+		output_sink.append("run {  " + object_invariant.accept(new FormulaPrinter()) + " } " + scope_of_analysis + "\n");
+		return output;
+	}
+
+	private static boolean isThrow(AlloyExpression argument) {
+		return argument instanceof ExprJoin && ((ExprJoin) argument).getRight().toString().startsWith("throw_");
+	}
+
+	/**
+	 * Replaces the precondition in the formulas it visits by
+	 * <code>QF = QF</code> and keeps its arguments.
+	 */
+	private static class PreconditionRemover extends FormulaMutator {
+
+		private final String precondition_id;
+
+		private List<AlloyExpression> arguments = null;
+
+		PreconditionRemover(String precondition_id) {
+			super(new ExpressionMutator());
+			this.precondition_id = precondition_id;
+		}
+
+		@Override
+		public Object visit(PredicateFormula n) {
+			if (n.getPredicateId().equals(precondition_id)) {
+				if (arguments == null) {
+					arguments = n.getParameters();
+				}
+				return new EqualsFormula(ExprConstant.buildExprConstant("QF"), ExprConstant.buildExprConstant("QF"));
+			}
+			return super.visit(n);
+		}
+
+		List<AlloyExpression> getArguments() {
+			return arguments;
+		}
+	}
+
+}
@@ -50,4 +50,15 @@ public class LongOpCounter {
 		return java_primitive_long_value_casts;
 	}
 
+	/**
+	 * Adds <code>times</code> the counts of <code>other</code>.
+	 */
+	public void add(LongOpCounter other, int times) {
+		java_primitive_long_value_add += other.java_primitive_long_value_add * times;
+		java_primitive_long_value_sub += other.java_primitive_long_value_sub * times;
+		java_primitive_long_value_mul += other.java_primitive_long_value_mul * times;
+		java_primitive_long_value_div_rem += other.java_primitive_long_value_div_rem * times;
+		java_primitive_long_value_casts += other.java_primitive_long_value_casts * times;
+	}
+
 }
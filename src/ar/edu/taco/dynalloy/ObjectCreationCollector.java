@@ -4,6 +4,7 @@ import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
 import ar.uba.dc.rfm.alloy.ast.formulas.FormulaVisitor;
 import ar.uba.dc.rfm.alloy.util.ExpressionPrinter;
 import ar.uba.dc.rfm.dynalloy.ast.programs.InvokeAction;
+import ar.uba.dc.rfm.dynalloy.ast.programs.InvokeProgram;
 import ar.uba.dc.rfm.dynalloy.ast.programs.TestPredicate;
 import ar.uba.dc.rfm.dynalloy.util.DfsProgramVisitor;
 
@@ -21,6 +22,24 @@ class ObjectCreationCollector extends DfsProgramVisitor {
 
 	private ObjectCreationCounter object_creation_counter = new ObjectCreationCounter();
 
+	private boolean skip_program_calls = false;
+
+	/**
+	 * Program calls are not visited, not even their actual parameters. Used
+	 * when the counts of the called programs are added separately.
+	 */
+	void skipProgramCalls() {
+		this.skip_program_calls = true;
+	}
+
+	@Override
+	public Object visit(InvokeProgram u) {
+		if (skip_program_calls) {
+			return null;
+		}
+		return super.visit(u);
+	}
+
 	@Override
 	public Object visit(InvokeAction u) {
 		if (u.getActionId().equals(GET_UNUSED_OBJECT)) {
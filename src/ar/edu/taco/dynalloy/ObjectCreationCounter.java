@@ -24,4 +24,14 @@ public class ObjectCreationCounter {
 	public int getAllocationCount(String signature_id) {
 		return allocations.get(signature_id);
 	}
+
+	/**
+	 * Adds <code>times</code> the allocations counted by <code>other</code>.
+	 */
+	public void add(ObjectCreationCounter other, int times) {
+		for (String type_str : other.signatureSet()) {
+			int alloc_counter = this.allocations.containsKey(type_str) ? this.allocations.get(type_str) : 0;
+			this.allocations.put(type_str, alloc_counter + other.getAllocationCount(type_str) * times);
+		}
+	}
 }
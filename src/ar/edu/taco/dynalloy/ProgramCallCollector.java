@@ -0,0 +1,34 @@
+package ar.edu.taco.dynalloy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import ar.uba.dc.rfm.alloy.ast.formulas.FormulaVisitor;
+import ar.uba.dc.rfm.dynalloy.ast.programs.InvokeProgram;
+import ar.uba.dc.rfm.dynalloy.util.DfsProgramVisitor;
+
+/**
+ * Counts how many times each program is called from the visited program.
+ * The called programs are not visited.
+ */
+class ProgramCallCollector extends DfsProgramVisitor {
+
+	private Map<String, Integer> program_calls = new HashMap<String, Integer>();
+
+	public ProgramCallCollector() {
+		super(new FormulaVisitor());
+	}
+
+	@Override
+	public Object visit(InvokeProgram u) {
+		String called_program_id = u.getProgramId();
+		Integer call_count = program_calls.get(called_program_id);
+		program_calls.put(called_program_id, call_count == null ? 1 : call_count + 1);
+		return null;
+	}
+
+	public Map<String, Integer> getProgramCalls() {
+		return program_calls;
+	}
+
+}
@@ -0,0 +1,35 @@
+package ar.edu.taco.dynalloy;
+
+/**
+ * Allocations and arithmetic operations of a program with its loops
+ * unrolled, including the ones of every program it calls. It is what the
+ * collectors would count on the program with every call inlined.
+ */
+class ProgramScopeSummary {
+
+	private final ObjectCreationCounter object_creation_counter;
+
+	private final ArithmeticOpCounter arithmetic_op_counter;
+
+	public ProgramScopeSummary(ObjectCreationCounter object_creation_counter, ArithmeticOpCounter arithmetic_op_counter) {
+		this.object_creation_counter = object_creation_counter;
+		this.arithmetic_op_counter = arithmetic_op_counter;
+	}
+
+	/**
+	 * Adds the summary of a program called <code>call_count</code> times.
+	 */
+	public void add(ProgramScopeSummary called_program_summary, int call_count) {
+		object_creation_counter.add(called_program_summary.object_creation_counter, call_count);
+		arithmetic_op_counter.add(called_program_summary.arithmetic_op_counter, call_count);
+	}
+
+	public ObjectCreationCounter getObjectCreationCounter() {
+		return object_creation_counter;
+	}
+
+	public ArithmeticOpCounter getArithmeticOpCounter() {
+		return arithmetic_op_counter;
+	}
+
+}
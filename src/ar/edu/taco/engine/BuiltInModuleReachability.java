@@ -0,0 +1,229 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ar.edu.jdynalloy.ast.JDynAlloyModule;
+import ar.edu.taco.TacoException;
+import ar.edu.taco.simplejml.JavaToJDynAlloyManager;
+import ar.edu.taco.simplejml.builtin.IBuiltInModule;
+
+/**
+ * Decides which built-in modules are reachable from the modules under
+ * analysis.
+ * 
+ * A built-in module is reachable if one of its module ids, or a name
+ * qualified by it (a field, a program), appears in the JDynAlloy source of a
+ * root or of another reachable built-in module. Superclasses, field types,
+ * called programs and thrown exceptions are all found this way.
+ * 
+ * Static fields are not roots: the static fields module declares the static
+ * fields of every built-in module that was built. A static field is followed
+ * only if it is referenced, or if it belongs to a reachable built-in module or
+ * to no built-in module at all.
+ */
+class BuiltInModuleReachability {
+
+	private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z$][A-Za-z0-9_$]*");
+
+	private static final Pattern MODULE_DECLARATION = Pattern.compile("^\\s*module\\s+([A-Za-z0-9_$]+)", Pattern.MULTILINE);
+
+	/**
+	 * Every referenced identifier and every '_' separated prefix of it.
+	 */
+	private final Set<String> referenced = new HashSet<String>();
+
+	/**
+	 * The type of every static field that wasn't followed yet.
+	 */
+	private final Map<String, String> pendingStaticFields = new LinkedHashMap<String, String>();
+
+	private final Set<String> reachableStaticFields = new HashSet<String>();
+
+	void addRoot(JDynAlloyModule module) {
+		addReferences(JavaToJDynAlloyManager.getModuleOutput(module));
+	}
+
+	void addRoot(String source) {
+		addReferences(source);
+	}
+
+	void addStaticField(String name, String type) {
+		pendingStaticFields.put(name, type);
+	}
+
+	/**
+	 * Whether the given static field was followed by the last call to
+	 * retainReachable. The others belong to pruned built-in modules.
+	 */
+	boolean isReachableStaticField(String name) {
+		return reachableStaticFields.contains(name);
+	}
+
+	/**
+	 * Removes the unreachable built-in modules and resources from the given
+	 * lists. Pinned modules and resources are always kept and their
+	 * references are followed.
+	 */
+	void retainReachable(List<IBuiltInModule> builtInModules, List<String> resources, Collection<IBuiltInModule> pinnedModules,
+			Collection<String> pinnedResources) {
+
+		Set<String> builtInModuleIds = new HashSet<String>();
+		Set<String> reachableModuleIds = new HashSet<String>();
+		List<IBuiltInModule> pendingModules = new LinkedList<IBuiltInModule>();
+		for (IBuiltInModule builtInModule : builtInModules) {
+			String moduleId = builtInModule.getModule().getModuleId();
+			builtInModuleIds.add(moduleId);
+			if (pinnedModules.contains(builtInModule)) {
+				reachableModuleIds.add(moduleId);
+				addRoot(builtInModule.getModule());
+			} else {
+				pendingModules.add(builtInModule);
+			}
+		}
+		Map<String, String> pendingResources = new LinkedHashMap<String, String>();
+		for (String resource : resources) {
+			String source = readResource(resource);
+			builtInModuleIds.addAll(declaredModules(source));
+			if (pinnedResources.contains(resource)) {
+				reachableModuleIds.addAll(declaredModules(source));
+				addReferences(source);
+			} else {
+				pendingResources.put(resource, source);
+			}
+		}
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (Iterator<IBuiltInModule> it = pendingModules.iterator(); it.hasNext();) {
+				JDynAlloyModule module = it.next().getModule();
+				if (referenced.contains(module.getModuleId())) {
+					it.remove();
+					reachableModuleIds.add(module.getModuleId());
+					addRoot(module);
+					changed = true;
+				}
+			}
+			for (Iterator<String> it = pendingResources.values().iterator(); it.hasNext();) {
+				String source = it.next();
+				if (declaresReferencedModule(source)) {
+					it.remove();
+					reachableModuleIds.addAll(declaredModules(source));
+					addReferences(source);
+					changed = true;
+				}
+			}
+			for (Iterator<Map.Entry<String, String>> it = pendingStaticFields.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<String, String> staticField = it.next();
+				String name = staticField.getKey();
+				if (referenced.contains(name) || qualifiedByAny(name, reachableModuleIds)
+						|| !qualifiedByAny(name, builtInModuleIds)) {
+					it.remove();
+					reachableStaticFields.add(name);
+					addReferences(staticField.getValue());
+					changed = true;
+				}
+			}
+		}
+
+		builtInModules.removeAll(pendingModules);
+		resources.removeAll(pendingResources.keySet());
+	}
+
+	private boolean declaresReferencedModule(String source) {
+		Matcher matcher = MODULE_DECLARATION.matcher(source);
+		while (matcher.find()) {
+			if (referenced.contains(matcher.group(1))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Set<String> declaredModules(String source) {
+		Set<String> moduleIds = new HashSet<String>();
+		Matcher matcher = MODULE_DECLARATION.matcher(source);
+		while (matcher.find()) {
+			moduleIds.add(matcher.group(1));
+		}
+		return moduleIds;
+	}
+
+	private static boolean qualifiedByAny(String name, Set<String> moduleIds) {
+		for (String moduleId : moduleIds) {
+			if (name.startsWith(moduleId + "_")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void addReferences(String source) {
+		Matcher matcher = IDENTIFIER.matcher(source);
+		while (matcher.find()) {
+			String identifier = matcher.group();
+			if (referenced.add(identifier)) {
+				int separator = identifier.indexOf('_');
+				while (separator > 0) {
+					referenced.add(identifier.substring(0, separator));
+					separator = identifier.indexOf('_', separator + 1);
+				}
+			}
+		}
+	}
+
+	private static String readResource(String resource) {
+		InputStream in = BuiltInModuleReachability.class.getClassLoader().getResourceAsStream(resource);
+		if (in == null) {
+			// the parser reports missing resources
+			return "";
+		}
+		try {
+			try {
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					content.write(buffer, 0, read);
+				}
+				return content.toString("UTF-8");
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new TacoException("resource " + resource + " couldn't be read: " + e.getMessage());
+		}
+	}
+
+}
@@ -29,9 +29,12 @@ import java.util.List;
 import ar.edu.jdynalloy.ast.JDynAlloyModule;
 import ar.edu.jdynalloy.xlator.JType;
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoContext;
+import ar.edu.taco.alloy.bound.UBoundGenerator;
 import ar.edu.taco.dynalloy.DynalloyToAlloyManager;
 import ar.edu.taco.simplejml.helpers.JavaClassNameNormalizer;
 import ar.edu.taco.utils.FileUtils;
+import ar.edu.taco.utils.RunReport;
 import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
 import ar.uba.dc.rfm.alloy.ast.expressions.ExprVariable;
@@ -43,6 +46,8 @@ public class DynalloyStage implements ITacoStage {
 
 	static final private String OUTPUT_ALLOY_EXTENSION = ".als";
 
+	static final private String OUTPUT_INVARIANT_EXTENSION = ".inv";
+
 	List<String> inputDynalloyModulesFileNames;
 
 	private String alloy_filename;
@@ -102,15 +107,30 @@ public class DynalloyStage implements ITacoStage {
 		//Add the name of the methd under analysis with its typing
 		newOutputName += TacoConfigurator.getInstance().getMethodToCheck();
 
-		alloy_filename = output_dir + java.io.File.separator + newOutputName + OUTPUT_ALLOY_EXTENSION;
-
+		// generateInvariant() is only translated for its invariant model
 		String theMethodToCheck = TacoConfigurator.getInstance().getMethodToCheck();
-		if (theMethodToCheck.endsWith("generateInvariant()")) {
-			TacoConfigurator.setGeneratedInvariantFilename(alloy_filename);
+		boolean invariantOutput = theMethodToCheck.endsWith("generateInvariant()");
+		if (invariantOutput) {
+			alloy_filename = output_dir + java.io.File.separator + newOutputName + OUTPUT_INVARIANT_EXTENSION;
+			TacoContext context = TacoContext.getCurrent();
+			if (context != null) {
+				context.setGeneratedInvariantFilename(alloy_filename);
+			}
+		} else {
+			alloy_filename = output_dir + java.io.File.separator + newOutputName + OUTPUT_ALLOY_EXTENSION;
+		}
+		dynalloyToAlloyManager.setInvariantOutput(invariantOutput);
+
+		// DynAlloyCompiler only compiles from a file, so the modules of
+		// JDynAlloyStage are printed to output.dals and parsed again here
+		// even though they are already DynalloyModule ASTs
+		String dynalloy_filename;
+		if (inputDynalloyModulesFileNames != null && !inputDynalloyModulesFileNames.isEmpty()) {
+			dynalloy_filename = inputDynalloyModulesFileNames.get(0);
+		} else {
+			dynalloy_filename = output_dir + java.io.File.separator + "output.dals";
+			inputDynalloyModulesFileNames = Collections.singletonList(dynalloy_filename);
 		}
-
-		String dynalloy_filename = output_dir + java.io.File.separator + "output.dals";
-		inputDynalloyModulesFileNames = Collections.singletonList(dynalloy_filename);
 
 		JavaClassNameNormalizer classToCheckNormalizer = new JavaClassNameNormalizer(TacoConfigurator.getInstance().getString(
 				TacoConfigurator.CLASS_TO_CHECK_FIELD));
@@ -126,6 +146,10 @@ public class DynalloyStage implements ITacoStage {
 				predsComingFromArithmeticConstraintsInObjectInvariantsByModule,
 				varsAndTheirTypesComingFromArithmeticConstraintsInContractsByProgram,
 				predsComingFromArithmeticConstraintsInContractsByProgram);
+		RunReport.getInstance().setAlloyFilename(alloy_filename);
+		if (invariantOutput && config.getGenerateTightUpperBounds()) {
+			upper_bound_request = UBoundGenerator.fromInvariantModel(alloy_filename, this.src_jdynalloy_modules);
+		}
 
 //		File outputFileToDelete = new File(dynalloy_filename);
 //		if(outputFileToDelete.exists()){
@@ -137,6 +161,16 @@ public class DynalloyStage implements ITacoStage {
 		return alloy_filename;
 	}
 
+	private UBoundGenerator.Request upper_bound_request;
+
+	/**
+	 * @return the tight upper bounds to generate from the invariant model
+	 *         just written, or null.
+	 */
+	public UBoundGenerator.Request getUpperBoundRequest() {
+		return upper_bound_request;
+	}
+
 
 	private List<JDynAlloyModule> src_jdynalloy_modules;
 
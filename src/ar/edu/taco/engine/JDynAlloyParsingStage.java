@@ -22,10 +22,14 @@ package ar.edu.taco.engine;
 
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.TacoException;
@@ -40,7 +44,50 @@ import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.AlloyVariable;
 import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
 
+/**
+ * Parses the JDynAlloy input files and the built-in module resources.
+ * 
+ * Program bodies can only be parsed once the fields of every module are
+ * known. The first time some sources are parsed in the process, a
+ * declarations pass collects their fields. Later parses of the same sources,
+ * in this job or any other, use the fields they declared the last time and
+ * skip that pass; they parse again only if the collected fields turn out to
+ * be different.
+ */
 public class JDynAlloyParsingStage implements ITacoStage {
+
+	/**
+	 * Fields declared by the parsed sources, by the sources they were parsed
+	 * from. Only used to guess the parsing context, so an entry left behind
+	 * by sources that changed since costs a parse, never a wrong result.
+	 * Every job of the process shares it, as batch jobs and sweeps translate
+	 * the same built-in modules over and over.
+	 */
+	private static final class DeclaredFields {
+		private static final int MAX_ENTRIES = 64;
+
+		private static final Map<String, Set<String>> bySources = new LinkedHashMap<String, Set<String>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Set<String>> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+
+		static Set<String> get(String sourcesKey) {
+			synchronized (bySources) {
+				return bySources.get(sourcesKey);
+			}
+		}
+
+		static void put(String sourcesKey, Set<String> fields) {
+			synchronized (bySources) {
+				bySources.put(sourcesKey, Collections.unmodifiableSet(fields));
+			}
+		}
+	}
+
 	private List<JDynAlloyModule> parsedModules;
 	private List<JDynAlloyModule> givenModules;
 	private boolean javaArithmetic;
@@ -67,33 +114,34 @@ public class JDynAlloyParsingStage implements ITacoStage {
 	public void execute() {
 
 		try {
-			// first pass
-			List<JDynAlloyModule> firstPassModules = new ArrayList<JDynAlloyModule>();
-			makeParserPass(firstPassModules, null);
-			firstPassModules.addAll(this.givenModules);
-
-			// retrieve all fields
-			SymbolTable symbolTable = new SymbolTable();
-			boolean isJavaArithmetic = TacoConfigurator.getInstance().getUseJavaArithmetic();
-			symbolTable.setJavaArithmetic(isJavaArithmetic);
-			FieldCollectorVisitor fieldCollectorVisitor = new FieldCollectorVisitor(symbolTable, TacoConfigurator.getInstance().getUseJavaArithmetic());
-			for (JDynAlloyModule aModule : firstPassModules) {
-				aModule.accept(fieldCollectorVisitor);
-				
+			List<String> sourceFiles = getSourceFiles();
+			Set<String> resourceFiles = TacoConfigurator.getInstance().getJDynAlloyParserInputResources();
+			// the fields collected depend on the arithmetic mode as well
+			String sourcesKey = sourceFiles.toString() + new TreeSet<String>(resourceFiles) + "javaArithmetic="
+					+ TacoConfigurator.getInstance().getUseJavaArithmetic();
+
+			Set<String> givenFields = collectFields(this.givenModules);
+			Set<String> contextFields = new TreeSet<String>(givenFields);
+			Set<String> knownFields = DeclaredFields.get(sourcesKey);
+			if (knownFields == null) {
+				// declarations pass
+				knownFields = collectFields(makeParserPass(sourceFiles, resourceFiles, null));
 			}
+			contextFields.addAll(knownFields);
 
-			Set<AlloyVariable> fields = new HashSet<AlloyVariable>();
-			for (FieldDescriptor fieldDescriptor : symbolTable.getFieldSet()) {
-				String aFieldName = fieldDescriptor.getFieldName();
-				AlloyVariable variable = AlloyVariable.buildAlloyVariable(aFieldName);
-				fields.add(variable);
-			}
-
-			// create new context
-			JDynAlloyProgramParseContext ctx = new JDynAlloyProgramParseContext(new HashSet<AlloyVariable>(), fields, true);
+			List<JDynAlloyModule> modules = makeParserPass(sourceFiles, resourceFiles, contextFields);
 
-			// second pass modules
-			makeParserPass(this.parsedModules, ctx);
+			// retrieve all fields
+			Set<String> declaredFields = collectFields(modules);
+			DeclaredFields.put(sourcesKey, declaredFields);
+			Set<String> fields = new TreeSet<String>(givenFields);
+			fields.addAll(declaredFields);
+
+			if (!fields.equals(contextFields)) {
+				// the parsing context missed fields, parse with the right one
+				modules = makeParserPass(sourceFiles, resourceFiles, fields);
+			}
+			this.parsedModules.addAll(modules);
 
 		} catch (FileNotFoundException e) {
 			throw new TacoException(e);
@@ -102,8 +150,44 @@ public class JDynAlloyParsingStage implements ITacoStage {
 	}
 
 	@SuppressWarnings("unchecked")
-	private void makeParserPass(List<JDynAlloyModule> resultModules, JDynAlloyProgramParseContext ctx) throws JDynAlloyParsingException, FileNotFoundException {
-		List<String> sourceFiles = (List<String>)TacoConfigurator.getInstance().getList(TacoConfigurator.JDYNALLOY_PARSER_INPUT_FILES, new ArrayList<String>());
+	private static List<String> getSourceFiles() {
+		return (List<String>) TacoConfigurator.getInstance().getList(TacoConfigurator.JDYNALLOY_PARSER_INPUT_FILES, new ArrayList<String>());
+	}
+
+	private static Set<String> collectFields(List<JDynAlloyModule> modules) {
+		SymbolTable symbolTable = new SymbolTable();
+		boolean isJavaArithmetic = TacoConfigurator.getInstance().getUseJavaArithmetic();
+		symbolTable.setJavaArithmetic(isJavaArithmetic);
+		FieldCollectorVisitor fieldCollectorVisitor = new FieldCollectorVisitor(symbolTable, isJavaArithmetic);
+		for (JDynAlloyModule aModule : modules) {
+			aModule.accept(fieldCollectorVisitor);
+		}
+
+		Set<String> fields = new TreeSet<String>();
+		for (FieldDescriptor fieldDescriptor : symbolTable.getFieldSet()) {
+			fields.add(fieldDescriptor.getFieldName());
+		}
+		return fields;
+	}
+
+	/**
+	 * @param fields
+	 *            the fields of the parsing context, or null for a
+	 *            declarations pass.
+	 */
+	private List<JDynAlloyModule> makeParserPass(List<String> sourceFiles, Set<String> resourceFiles, Set<String> fields) throws JDynAlloyParsingException, FileNotFoundException {
+		JDynAlloyProgramParseContext ctx = null;
+		if (fields != null) {
+			Set<AlloyVariable> fieldVariables = new HashSet<AlloyVariable>();
+			for (String aFieldName : fields) {
+				fieldVariables.add(AlloyVariable.buildAlloyVariable(aFieldName));
+			}
+
+			// create new context
+			ctx = new JDynAlloyProgramParseContext(new HashSet<AlloyVariable>(), fieldVariables, true);
+		}
+
+		List<JDynAlloyModule> resultModules = new ArrayList<JDynAlloyModule>();
 		for (String jDynalloySourceFile : sourceFiles) {
 			List<JDynAlloyModule> parsedModules = JDynAlloyParserManager.parseModulesFile(jDynalloySourceFile, ctx);
 			parsedModules.get(0).setPredsEncodingValueOfArithmeticOperationsInObjectInvariants(new LinkedList<AlloyFormula>());
@@ -111,10 +195,33 @@ public class JDynAlloyParsingStage implements ITacoStage {
 			resultModules.addAll(parsedModules);
 		}
 
-		Set<String> resourceFiles = TacoConfigurator.getInstance().getJDynAlloyParserInputResources();
-		for (String jDynalloySourceFile : resourceFiles) {
-			List<JDynAlloyModule> parsedModules = JDynAlloyParserManager.parseModulesResource(jDynalloySourceFile, ctx);
-			resultModules.addAll(parsedModules);
+		resultModules.addAll(parseResources(resourceFiles, ctx, fields));
+		return resultModules;
+	}
+
+	/**
+	 * Parses the built-in module resources, or loads them from a snapshot of
+	 * a previous parse with the same resources, fields and flags.
+	 */
+	private List<JDynAlloyModule> parseResources(Set<String> resourceFiles, JDynAlloyProgramParseContext ctx, Set<String> fields)
+			throws JDynAlloyParsingException, FileNotFoundException {
+		PrecompiledModuleSnapshots snapshots = PrecompiledModuleSnapshots.getInstance();
+		String snapshotDir = TacoConfigurator.getInstance().getPrecompiledModulesSnapshotDir();
+
+		// the parsing context decides which identifiers are fields
+		String pass = fields == null ? "declarations" : "fields" + fields;
+		String flags = "javaArithmetic=" + TacoConfigurator.getInstance().getUseJavaArithmetic();
+		String key = snapshots.key(pass, resourceFiles, flags);
+
+		List<JDynAlloyModule> modules = snapshots.load(key, snapshotDir);
+		if (modules == null) {
+			modules = new ArrayList<JDynAlloyModule>();
+			for (String jDynalloySourceFile : resourceFiles) {
+				List<JDynAlloyModule> parsedModules = JDynAlloyParserManager.parseModulesResource(jDynalloySourceFile, ctx);
+				modules.addAll(parsedModules);
+			}
+			snapshots.store(key, modules, snapshotDir);
 		}
+		return modules;
 	}
 }
@@ -1,40 +1,41 @@
 package ar.edu.taco.engine;
 
-import java.io.IOException;
 import java.util.List;
 
 import ar.edu.jdynalloy.ast.JDynAlloyModule;
 import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.simplejml.JavaToJDynAlloyManager;
-import ar.edu.taco.utils.FileUtils;
+import ar.edu.taco.utils.BackgroundFileWriter;
 
 public class JDynAlloyPrinterStage implements ITacoStage {
 
 	private List<JDynAlloyModule> modules;
 
+	// read when the stage is built, like the modules
+	private final String outputDir;
+	private final boolean javaArithmetic;
+
 	public JDynAlloyPrinterStage(List<JDynAlloyModule> modules) {
 		this.modules = modules;
+		this.outputDir = TacoConfigurator.getInstance().getOutputDir();
+		this.javaArithmetic = TacoConfigurator.getInstance().getUseJavaArithmetic();
 	}
 
+	/**
+	 * Renders the modules and queues the files on the
+	 * <code>BackgroundFileWriter</code>. Printing the modules reads the
+	 * JDynAlloy registries, so they are rendered right away, before later
+	 * stages update the registries; the files are written while those stages
+	 * run, and the run waits for them when it flushes its writes.
+	 */
 	@Override
 	public void execute() {
 		for (JDynAlloyModule module : modules) {
-			printToFile(module);
-		}
-
-	}
-
-	private static void printToFile(JDynAlloyModule module) {
-		String output_dir = TacoConfigurator.getInstance().getOutputDir();
-		String filename = output_dir + java.io.File.separator
-				+ module.getModuleId().replaceAll("_", "/");
-		try {
+			String filename = outputDir + java.io.File.separator
+					+ module.getModuleId().replaceAll("_", "/");
 			String moduleOutput = JavaToJDynAlloyManager
-					.getModuleOutput(module);
-			String completeOutputFileName = filename + SimpleJmlStage.OUTPUT_JDYNALLOY_EXTENSION;
-			FileUtils.writeToFile(completeOutputFileName, moduleOutput);
-		} catch (IOException e) {
-			e.printStackTrace();
+					.getModuleOutput(module, javaArithmetic);
+			BackgroundFileWriter.getInstance().write(filename + SimpleJmlStage.OUTPUT_JDYNALLOY_EXTENSION, moduleOutput);
 		}
 	}
 
@@ -19,7 +19,9 @@
  */
 package ar.edu.taco.engine;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -35,7 +37,10 @@ import ar.edu.jdynalloy.xlator.JDynAlloyBinding;
 import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.jdynalloy.JDynAlloyToDynAlloyManager;
 import ar.edu.taco.simplejml.JavaToJDynAlloyManager;
+import ar.edu.taco.utils.AlloyOutputSink;
+import ar.edu.taco.utils.BackgroundFileWriter;
 import ar.edu.taco.utils.FileUtils;
+import ar.edu.taco.utils.RunReport;
 import ar.uba.dc.rfm.dynalloy.ast.DynalloyModule;
 
 /**
@@ -112,7 +117,13 @@ public class JDynAlloyStage implements ITacoStage {
 			relevancyAnalysisManager.setBitWidth(TacoConfigurator.getInstance().getBitwidth());
 			relevancyAnalysisManager.setJavaArithmetic(tacoConfigurator.getUseJavaArithmetic());
 			boolean isJavaArithmetic = tacoConfigurator.getUseJavaArithmetic();
-			String relevantClasses = relevancyAnalysisManager.process(this.modules, dynJAlloyBinding, isJavaArithmetic);
+			RunReport.Measurement relevancyAnalysis = RunReport.start("analysis", "RelevancyAnalysisManager");
+			String relevantClasses;
+			try {
+				relevantClasses = relevancyAnalysisManager.process(this.modules, dynJAlloyBinding, isJavaArithmetic);
+			} finally {
+				relevancyAnalysis.stop();
+			}
 
 			relevantAnalysisScene = relevancyAnalysisManager.getScene();
 
@@ -123,12 +134,24 @@ public class JDynAlloyStage implements ITacoStage {
 		// slice irrelevant modules, fields & programs
 		if (relevantClassesList != null && relevantAnalysisScene != null) {
 			SceneSlicerManager sceneSlicerManager = new SceneSlicerManager();
-			this.modules = sceneSlicerManager.process(this.modules, relevantClassesList, relevantAnalysisScene);
+			RunReport.Measurement slicing = RunReport.start("analysis", "SceneSlicerManager");
+			try {
+				this.modules = sceneSlicerManager.process(this.modules, relevantClassesList, relevantAnalysisScene);
+			} finally {
+				slicing.stop();
+			}
+			slicing.count("modules", this.modules.size());
 		}
 
 		// Modifies Solver
 		ModifiesSolverManager modifiesSolverManager = new ModifiesSolverManager();
-		this.modules = modifiesSolverManager.process(this.modules, (JDynAlloyBinding) null, TacoConfigurator.getInstance().getUseJavaArithmetic());
+		RunReport.Measurement modifiesSolving = RunReport.start("analysis", "ModifiesSolverManager");
+		try {
+			this.modules = modifiesSolverManager.process(this.modules, (JDynAlloyBinding) null, TacoConfigurator.getInstance().getUseJavaArithmetic());
+		} finally {
+			modifiesSolving.stop();
+		}
+		modifiesSolving.count("modules", this.modules.size());
 
 
 
@@ -147,10 +170,18 @@ public class JDynAlloyStage implements ITacoStage {
 //		dynJAlloyBinding = regenerateBindings(tacoConfigurator.getDynAlloyToAlloyLoopUnroll());
 
 		JDynAlloyToDynAlloyManager dynJAlloyToDynAlloyManager = new JDynAlloyToDynAlloyManager(this.classToCheck, this.methodToCheck, inputToFix);
-		Map<String, String> output = dynJAlloyToDynAlloyManager.process(this.modules, dynJAlloyBinding);
+		RunReport.Measurement translation = RunReport.start("translation", "JDynAlloyToDynAlloyManager");
+		Map<String, String> output;
+		try {
+			output = dynJAlloyToDynAlloyManager.process(this.modules, dynJAlloyBinding);
+		} finally {
+			translation.stop();
+		}
 
 		this.generatedModules = dynJAlloyToDynAlloyManager.getDynalloyModules();
 
+		// the DynAlloy compiler only reads output.dals, nothing waits for the
+		// per module files
 		for (Entry<String, String> entry : output.entrySet()) {
 			String moduleName = entry.getKey();
 			String moduleBody = entry.getValue();
@@ -158,12 +189,7 @@ public class JDynAlloyStage implements ITacoStage {
 			String output_dir = TacoConfigurator.getInstance().getOutputDir();
 
 			String moduleFilename = output_dir + java.io.File.separator + moduleName.replaceAll("_", "/") + OUTPUT_DYNALLOY_EXTENSION;
-			try {
-				FileUtils.writeToFile(moduleFilename, moduleBody);
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-
+			BackgroundFileWriter.getInstance().write(moduleFilename, moduleBody);
 		}
 
 //mfrias-mffrias 04082013: place where collected preds and vars can be updated in the structure.
@@ -181,6 +207,7 @@ public class JDynAlloyStage implements ITacoStage {
 
 		// add to output current dynalloy module
 		outputFileNames.add(filename);
+		translation.count("outputBytes", new File(filename).length());
 
 	}
 
@@ -196,28 +223,28 @@ public class JDynAlloyStage implements ITacoStage {
 	}
 
 	private void writeDynAlloyOutput(String path, Map<String, String> output) throws IOException {
-
-		StringBuffer sb = new StringBuffer();
-
-		// the firt entry must be the prelude entry
-		String preludeModuleBody = output.get("prelude");
-		appendModule(sb, "prelude", preludeModuleBody);
-
-		for (Entry<String, String> outputEntry : output.entrySet()) {
-			// skip prelude entry
-			if (!outputEntry.getKey().equals("prelude")) {
-				String moduleHeader = outputEntry.getKey();
-				String moduleBody = outputEntry.getValue();
-				appendModule(sb, moduleHeader, moduleBody);
+		Writer writer = AlloyOutputSink.openWriter(path, false);
+		try {
+			// the firt entry must be the prelude entry
+			String preludeModuleBody = output.get("prelude");
+			writeModule(writer, "prelude", preludeModuleBody);
+
+			for (Entry<String, String> outputEntry : output.entrySet()) {
+				// skip prelude entry
+				if (!outputEntry.getKey().equals("prelude")) {
+					String moduleHeader = outputEntry.getKey();
+					String moduleBody = outputEntry.getValue();
+					writeModule(writer, moduleHeader, moduleBody);
+				}
 			}
+		} finally {
+			writer.close();
 		}
-
-		FileUtils.writeToFile(path, sb.toString());
 	}
 
-	private void appendModule(StringBuffer sb, String moduleHeader, String moduleBody) {
-		sb.append(headerComment(moduleHeader));
-		sb.append(moduleBody);
+	private void writeModule(Writer writer, String moduleHeader, String moduleBody) throws IOException {
+		writer.write(headerComment(moduleHeader));
+		writer.write(moduleBody);
 	}
 
 	private String headerComment(String fragmentId) {
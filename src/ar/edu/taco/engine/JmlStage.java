@@ -21,20 +21,32 @@ package ar.edu.taco.engine;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.jmlspecs.checker.JmlTypeDeclaration;
 import org.jmlspecs.jmlrac.JavaAndJmlPrettyPrint2;
 import org.multijava.mjc.JCompilationUnitType;
 import org.multijava.mjc.JTypeDeclarationType;
 
+import ar.edu.taco.ArtifactDumpPolicy;
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoContext;
 import ar.edu.taco.TacoException;
 import ar.edu.taco.jml.ASTSimplifierManager;
 import ar.edu.taco.jml.JmlToSimpleJmlContext;
 import ar.edu.taco.jml.parser.JmlParser;
+import ar.edu.taco.utils.BackgroundFileWriter;
 import ar.edu.taco.utils.FileUtils;
+import ar.edu.taco.utils.FreshNameSupply;
 
 /**
  * @author ggasser
@@ -59,33 +71,70 @@ public class JmlStage implements ITacoStage {
 		this.jmlToSimpleJmlContext = null;
 	}
 
+	/**
+	 * Simplifies a single compilation unit with its own simplifiers and its
+	 * own part of the name supply, so units can be simplified in any order.
+	 */
+	private static class UnitSimplification implements Callable<List<JCompilationUnitType>> {
+		private final JCompilationUnitType compilation_unit;
+		private final TacoContext context;
+		private final FreshNameSupply name_supply;
+		private final ASTSimplifierManager simplifier_manager = new ASTSimplifierManager();
+
+		UnitSimplification(JCompilationUnitType compilation_unit, TacoContext context, FreshNameSupply name_supply) {
+			this.compilation_unit = compilation_unit;
+			this.context = context;
+			this.name_supply = name_supply;
+		}
+
+		@Override
+		public List<JCompilationUnitType> call() {
+			TacoContext previous_context = TacoContext.enter(context);
+			FreshNameSupply previous_name_supply = FreshNameSupply.enter(name_supply);
+			try {
+				return simplifier_manager.simplify(compilation_unit);
+			} finally {
+				FreshNameSupply.exit(previous_name_supply);
+				TacoContext.exit(previous_context);
+			}
+		}
+	}
+
 	@Override
 	public void execute() {
-		ASTSimplifierManager aAstSimplifierManager = new ASTSimplifierManager();
-
-		List<JCompilationUnitType> newAsts = simplify_compilation_units(aAstSimplifierManager);
+		List<UnitSimplification> simplifications = new ArrayList<UnitSimplification>();
+		FreshNameSupply name_supply = FreshNameSupply.getInstance();
+		List<FreshNameSupply> name_supplies = name_supply.split(this.compilation_units.size());
+		for (int i = 0; i < this.compilation_units.size(); i++) {
+			simplifications.add(new UnitSimplification(this.compilation_units.get(i), TacoContext.getCurrent(), name_supplies.get(i)));
+		}
 
-		List<String> files = write_simplified_compilation_units(newAsts);
+		List<JCompilationUnitType> newAsts = simplify_compilation_units(simplifications);
+		name_supply.join(name_supplies);
 
-		parse_simplified_compilation_units(files);
+		jmlToSimpleJmlContext = new JmlToSimpleJmlContext();
+		for (UnitSimplification simplification : simplifications) {
+			jmlToSimpleJmlContext.merge(simplification.simplifier_manager.getJmlToSimpleJmlContext());
+		}
 
-		jmlToSimpleJmlContext = aAstSimplifierManager.getJmlToSimpleJmlContext();
-	}
+		Map<String, String> sources = print_simplified_compilation_units(newAsts);
 
-	private void parse_simplified_compilation_units(List<String> files) {
-		String canonical_outdir_path;
-		try {
-			String path = TacoConfigurator.getInstance().getOutputDir() ;
-			File output_dir = new File(path);
-			output_dir.mkdir();
-			canonical_outdir_path = output_dir.getCanonicalPath();
-		} catch (IOException e) {
-			throw new TacoException("canonical path couldn't be computed " + e.getMessage());
+		String source_path;
+		if (TacoConfigurator.getInstance().getParseSimplifiedSourcesInMemory()) {
+			if (TacoConfigurator.getInstance().getArtifactDumpPolicy() != ArtifactDumpPolicy.NONE) {
+				dump_simplified_compilation_units(sources);
+			}
+			source_path = SimplifiedSourceBuffer.getInstance().store(sources);
+		} else {
+			source_path = write_simplified_compilation_units(sources);
 		}
 
+		parse_simplified_compilation_units(source_path, new ArrayList<String>(sources.keySet()));
+	}
 
-		JmlParser theParserInstance = new JmlParser().getInstance();
-		theParserInstance.initialize(canonical_outdir_path, System.getProperty("user.dir") + System.getProperty("file.separator") + "bin" /* Unused */,
+	private void parse_simplified_compilation_units(String source_path, List<String> files) {
+		JmlParser theParserInstance = JmlParser.getInstance();
+		theParserInstance.initialize(source_path, System.getProperty("user.dir") + System.getProperty("file.separator") + "bin" /* Unused */,
 				files);
 
 //		JmlParser theParserInstance = ((TacoThread)(Thread.currentThread())).threadParserInstance.getInstance();
@@ -96,31 +145,83 @@ public class JmlStage implements ITacoStage {
 
 	}
 
-	private List<String> write_simplified_compilation_units(List<JCompilationUnitType> newAsts) {
-		List<String> files = new LinkedList<String>();
-		String canonical_path = makeCanonicalPath();
-
+	private Map<String, String> print_simplified_compilation_units(List<JCompilationUnitType> newAsts) {
+		Map<String, String> sources = new LinkedHashMap<String, String>();
 		for (JCompilationUnitType compilation_unit : newAsts) {
 			assert compilation_unit.typeDeclarations().length==1;
 			JTypeDeclarationType typeDeclaration = compilation_unit.typeDeclarations()[0];
-			String filename = canonical_path + java.io.File.separator + typeDeclaration.getCClass().getJavaName().replaceAll("\\.", "/");
-			files.add(typeDeclaration.getCClass().getJavaName());
+			sources.put(typeDeclaration.getCClass().getJavaName(), JavaAndJmlPrettyPrint2.print(compilation_unit));
+		}
+		return sources;
+	}
+
+	/**
+	 * Queues the simplified sources to be written to the output directory
+	 * for debugging.
+	 */
+	private void dump_simplified_compilation_units(Map<String, String> sources) {
+		String canonical_path = makeCanonicalPath();
+
+		for (Entry<String, String> source : sources.entrySet()) {
+			String filename = canonical_path + java.io.File.separator + source.getKey().replaceAll("\\.", "/");
+			BackgroundFileWriter.getInstance().write(filename + OUTPUT_SIMPLIFIED_JAVA_EXTENSION, source.getValue());
+		}
+	}
+
+	/**
+	 * Writes the simplified sources to the output directory.
+	 * 
+	 * @return the canonical path of the output directory.
+	 */
+	private String write_simplified_compilation_units(Map<String, String> sources) {
+		String canonical_path = makeCanonicalPath();
+
+		for (Entry<String, String> source : sources.entrySet()) {
+			String filename = canonical_path + java.io.File.separator + source.getKey().replaceAll("\\.", "/");
 			try {
-				FileUtils.writeToFile(filename + OUTPUT_SIMPLIFIED_JAVA_EXTENSION, JavaAndJmlPrettyPrint2.print(compilation_unit));
+				FileUtils.writeToFile(filename + OUTPUT_SIMPLIFIED_JAVA_EXTENSION, source.getValue());
 			} catch (IOException e) {
 				throw new RuntimeException("DYNJALLOY ERROR! " + e.getMessage());
 			}
 		}
-		return files;
+		return canonical_path;
 	}
 
-	private List<JCompilationUnitType> simplify_compilation_units(ASTSimplifierManager aAstSimplifierManager) {
+	/**
+	 * Runs the simplifications one after the other or, if
+	 * <code>parallelSimplification</code> is set, concurrently. The caller
+	 * holds <code>TacoContext.JML_LOCK</code> on behalf of the tasks.
+	 * 
+	 * @return the simplified units, in the order of the simplifications.
+	 */
+	private List<JCompilationUnitType> simplify_compilation_units(List<UnitSimplification> simplifications) {
 		List<JCompilationUnitType> newAsts = new LinkedList<JCompilationUnitType>();
 
-		for (JCompilationUnitType compilation_unit : this.compilation_units) {
+		if (!TacoConfigurator.getInstance().getParallelSimplification() || simplifications.size() < 2) {
+			for (UnitSimplification simplification : simplifications) {
+				newAsts.addAll(simplification.call());
+			}
+			return newAsts;
+		}
 
-			List<JCompilationUnitType> new_compilation_units = aAstSimplifierManager.simplify(compilation_unit);
-			newAsts.addAll(new_compilation_units);
+		ForkJoinPool pool = new ForkJoinPool(Math.min(simplifications.size(), Runtime.getRuntime().availableProcessors()));
+		try {
+			for (Future<List<JCompilationUnitType>> simplified : pool.invokeAll(simplifications)) {
+				newAsts.addAll(simplified.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TacoException("interrupted while simplifying the compilation units");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new TacoException("compilation unit couldn't be simplified: " + e.getCause().getMessage());
+		} finally {
+			pool.shutdown();
 		}
 		return newAsts;
 	}
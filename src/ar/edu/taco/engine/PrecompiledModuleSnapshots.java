@@ -0,0 +1,269 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import ar.edu.jdynalloy.ast.JDynAlloyModule;
+import ar.edu.taco.TacoException;
+
+/**
+ * Serialized snapshots of the JDynAlloy modules parsed from the
+ * <code>precompiledmodules</code> resources.
+ * 
+ * A snapshot is keyed by the parser pass, the configuration flags and the
+ * digest of every resource it was parsed from, so a changed resource or a
+ * new snapshot version never hits a stale entry. The most recently used
+ * snapshots are kept in memory and, unless the directory is set to the
+ * empty string, every snapshot is kept on disk. Every lookup deserializes a
+ * fresh copy: the back-end stages rewrite the modules they are given.
+ * 
+ * The resources parsed for their declarations give the same snapshot for
+ * every analysed class. The ones parsed against the fields of the analysed
+ * classes are keyed by that field set, so only a later run on classes with
+ * the same fields reuses them.
+ * 
+ * The modules <code>PrecompiledModules</code> builds in Java (JObject,
+ * JString, the exceptions, the literal modules, ...) are not snapshotted.
+ * Building them involves no parsing, so a snapshot would save nothing, and
+ * the literal and static field modules change with every translation.
+ */
+class PrecompiledModuleSnapshots {
+
+	private static Logger log = Logger.getLogger(PrecompiledModuleSnapshots.class);
+
+	private static final int SNAPSHOT_VERSION = 1;
+
+	private static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+	private static final PrecompiledModuleSnapshots instance = new PrecompiledModuleSnapshots();
+
+	/**
+	 * Snapshots kept in memory. Every distinct field set of the analysed
+	 * classes adds one, so batch jobs and sweeps would otherwise keep adding
+	 * them for the whole run.
+	 */
+	private static final int MAX_SNAPSHOTS_IN_MEMORY = 16;
+
+	private final Map<String, byte[]> snapshots = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+			return size() > MAX_SNAPSHOTS_IN_MEMORY;
+		}
+	};
+
+	private final Map<String, String> resourceDigests = new HashMap<String, String>();
+
+	/**
+	 * Set once the modules turn out not to be serializable, from then on
+	 * every lookup misses.
+	 */
+	private boolean disabled = false;
+
+	static PrecompiledModuleSnapshots getInstance() {
+		return instance;
+	}
+
+	private PrecompiledModuleSnapshots() {
+	}
+
+	/**
+	 * @param pass
+	 *            identifies the parser pass and its parsing context.
+	 * @param resources
+	 *            the resources the modules are parsed from, in parsing
+	 *            order.
+	 * @param flags
+	 *            the configuration values the parsed modules depend on.
+	 */
+	synchronized String key(String pass, Iterable<String> resources, String flags) {
+		StringBuilder key = new StringBuilder();
+		key.append(SNAPSHOT_VERSION).append('|').append(pass).append('|').append(flags);
+		for (String resource : resources) {
+			key.append('|').append(resource).append('@').append(resourceDigest(resource));
+		}
+		return digest(key.toString().getBytes(Charset.forName("UTF-8")));
+	}
+
+	/**
+	 * @return a fresh copy of the modules stored under <code>key</code>, or
+	 *         null if there is no usable snapshot.
+	 */
+	List<JDynAlloyModule> load(String key, String snapshotDir) {
+		byte[] snapshot;
+		synchronized (this) {
+			if (disabled) {
+				return null;
+			}
+			snapshot = snapshots.get(key);
+		}
+		if (snapshot == null && !snapshotDir.equals("")) {
+			snapshot = readSnapshotFile(snapshotFile(snapshotDir, key));
+			if (snapshot != null) {
+				synchronized (this) {
+					snapshots.put(key, snapshot);
+				}
+			}
+		}
+		if (snapshot == null) {
+			return null;
+		}
+		try {
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(snapshot));
+			try {
+				@SuppressWarnings("unchecked")
+				List<JDynAlloyModule> modules = (List<JDynAlloyModule>) in.readObject();
+				return modules;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			// written by an incompatible build, parse again and replace it
+			log.debug("discarding precompiled modules snapshot " + key + ": " + e.getMessage());
+		} catch (ClassNotFoundException e) {
+			log.debug("discarding precompiled modules snapshot " + key + ": " + e.getMessage());
+		}
+		synchronized (this) {
+			snapshots.remove(key);
+		}
+		return null;
+	}
+
+	void store(String key, List<JDynAlloyModule> modules, String snapshotDir) {
+		byte[] snapshot;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(new ArrayList<JDynAlloyModule>(modules));
+			out.close();
+			snapshot = bytes.toByteArray();
+		} catch (IOException e) {
+			log.warn("precompiled modules can't be serialized, snapshots disabled: " + e.getMessage());
+			synchronized (this) {
+				disabled = true;
+				snapshots.clear();
+			}
+			return;
+		}
+		synchronized (this) {
+			snapshots.put(key, snapshot);
+		}
+		if (!snapshotDir.equals("")) {
+			writeSnapshotFile(snapshotFile(snapshotDir, key), snapshot);
+		}
+	}
+
+	private static File snapshotFile(String snapshotDir, String key) {
+		return new File(snapshotDir, key + SNAPSHOT_EXTENSION);
+	}
+
+	private static byte[] readSnapshotFile(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			return Files.readAllBytes(file.toPath());
+		} catch (IOException e) {
+			log.debug("precompiled modules snapshot " + file + " can't be read: " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static void writeSnapshotFile(File file, byte[] snapshot) {
+		try {
+			File parent = file.getAbsoluteFile().getParentFile();
+			parent.mkdirs();
+			// other TACO processes may share the directory: never expose a
+			// partially written snapshot
+			File tmp = File.createTempFile(file.getName(), ".tmp", parent);
+			Files.write(tmp.toPath(), snapshot);
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+			}
+		} catch (IOException e) {
+			log.warn("precompiled modules snapshot " + file + " can't be written: " + e.getMessage());
+		}
+	}
+
+	private String resourceDigest(String resource) {
+		String digest = resourceDigests.get(resource);
+		if (digest == null) {
+			InputStream in = PrecompiledModuleSnapshots.class.getClassLoader().getResourceAsStream(resource);
+			if (in == null) {
+				// let the parser report the missing resource
+				return "missing";
+			}
+			try {
+				try {
+					digest = digest(readFully(in));
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				throw new TacoException("resource " + resource + " couldn't be read: " + e.getMessage());
+			}
+			resourceDigests.put(resource, digest);
+		}
+		return digest;
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			content.write(buffer, 0, read);
+		}
+		return content.toByteArray();
+	}
+
+	private static String digest(byte[] content) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			StringBuilder hex = new StringBuilder();
+			for (byte b : md.digest(content)) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new TacoException(e.getMessage());
+		}
+	}
+
+}
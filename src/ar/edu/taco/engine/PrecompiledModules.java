@@ -23,13 +23,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 
 import ar.edu.jdynalloy.JDynAlloyConfig;
 import ar.edu.jdynalloy.IJDynAlloyConfig;
 import ar.edu.jdynalloy.ast.JDynAlloyModule;
+import ar.edu.jdynalloy.ast.JField;
 import ar.edu.jdynalloy.buffer.StaticFieldsModuleBuilder;
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoException;
 import ar.edu.taco.simplejml.JavaToJDynAlloyManager;
 import ar.edu.taco.simplejml.builtin.IBuiltInModule;
 import ar.edu.taco.simplejml.builtin.JArithmeticException;
@@ -57,6 +60,7 @@ import ar.edu.taco.simplejml.builtin.JavaPrimitiveIntegerValue;
 import ar.edu.taco.simplejml.builtin.JavaPrimitiveLongValue;
 import ar.edu.taco.simplejml.builtin.models.JJMLObjectSequence;
 import ar.edu.taco.simplejml.builtin.models.JJMLObjectSet;
+import ar.edu.taco.utils.BackgroundFileWriter;
 import ar.edu.taco.utils.FileUtils;
 
 public class PrecompiledModules implements ITacoStage {
@@ -64,6 +68,10 @@ public class PrecompiledModules implements ITacoStage {
 
 	private List<JDynAlloyModule> modules;
 
+	private List<JDynAlloyModule> reachabilityRoots = null;
+
+	private JDynAlloyModule staticFieldsModule = null;
+
 	public List<JDynAlloyModule> getModules() {
 		return modules;
 	}
@@ -100,14 +108,33 @@ public class PrecompiledModules implements ITacoStage {
 		this.modules = new ArrayList<JDynAlloyModule>();
 	}	
 
+	/**
+	 * Sets the modules the built-in modules must be reachable from when
+	 * unreachable built-in modules are pruned.
+	 */
+	public void setReachabilityRoots(List<JDynAlloyModule> reachabilityRoots) {
+		this.reachabilityRoots = reachabilityRoots;
+	}
+
 	@Override
 	public void execute() {
-		List<IBuiltInModule> precompiledModules = getPrecompiledModules();
+		List<String> resources = new ArrayList<String>();
+		List<IBuiltInModule> precompiledModules = getPrecompiledModules(resources);
 
 		if (TacoConfigurator.getInstance().getBoolean(
 				TacoConfigurator.USE_CLASS_SINGLETONS_FIELD) == true)
 			precompiledModules.add(JClass.getInstance());
 
+		if (reachabilityRoots != null
+				&& JDynAlloyConfig.getInstance().getBuiltInModules().isEmpty()
+				&& TacoConfigurator.getInstance().getPruneUnreachableBuiltInModules()) {
+			pruneUnreachable(precompiledModules, resources);
+		}
+
+		for (String resource : resources) {
+			TacoConfigurator.getInstance().addDynAlloyParserInputResources(resource);
+		}
+
 		for (IBuiltInModule precompiledModule : precompiledModules) {
 			JDynAlloyModule module = precompiledModule.getModule();
 			modules.add(module);
@@ -117,8 +144,10 @@ public class PrecompiledModules implements ITacoStage {
 	}
 
 	public JDynAlloyModule generateStaticFieldsModule() {
-		JDynAlloyModule module = StaticFieldsModuleBuilder.getInstance()
-				.getModule();
+		JDynAlloyModule module = staticFieldsModule;
+		if (module == null) {
+			module = StaticFieldsModuleBuilder.getInstance().getModule();
+		}
 
 		// print to file
 		printToFile(module);
@@ -126,7 +155,65 @@ public class PrecompiledModules implements ITacoStage {
 		return module;
 	}
 
-	private List<IBuiltInModule> getPrecompiledModules() {
+	private void pruneUnreachable(List<IBuiltInModule> precompiledModules, List<String> resources) {
+		TacoConfigurator tacoConfigurator = TacoConfigurator.getInstance();
+		BuiltInModuleReachability reachability = new BuiltInModuleReachability();
+		for (JDynAlloyModule root : reachabilityRoots) {
+			reachability.addRoot(root);
+		}
+		// user supplied JDynAlloy sources are parsed later
+		@SuppressWarnings("unchecked")
+		List<String> sourceFiles = (List<String>) tacoConfigurator.getList(TacoConfigurator.JDYNALLOY_PARSER_INPUT_FILES, new ArrayList<String>());
+		for (String sourceFile : sourceFiles) {
+			try {
+				reachability.addRoot(FileUtils.readFile(sourceFile));
+			} catch (IOException e) {
+				throw new TacoException("JDynAlloy source " + sourceFile + " couldn't be read: " + e.getMessage());
+			}
+		}
+		// the scopes and the relevant classes name signatures too
+		for (String typeScope : tacoConfigurator.getTypeScopes()) {
+			reachability.addRoot(typeScope);
+		}
+		reachability.addRoot(tacoConfigurator.getString(TacoConfigurator.RELEVANT_CLASSES, ""));
+
+		// built-in modules register their static fields when they are
+		// first built, every candidate has been built at this point. The
+		// static fields are followed one by one, as a root the module would
+		// keep every candidate.
+		staticFieldsModule = StaticFieldsModuleBuilder.getInstance().getModule();
+		for (JField staticField : staticFieldsModule.getFields()) {
+			reachability.addStaticField(staticField.getFieldVariable().getVariableId().getString(),
+					staticField.getFieldType().toString());
+		}
+
+		// scope inference and symmetry breaking refer to these directly
+		List<IBuiltInModule> pinnedModules = new ArrayList<IBuiltInModule>();
+		for (IBuiltInModule precompiledModule : precompiledModules) {
+			if (precompiledModule instanceof JObject || precompiledModule instanceof JThrowable
+					|| precompiledModule instanceof JClass || precompiledModule instanceof JavaPrimitiveIntegerValue
+					|| precompiledModule instanceof JavaPrimitiveLongValue || precompiledModule instanceof JavaPrimitiveFloatValue
+					|| precompiledModule instanceof JavaPrimitiveCharValue) {
+				pinnedModules.add(precompiledModule);
+			}
+		}
+		List<String> pinnedResources = new ArrayList<String>();
+		for (String resource : resources) {
+			if (resource.endsWith("Array.djals")) {
+				pinnedResources.add(resource);
+			}
+		}
+
+		reachability.retainReachable(precompiledModules, resources, pinnedModules, pinnedResources);
+		// the static fields of the pruned modules would name missing signatures
+		for (Iterator<JField> it = staticFieldsModule.getFields().iterator(); it.hasNext();) {
+			if (!reachability.isReachableStaticField(it.next().getFieldVariable().getVariableId().getString())) {
+				it.remove();
+			}
+		}
+	}
+
+	private List<IBuiltInModule> getPrecompiledModules(List<String> resources) {
 		IJDynAlloyConfig config = JDynAlloyConfig.getInstance();
 
 		// precompiled
@@ -198,8 +285,7 @@ public class PrecompiledModules implements ITacoStage {
 			} else {
 				resource_to_load = "ar/edu/taco/engine/precompiledmodules/java_util_List_int.djals";
 			}
-			TacoConfigurator.getInstance().addDynAlloyParserInputResources(
-					resource_to_load);
+			resources.add(resource_to_load);
 		}
 
 		//java_io
@@ -211,8 +297,7 @@ public class PrecompiledModules implements ITacoStage {
 		if (empty || config.getBuiltInModules().contains("java_util_ArrayList")){
 			String resource_to_load = resource_to_load = "ar/edu/taco/engine/precompiledmodules/java_util_ArrayList.djals";
 
-			TacoConfigurator.getInstance().addDynAlloyParserInputResources(
-					resource_to_load);
+			resources.add(resource_to_load);
 		}	
 
 		if (empty || config.getBuiltInModules().contains("JJMLObjectSequence"))
@@ -229,30 +314,18 @@ public class PrecompiledModules implements ITacoStage {
 		// BEGIN: Parsed jdals
 
 		if (empty || config.getBuiltInModules().contains("JByte"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_lang_Byte.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_Byte.djals");
 
 		if (empty || config.getBuiltInModules().contains("JInteger")){
 			if (TacoConfigurator.getInstance().getUseJavaArithmetic() == false) {
-				TacoConfigurator
-				.getInstance()
-				.addDynAlloyParserInputResources(
-						"ar/edu/taco/engine/precompiledmodules/java_lang_Integer.djals");
+				resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_Integer.djals");
 			} else {
-				TacoConfigurator
-				.getInstance()
-				.addDynAlloyParserInputResources(
-						"ar/edu/taco/engine/precompiledmodules/java_lang_Integer_JavaPrimitiveIntegerValue.djals");
+				resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_Integer_JavaPrimitiveIntegerValue.djals");
 			}
 		}
 
 		if (empty || config.getBuiltInModules().contains("JCharacter"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_lang_Character.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_Character.djals");
 
 		if (empty || config.getBuiltInModules().contains("JMap")) {
 			String resource_to_load;
@@ -261,27 +334,17 @@ public class PrecompiledModules implements ITacoStage {
 			else
 				resource_to_load = "ar/edu/taco/engine/precompiledmodules/java_util_Map_int.djals";
 
-			TacoConfigurator.getInstance().addDynAlloyParserInputResources(
-					resource_to_load);
+			resources.add(resource_to_load);
 		}
 
 		if (empty || config.getBuiltInModules().contains("JTreeMap"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_util_TreeMap.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_util_TreeMap.djals");
 
 		if (empty || config.getBuiltInModules().contains("JSortedMap"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_util_SortedMap.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_util_SortedMap.djals");
 
 		if (empty || config.getBuiltInModules().contains("JHashMap"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_util_HashMap.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_util_HashMap.djals");
 
 		if (empty || config.getBuiltInModules().contains("JSet")) {
 
@@ -291,45 +354,26 @@ public class PrecompiledModules implements ITacoStage {
 			} else {
 				resource_to_load = "ar/edu/taco/engine/precompiledmodules/java_util_Set_int.djals";
 			}
-			TacoConfigurator.getInstance().addDynAlloyParserInputResources(
-					resource_to_load);
+			resources.add(resource_to_load);
 		}
 
 		if (empty || config.getBuiltInModules().contains("JHashSet"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_util_HashSet.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_util_HashSet.djals");
 
 		if (empty || config.getBuiltInModules().contains("JIterator"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_util_Iterator.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_util_Iterator.djals");
 
 		if (empty || config.getBuiltInModules().contains("JDate"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_util_Date.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_util_Date.djals");
 
 		if (empty || config.getBuiltInModules().contains("JSource"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/javax_xml_transform_Source.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/javax_xml_transform_Source.djals");
 
 		if (empty || config.getBuiltInModules().contains("JSAXSource"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/javax_xml_transform_sax_SAXSource.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/javax_xml_transform_sax_SAXSource.djals");
 
 		if (empty || config.getBuiltInModules().contains("JAuditLogXMLReader"))
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/sos_koa_AuditLogXMLReader.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/sos_koa_AuditLogXMLReader.djals");
 
 
 
@@ -344,38 +388,20 @@ public class PrecompiledModules implements ITacoStage {
 		}
 
 		if (TacoConfigurator.getInstance().getUseJavaArithmetic() == true)
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_lang_IntArray.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_IntArray.djals");
 		else
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_lang_AlloyIntArray.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_AlloyIntArray.djals");
 
 		if (TacoConfigurator.getInstance().getUseJavaArithmetic() == true)
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_lang_CharArray.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_CharArray.djals");
 
 		if (TacoConfigurator.getInstance().getUseJavaArithmetic() == true)
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_lang_LongArray.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_LongArray.djals");
 
 		if (TacoConfigurator.getInstance().getUseJavaArithmetic() == true)
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_lang_ObjectArray.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_ObjectArray.djals");
 		else
-			TacoConfigurator
-			.getInstance()
-			.addDynAlloyParserInputResources(
-					"ar/edu/taco/engine/precompiledmodules/java_lang_AlloyIntObjectArray.djals");
+			resources.add("ar/edu/taco/engine/precompiledmodules/java_lang_AlloyIntObjectArray.djals");
 
 		if (config.getUseClassSingletons() == true)
 			precompiledModules.add(JClass.getInstance());
@@ -384,20 +410,14 @@ public class PrecompiledModules implements ITacoStage {
 	}
 
 	private void printToFile(JDynAlloyModule module) {
-
 		String output_dir = TacoConfigurator.getInstance().getOutputDir();
 
 		String filePath = output_dir + java.io.File.separator
 				+ module.getModuleId().replaceAll("_", "/")
 				+ OUTPUT_DYNALLOY_EXTENSION;
-		try {
-			String moduleOutput = JavaToJDynAlloyManager
-					.getModuleOutput(module);
-			FileUtils.writeToFile(filePath, moduleOutput);
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		String moduleOutput = JavaToJDynAlloyManager
+				.getModuleOutput(module);
+		BackgroundFileWriter.getInstance().write(filePath, moduleOutput);
 	}
 
 }
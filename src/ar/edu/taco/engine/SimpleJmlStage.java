@@ -11,6 +11,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.multijava.mjc.JCompilationUnitType;
 
@@ -26,6 +30,8 @@ import ar.edu.jdynalloy.ast.JSignature;
 import ar.edu.jdynalloy.factory.JSignatureFactory;
 import ar.edu.jdynalloy.xlator.JType;
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoContext;
+import ar.edu.taco.TacoException;
 import ar.edu.taco.simplejml.JavaToJDynAlloyManager;
 import ar.edu.taco.simplejml.SimpleJmlToJDynAlloyContext;
 import ar.edu.taco.simplejml.builtin.JavaPrimitiveCharValue;
@@ -33,6 +39,7 @@ import ar.edu.taco.simplejml.builtin.JavaPrimitiveFloatValue;
 import ar.edu.taco.simplejml.builtin.JavaPrimitiveIntegerValue;
 import ar.edu.taco.simplejml.builtin.JavaPrimitiveLongValue;
 import ar.edu.taco.simplejml.helpers.PackedListOfJDynAlloyModule_InvariantVarsAndPreds;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.AlloyVariable;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
@@ -70,6 +77,36 @@ public class SimpleJmlStage implements ITacoStage {
 		this.modules = new ArrayList<JDynAlloyModule>();
 	}
 
+	/**
+	 * Translates one compilation unit with its own manager, in the run's
+	 * context and with its own part of the fresh names.
+	 */
+	private static class UnitTranslation implements Callable<List<JDynAlloyModule>> {
+		private final JCompilationUnitType compilation_unit;
+		private final TacoContext context;
+		private final FreshNameSupply name_supply;
+		private final JavaToJDynAlloyManager manager;
+
+		UnitTranslation(JCompilationUnitType compilation_unit, TacoContext context, FreshNameSupply name_supply, JavaToJDynAlloyManager manager) {
+			this.compilation_unit = compilation_unit;
+			this.context = context;
+			this.name_supply = name_supply;
+			this.manager = manager;
+		}
+
+		@Override
+		public List<JDynAlloyModule> call() {
+			TacoContext previous_context = TacoContext.enter(context);
+			FreshNameSupply previous_name_supply = FreshNameSupply.enter(name_supply);
+			try {
+				return manager.processCompilationUnit(compilation_unit);
+			} finally {
+				FreshNameSupply.exit(previous_name_supply);
+				TacoContext.exit(previous_context);
+			}
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -80,10 +117,21 @@ public class SimpleJmlStage implements ITacoStage {
 		// parse java modules
 		JavaToJDynAlloyManager aJavaToDynJAlloyManager = new JavaToJDynAlloyManager(this.compilation_units);
 		for (JCompilationUnitType unit : this.compilation_units) {
-			List<JDynAlloyModule> result = aJavaToDynJAlloyManager.processCompilationUnit(unit);
-			for (JDynAlloyModule aDynJAlloyModule : result) {
-				this.modules.add(aDynJAlloyModule);
-			}
+			aJavaToDynJAlloyManager.declareCompilationUnit(unit);
+		}
+
+		List<UnitTranslation> translations = new ArrayList<UnitTranslation>();
+		FreshNameSupply name_supply = FreshNameSupply.getInstance();
+		List<FreshNameSupply> name_supplies = name_supply.split(this.compilation_units.size());
+		for (int i = 0; i < this.compilation_units.size(); i++) {
+			translations.add(new UnitTranslation(this.compilation_units.get(i), TacoContext.getCurrent(), name_supplies.get(i), aJavaToDynJAlloyManager.copy()));
+		}
+
+		this.modules.addAll(translate_compilation_units(translations));
+		name_supply.join(name_supplies);
+
+		for (UnitTranslation translation : translations) {
+			aJavaToDynJAlloyManager.getSimpleJmlToJDynAlloyContext().merge(translation.manager.getSimpleJmlToJDynAlloyContext());
 		}
 
 		// Build implementors for each Interface in modules
@@ -147,6 +195,48 @@ public class SimpleJmlStage implements ITacoStage {
 
 	}
 
+	/**
+	 * Runs the translations one after the other or, if
+	 * <code>parallelTranslation</code> is set, concurrently. The caller holds
+	 * <code>TacoContext.JML_LOCK</code> and
+	 * <code>TacoContext.JDYNALLOY_LOCK</code> on behalf of the tasks, which
+	 * take turns on the literal registries through
+	 * <code>JavaPrimitiveLiterals</code>.
+	 * 
+	 * @return the modules of the units, in the order of the translations.
+	 */
+	private List<JDynAlloyModule> translate_compilation_units(List<UnitTranslation> translations) {
+		List<JDynAlloyModule> modules = new ArrayList<JDynAlloyModule>();
+
+		if (!TacoConfigurator.getInstance().getParallelTranslation() || translations.size() < 2) {
+			for (UnitTranslation translation : translations) {
+				modules.addAll(translation.call());
+			}
+			return modules;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(Math.min(translations.size(), Runtime.getRuntime().availableProcessors()));
+		try {
+			for (Future<List<JDynAlloyModule>> translated : pool.invokeAll(translations)) {
+				modules.addAll(translated.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TacoException("interrupted while translating the compilation units");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new TacoException("compilation unit couldn't be translated: " + e.getCause().getMessage());
+		} finally {
+			pool.shutdown();
+		}
+		return modules;
+	}
+
 	public List<JDynAlloyModule> getModules() {
 		return this.modules;
 	}
@@ -0,0 +1,123 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import ar.edu.taco.TacoException;
+import ar.edu.taco.utils.FileUtils;
+
+/**
+ * Holds the pretty printed simplified compilation units while the JML type
+ * checker parses them again.
+ * 
+ * The JML checker only reads sources through <code>java.io.File</code>, so
+ * the buffers are backed by a private directory in a memory file system when
+ * the platform has one, and in the temporary directory otherwise. The
+ * directory is removed when the JVM exits.
+ * 
+ * There is one buffer per process, like the JML type loader that reads it:
+ * callers hold <code>TacoContext.JML_LOCK</code> from
+ * {@link #store(Map)} until the parser is done with the sources.
+ */
+class SimplifiedSourceBuffer {
+
+	private static final String[] MEMORY_FILE_SYSTEMS = new String[] { "/dev/shm" };
+
+	private static final String SIMPLIFIED_JAVA_EXTENSION = ".java";
+
+	private static SimplifiedSourceBuffer instance = null;
+
+	private final File directory;
+
+	static synchronized SimplifiedSourceBuffer getInstance() {
+		if (instance == null) {
+			instance = new SimplifiedSourceBuffer();
+		}
+		return instance;
+	}
+
+	private SimplifiedSourceBuffer() {
+		this.directory = createDirectory();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				delete(directory);
+			}
+		});
+	}
+
+	private static File createDirectory() {
+		File base = null;
+		for (String path : MEMORY_FILE_SYSTEMS) {
+			File candidate = new File(path);
+			if (candidate.isDirectory() && candidate.canWrite()) {
+				base = candidate;
+				break;
+			}
+		}
+		try {
+			if (base != null) {
+				return Files.createTempDirectory(base.toPath(), "taco-simplified").toFile().getCanonicalFile();
+			}
+			return Files.createTempDirectory("taco-simplified").toFile().getCanonicalFile();
+		} catch (IOException e) {
+			throw new TacoException("simplified sources buffer couldn't be created: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Replaces the buffered sources.
+	 * 
+	 * @param sources
+	 *            the source code of every simplified class, by qualified
+	 *            class name.
+	 * @return the source path to hand to the JML parser.
+	 */
+	String store(Map<String, String> sources) {
+		for (File file : directory.listFiles()) {
+			delete(file);
+		}
+		for (Entry<String, String> source : sources.entrySet()) {
+			String filename = directory.getPath() + File.separator + source.getKey().replaceAll("\\.", "/") + SIMPLIFIED_JAVA_EXTENSION;
+			try {
+				FileUtils.writeToFile(filename, source.getValue());
+			} catch (IOException e) {
+				throw new TacoException("simplified source couldn't be buffered: " + e.getMessage());
+			}
+		}
+		return directory.getPath();
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ar.edu.taco.utils.RunReport;
+
+/**
+ * <p>Runs a sequence of stages, in the order they were added, on the calling
+ * thread. The translation stages share the JDynAlloy registries, so none of
+ * them can overlap another; only the JDynAlloy printer writes its files in
+ * the background.</p>
+ * <p>Every stage is timed in the <code>RunReport</code> of the run, under its
+ * name.</p>
+ */
+public class StageScheduler {
+
+	private final List<ScheduledStage> stages = new ArrayList<ScheduledStage>();
+
+	private static class ScheduledStage {
+		private final String name;
+		private final ITacoStage stage;
+
+		private ScheduledStage(String name, ITacoStage stage) {
+			this.name = name;
+			this.stage = stage;
+		}
+	}
+
+	/**
+	 * Adds <code>stage</code> after the stages already added.
+	 */
+	public void add(String name, ITacoStage stage) {
+		stages.add(new ScheduledStage(name, stage));
+	}
+
+	/**
+	 * Runs every stage added so far. If a stage fails, no other stage is
+	 * started.
+	 */
+	public void run() {
+		List<ScheduledStage> pending = new ArrayList<ScheduledStage>(stages);
+		stages.clear();
+		for (ScheduledStage scheduledStage : pending) {
+			execute(scheduledStage);
+		}
+	}
+
+	private static void execute(ScheduledStage scheduledStage) {
+		RunReport.Measurement measurement = RunReport.start("stage", scheduledStage.name);
+		try {
+			scheduledStage.stage.execute();
+		} finally {
+			measurement.stop();
+		}
+	}
+
+}
@@ -1,114 +1,165 @@
 package ar.edu.taco.infer;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.Stack;
 
 import ar.edu.taco.infer.Graph.LabeledNode;
 
+/**
+ * Counts the paths from <code>$Root$</code> to every node of a class graph.
+ * Parallel edges count as different paths. If a node can be reached through
+ * a node that lies on a cycle, it has infinitely many paths.
+ *
+ * The graph is condensed into its strongly connected components (Tarjan),
+ * which form a DAG: a component with more than one node, or with a self
+ * loop, is cyclic. The paths are then added up along the DAG in topological
+ * order, so the whole count is linear in the size of the graph.
+ */
 public class GraphPathCounter {
 
-	private Graph class_graph;
-
-	private Set<String> cyclic_nodes;
+	private static final String ROOT_NODE_ID = "$Root$";
 
-	public Map<String, IntegerOrInfinity> count_all_paths(Graph class_graph) {
-		this.class_graph = class_graph;
+	private Graph class_graph;
 
-		Stack<String> path = new Stack<String>();
-		String root_node_id = "$Root$";
-		path.push(root_node_id);
+	private Map<String, Integer> index_of;
 
-		cyclic_nodes = find_cyclic_nodes();
+	private Map<String, Integer> low_link_of;
 
-		Map<String, IntegerOrInfinity> number_of_paths = new HashMap<String, IntegerOrInfinity>();
-		for (String node_id : this.class_graph.nodeSet()) {
-			IntegerOrInfinity path_count = count_paths(root_node_id, path, node_id);
-			number_of_paths.put(node_id, path_count);
-		}
+	private Deque<String> component_stack;
 
-		return number_of_paths;
-	}
+	private Map<String, Boolean> on_component_stack;
 
-	private Set<String> find_cyclic_nodes() {
+	/**
+	 * Strongly connected components in reverse topological order: a component
+	 * only has edges to components found before it.
+	 */
+	private List<List<String>> components;
 
-		Set<String> found_nodes = new HashSet<String>();
+	private Map<String, Integer> component_of;
 
-		Stack<String> path = new Stack<String>();
-		String root_node_id = "$Root$";
-		path.push(root_node_id);
+	public Map<String, IntegerOrInfinity> count_all_paths(Graph class_graph) {
+		this.class_graph = class_graph;
 
-		for (String node_id : class_graph.nodeSet()) {
-			found_nodes.addAll(find_cyclic_nodes(root_node_id, path, node_id));
+		Map<String, IntegerOrInfinity> number_of_paths = new HashMap<String, IntegerOrInfinity>();
+		for (String node_id : this.class_graph.nodeSet()) {
+			number_of_paths.put(node_id, new IntegerOrInfinity(0));
+		}
+		if (!this.class_graph.nodeSet().contains(ROOT_NODE_ID)) {
+			return number_of_paths;
 		}
 
-		return found_nodes;
-	}
+		// only the nodes reachable from the root have paths
+		find_components(ROOT_NODE_ID);
 
-	private Set<String> find_cyclic_nodes(String node_id, Stack<String> path, String destination_node_id) {
-		Set<String> found_nodes = new HashSet<String>();
-		if (node_id.equals(destination_node_id)) {
-			return found_nodes;
-		} else {
-			for (LabeledNode labeled_node : class_graph.getLabelledEgdes(node_id)) {
-				String new_node_id = labeled_node.node_id;
-				if (path.contains(new_node_id)) {
-					int start_index = path.indexOf(new_node_id);
-					for (int i = start_index; i < path.size(); i++) {
-						found_nodes.add(path.get(i));
+		number_of_paths.put(ROOT_NODE_ID, new IntegerOrInfinity(1));
+		for (int i = components.size() - 1; i >= 0; i--) {
+			List<String> component = components.get(i);
+			if (is_cyclic(component)) {
+				for (String node_id : component) {
+					number_of_paths.put(node_id, IntegerOrInfinity.INFINITY);
+				}
+			}
+			for (String node_id : component) {
+				IntegerOrInfinity path_count = number_of_paths.get(node_id);
+				for (LabeledNode labeled_node : class_graph.getLabelledEgdes(node_id)) {
+					String new_node_id = labeled_node.node_id;
+					if (component_of.get(new_node_id) != i) {
+						number_of_paths.put(new_node_id, add(number_of_paths.get(new_node_id), path_count));
 					}
-				} else {
-					path.push(new_node_id);
-					found_nodes.addAll(find_cyclic_nodes(new_node_id, path, destination_node_id));
-					path.pop();
 				}
 			}
 		}
-		return found_nodes;
+
+		return number_of_paths;
 	}
 
-	private IntegerOrInfinity count_paths(String node_id, Stack<String> path, String destination_node_id) {
-		if (node_id.equals(destination_node_id)) {
+	private boolean is_cyclic(List<String> component) {
+		if (component.size() > 1) {
+			return true;
+		}
+		String node_id = component.get(0);
+		for (LabeledNode labeled_node : class_graph.getLabelledEgdes(node_id)) {
+			if (labeled_node.node_id.equals(node_id)) {
+				return true;
+			}
+		}
+		return false;
+	}
 
-			if (isCyclicPath(path))
-				return IntegerOrInfinity.INFINITY;
-			else
-				return new IntegerOrInfinity(1);
-		} else {
-			IntegerOrInfinity path_count = new IntegerOrInfinity(0);
-			for (LabeledNode labeled_node : class_graph.getLabelledEgdes(node_id)) {
+	private static IntegerOrInfinity add(IntegerOrInfinity left, IntegerOrInfinity right) {
+		if (left.equals(IntegerOrInfinity.INFINITY) || right.equals(IntegerOrInfinity.INFINITY)) {
+			return IntegerOrInfinity.INFINITY;
+		}
+		long sum = (long) left.int_value + right.int_value;
+		if (sum > Integer.MAX_VALUE) {
+			// too many paths to be used as a scope
+			return IntegerOrInfinity.INFINITY;
+		}
+		return new IntegerOrInfinity((int) sum);
+	}
 
-				if (path_count.equals(IntegerOrInfinity.INFINITY)) {
-					break;
+	/**
+	 * Tarjan's algorithm from <code>start_node_id</code>. The depth first
+	 * search keeps its own stack, class graphs can be deeper than the thread
+	 * stack allows.
+	 */
+	private void find_components(String start_node_id) {
+		index_of = new HashMap<String, Integer>();
+		low_link_of = new HashMap<String, Integer>();
+		component_stack = new ArrayDeque<String>();
+		on_component_stack = new HashMap<String, Boolean>();
+		components = new ArrayList<List<String>>();
+		component_of = new HashMap<String, Integer>();
+
+		Deque<String> dfs_nodes = new ArrayDeque<String>();
+		Deque<Iterator<LabeledNode>> dfs_edges = new ArrayDeque<Iterator<LabeledNode>>();
+
+		visit(start_node_id, dfs_nodes, dfs_edges);
+		while (!dfs_nodes.isEmpty()) {
+			String node_id = dfs_nodes.peek();
+			Iterator<LabeledNode> edges = dfs_edges.peek();
+			if (edges.hasNext()) {
+				String new_node_id = edges.next().node_id;
+				if (!index_of.containsKey(new_node_id)) {
+					visit(new_node_id, dfs_nodes, dfs_edges);
+				} else if (on_component_stack.get(new_node_id)) {
+					low_link_of.put(node_id, Math.min(low_link_of.get(node_id), index_of.get(new_node_id)));
 				}
-
-				String new_node_id = labeled_node.node_id;
-				if (!path.contains(new_node_id)) {
-					path.push(new_node_id);
-					IntegerOrInfinity result = count_paths(new_node_id, path, destination_node_id);
-					if (result.equals(IntegerOrInfinity.INFINITY)) {
-						path_count = IntegerOrInfinity.INFINITY;
-					} else {
-						path_count = new IntegerOrInfinity(path_count.int_value + result.int_value);
-					}
-
-					path.pop();
+			} else {
+				dfs_nodes.pop();
+				dfs_edges.pop();
+				if (low_link_of.get(node_id).equals(index_of.get(node_id))) {
+					List<String> component = new ArrayList<String>();
+					String member_id;
+					do {
+						member_id = component_stack.pop();
+						on_component_stack.put(member_id, false);
+						component.add(member_id);
+						component_of.put(member_id, components.size());
+					} while (!member_id.equals(node_id));
+					components.add(component);
+				}
+				if (!dfs_nodes.isEmpty()) {
+					String parent_id = dfs_nodes.peek();
+					low_link_of.put(parent_id, Math.min(low_link_of.get(parent_id), low_link_of.get(node_id)));
 				}
 			}
-			return path_count;
 		}
 	}
 
-	private boolean isCyclicPath(Stack<String> path) {
-
-		for (String node_id : path) {
-			if (cyclic_nodes.contains(node_id))
-				return true;
-		}
-
-		return false;
+	private void visit(String node_id, Deque<String> dfs_nodes, Deque<Iterator<LabeledNode>> dfs_edges) {
+		int index = index_of.size();
+		index_of.put(node_id, index);
+		low_link_of.put(node_id, index);
+		component_stack.push(node_id);
+		on_component_stack.put(node_id, true);
+		dfs_nodes.push(node_id);
+		dfs_edges.push(class_graph.getLabelledEgdes(node_id).iterator());
 	}
 
 }
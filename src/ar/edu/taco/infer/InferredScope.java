@@ -2,6 +2,8 @@ package ar.edu.taco.infer;
 
 import java.util.Set;
 
+import ar.edu.taco.TacoContext;
+
 public class InferredScope {
 
 	private final Scope inferred_scope;
@@ -22,6 +24,13 @@ public class InferredScope {
 	private static InferredScope instance = null;
 
 	public static InferredScope getInstance() {
+		TacoContext context = TacoContext.getCurrent();
+		if (context != null) {
+			if (context.getInferredScope() == null)
+				throw new IllegalStateException();
+
+			return context.getInferredScope();
+		}
 		if (instance == null)
 			throw new IllegalStateException();
 
@@ -30,8 +39,13 @@ public class InferredScope {
 
 	public static void initialize_inferred_scope(Scope inferred_scope, int inferred_bitwidth, Scope inferred_concrete_input_scope,
 			Scope bounded_concrete_input_scope, Scope inferred_concrete_program_scope) {
-		instance = new InferredScope(inferred_scope, inferred_bitwidth, inferred_concrete_input_scope, bounded_concrete_input_scope,
+		InferredScope new_instance = new InferredScope(inferred_scope, inferred_bitwidth, inferred_concrete_input_scope, bounded_concrete_input_scope,
 				inferred_concrete_program_scope);
+		TacoContext context = TacoContext.getCurrent();
+		if (context != null)
+			context.setInferredScope(new_instance);
+		else
+			instance = new_instance;
 	}
 
 	public int getInferredProgramScope(String signature_id) {
@@ -6,7 +6,6 @@ import java.util.Map;
 import java.util.Set;
 
 import ar.edu.jdynalloy.ast.JDynAlloyModule;
-import ar.edu.jdynalloy.xlator.ObjectCreationCounter;
 import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.TacoCustomScope;
 import ar.edu.taco.dynalloy.ArithmeticOpCounter;
@@ -14,6 +13,7 @@ import ar.edu.taco.dynalloy.CharOpCounter;
 import ar.edu.taco.dynalloy.FloatOpCounter;
 import ar.edu.taco.dynalloy.IntegerOpCounter;
 import ar.edu.taco.dynalloy.LongOpCounter;
+import ar.edu.taco.dynalloy.ObjectCreationCounter;
 import ar.edu.taco.infer.Graph.LabeledNode;
 import ar.edu.taco.simplejml.builtin.JObject;
 import ar.edu.taco.simplejml.builtin.JavaPrimitiveCharValue;
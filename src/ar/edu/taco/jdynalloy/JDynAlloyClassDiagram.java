@@ -1,6 +1,7 @@
 package ar.edu.taco.jdynalloy;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -227,6 +228,30 @@ public class JDynAlloyClassDiagram implements Serializable {
 		cdfield.addAbstractionPred(abstract_pred);
 	}
 
+	public Set<String> getSignatureIds() {
+		return Collections.unmodifiableSet(signatures.keySet());
+	}
+
+	/**
+	 * @return the binary relation fields declared by the signature, see
+	 *         <code>JDynAlloyClassDiagramBuilder</code>.
+	 */
+	public Set<String> getFieldIds(String signatureId) {
+		CDSignature sig = signatures.get(signatureId);
+		if (sig == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(sig.fields.keySet());
+	}
+
+	public Set<String> getFieldTargetSignatureIds(String signatureId, String field_name) {
+		CDSignature sig = signatures.get(signatureId);
+		if (sig == null || sig.getField(field_name) == null) {
+			throw new IllegalArgumentException("Field " + field_name + " is not found in signature " + signatureId);
+		}
+		return Collections.unmodifiableSet(sig.getField(field_name).targetSignatureIds);
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -23,13 +23,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
+import ar.edu.taco.ArtifactDumpPolicy;
 import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.TacoException;
 import ar.edu.taco.jml.loop.*;
-import ar.edu.taco.utils.FileUtils;
+import ar.edu.taco.utils.BackgroundFileWriter;
+import ar.edu.taco.utils.RunReport;
 import org.jmlspecs.checker.JmlSourceMethod;
 import org.jmlspecs.jmlrac.JavaAndJmlPrettyPrint2;
 import org.multijava.mjc.JCompilationUnitType;
@@ -48,9 +49,12 @@ import ar.edu.taco.simplejml.AssumeSimplifierVisitor;
 import ar.edu.taco.simplejml.GhostFieldsSimplifier;
 import ar.edu.taco.simplejml.ShortcutRemoverVisitor;
 import ar.edu.taco.utils.jml.JmlAstClonerStatementVisitor;
+import ar.edu.taco.utils.jml.JmlAstNodeCounter;
 import org.multijava.mjc.JTypeDeclarationType;
 
 public class ASTSimplifierManager {
+	private static final String PASSES_DIR = "passes";
+
 	private List<JmlAstClonerStatementVisitor> simplifiers;
 
 	private final JmlToSimpleJmlContext jmlToSimpleJmlContext;
@@ -107,38 +111,42 @@ public class ASTSimplifierManager {
 	}
 
 
-	private List<String> write_simplified_compilation_units(List<JCompilationUnitType> newAsts) {
-		List<String> files = new LinkedList<String>();
-		String canonical_path = makeCanonicalPath();
-
-		for (JCompilationUnitType compilation_unit : newAsts) {
-			assert compilation_unit.typeDeclarations().length==1;
-			JTypeDeclarationType typeDeclaration = compilation_unit.typeDeclarations()[0];
-			String filename = canonical_path + java.io.File.separator + typeDeclaration.getCClass().getJavaName().replaceAll("\\.", "/");
-			files.add(typeDeclaration.getCClass().getJavaName());
-			try {
-				FileUtils.writeToFile(filename + ".java", JavaAndJmlPrettyPrint2.print(compilation_unit));
-			} catch (IOException e) {
-				throw new RuntimeException("DYNJALLOY ERROR! " + e.getMessage());
-			}
-		}
-		return files;
+	/**
+	 * Queues the result of a single simplifier to be written under
+	 * <code>passes/NN_SimplifierName</code> in the output directory.
+	 */
+	private void dump_simplified_compilation_unit(JCompilationUnitType compilation_unit, int pass, JmlAstClonerStatementVisitor simplifier) {
+		assert compilation_unit.typeDeclarations().length==1;
+		JTypeDeclarationType typeDeclaration = compilation_unit.typeDeclarations()[0];
+		String pass_dir = PASSES_DIR + java.io.File.separator + (pass < 10 ? "0" : "") + pass + "_" + simplifier.getClass().getSimpleName();
+		String filename = makeCanonicalPath() + java.io.File.separator + pass_dir + java.io.File.separator
+				+ typeDeclaration.getCClass().getJavaName().replaceAll("\\.", "/");
+		BackgroundFileWriter.getInstance().write(filename + ".java", JavaAndJmlPrettyPrint2.print(compilation_unit));
 	}
 
 
 	public List<JCompilationUnitType> simplify(JCompilationUnitType input_compilation_unit) {
+		boolean dump_passes = TacoConfigurator.getInstance().getArtifactDumpPolicy() == ArtifactDumpPolicy.PER_PASS;
+		boolean count_nodes = RunReport.isEnabled();
 
 		JCompilationUnitType compilation_unit = input_compilation_unit;
+		int pass = 0;
 		for (JmlAstClonerStatementVisitor simplifier : simplifiers) {
-			compilation_unit.accept(simplifier);
-			compilation_unit = (JCompilationUnitType) simplifier.getStack().pop();
-
-
-
-			List<JCompilationUnitType> compUnits = new LinkedList<JCompilationUnitType>();
-			compUnits.add(compilation_unit);
-			List<String> files = write_simplified_compilation_units(compUnits);
+			RunReport.Measurement measurement = RunReport.start("simplifier", simplifier.getClass().getSimpleName());
+			try {
+				compilation_unit.accept(simplifier);
+				compilation_unit = (JCompilationUnitType) simplifier.getStack().pop();
+			} finally {
+				measurement.stop();
+			}
+			if (count_nodes) {
+				measurement.count("nodes", JmlAstNodeCounter.count(compilation_unit));
+			}
 
+			pass++;
+			if (dump_passes) {
+				dump_simplified_compilation_unit(compilation_unit, pass, simplifier);
+			}
 		}
 
 
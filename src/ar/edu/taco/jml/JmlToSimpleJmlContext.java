@@ -12,6 +12,13 @@ public class JmlToSimpleJmlContext {
 		this.renaming.put(oldName, newName);
 	}
 
+	/**
+	 * Adds the renamings registered in <code>other</code>.
+	 */
+	public void merge(JmlToSimpleJmlContext other) {
+		this.renaming.putAll(other.renaming);
+	}
+
 	public Set<String> get_old_names() {
 		return this.renaming.keySet();
 	}
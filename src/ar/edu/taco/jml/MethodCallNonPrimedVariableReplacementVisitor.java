@@ -42,19 +42,19 @@ import org.multijava.mjc.JThisExpression;
 
 import ar.edu.taco.TacoNotImplementedYetException;
 import ar.edu.taco.simplejml.JmlBaseVisitor;
+import ar.edu.taco.utils.FreshNameSupply;
 
 
 public class MethodCallNonPrimedVariableReplacementVisitor extends JmlBaseVisitor {
 	
-	private static int newVarIndex = 0;
+	private static final String NEW_VAR_NAME_PREFIX = "newOldExpressionVarName_";
 	
 	private HashMap<JmlFormalParameter, JExpression> buffer = new HashMap<JmlFormalParameter, JExpression>();
 	
 	private Stack<Object> theStack = new Stack<Object>();
 	
 	private static String newVarName(){
-		String theVarName = "newOldExpressionVarName_" + newVarIndex;
-		newVarIndex++;
+		String theVarName = NEW_VAR_NAME_PREFIX + FreshNameSupply.getInstance().nextIndex(NEW_VAR_NAME_PREFIX);
 		return theVarName;
 	}
 	
@@ -47,6 +47,7 @@ import org.multijava.mjc.MjcVisitor;
 
 import ar.edu.taco.TacoNotImplementedYetException;
 import ar.edu.taco.simplejml.JmlBaseVisitor;
+import ar.edu.taco.utils.FreshNameSupply;
 
 
 
@@ -54,7 +55,7 @@ public class OldExpressionReplacerVisitor extends JmlBaseVisitor {
 
 	public HashMap<JmlFormalParameter, JExpression> buffer = new HashMap<JmlFormalParameter, JExpression>();
 	
-	public static int newParameterFromOldExpressionIndex = 0;
+	private static final String OLD_EXPRESSION_PARAMETER_NAME_PREFIX = "newParameterNameFromOldExpression_";
 	
 	public Stack<JExpression> theStack = new Stack<JExpression>();
 	
@@ -63,8 +64,7 @@ public class OldExpressionReplacerVisitor extends JmlBaseVisitor {
 	}
 	
 	public String newParameterNameFromOldExpression(){
-		String s = "newParameterNameFromOldExpression_" + newParameterFromOldExpressionIndex;
-		newParameterFromOldExpressionIndex++;
+		String s = OLD_EXPRESSION_PARAMETER_NAME_PREFIX + FreshNameSupply.getInstance().nextIndex(OLD_EXPRESSION_PARAMETER_NAME_PREFIX);
 		return s;
 	}
 	
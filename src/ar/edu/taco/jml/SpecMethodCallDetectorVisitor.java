@@ -0,0 +1,102 @@
+package ar.edu.taco.jml;
+
+import org.jmlspecs.checker.JmlClassDeclaration;
+import org.jmlspecs.checker.JmlCompilationUnit;
+import org.jmlspecs.checker.JmlConstructorDeclaration;
+import org.jmlspecs.checker.JmlInterfaceDeclaration;
+import org.jmlspecs.checker.JmlInvariant;
+import org.jmlspecs.checker.JmlMethodDeclaration;
+import org.multijava.mjc.JMethodCallExpression;
+import org.multijava.mjc.JTypeDeclarationType;
+
+/**
+ * Scans invariants and method specifications looking for the method calls
+ * that <code>SpecMethodCallRemoverVisitor</code> would replace by fresh
+ * parameters/fields. If none is found, the simplified compilation units do
+ * not depend on the method under analysis and the front-end output can be
+ * shared among several methods of the same class.
+ *
+ * It also records whether the specifications use <code>int_size</code>,
+ * whose translation depends on the bitwidth.
+ *
+ * The visitor does not build a new AST: every declaration is pushed back
+ * unchanged.
+ */
+public class SpecMethodCallDetectorVisitor extends SpecMethodCallRemoverVisitor {
+
+	private boolean specMethodCallFound = false;
+
+	private boolean intSizeFound = false;
+
+	public boolean isSpecMethodCallFound() {
+		return specMethodCallFound;
+	}
+
+	public boolean isIntSizeFound() {
+		return intSizeFound;
+	}
+
+	@Override
+	public void visitJmlCompilationUnit(JmlCompilationUnit self) {
+		for (JTypeDeclarationType typeDeclaration : self.typeDeclarations()) {
+			typeDeclaration.accept(this);
+			this.getStack().pop();
+		}
+		this.getStack().push(self);
+	}
+
+	@Override
+	public void visitJmlInterfaceDeclaration(JmlInterfaceDeclaration self) {
+		this.getStack().push(self);
+	}
+
+	@Override
+	public void visitJmlClassDeclaration(JmlClassDeclaration self) {
+		for (JmlInvariant inv : self.invariants()) {
+			this.translatingAnInvariant = true;
+			inv.accept(this);
+			this.translatingAnInvariant = false;
+			this.getStack().pop();
+		}
+		for (Object method : self.methods()) {
+			((JmlMethodDeclaration) method).accept(this);
+			this.getStack().pop();
+		}
+		this.getStack().push(self);
+	}
+
+	@Override
+	public void visitJmlConstructorDeclaration(JmlConstructorDeclaration self) {
+		visitSpecification(self);
+	}
+
+	@Override
+	public void visitJmlMethodDeclaration(JmlMethodDeclaration self) {
+		visitSpecification(self);
+	}
+
+	private void visitSpecification(JmlMethodDeclaration self) {
+		if (self.methodSpecification() != null) {
+			try {
+				self.methodSpecification().accept(this);
+				this.getStack().pop();
+			} catch (IllegalArgumentException e) {
+				// not specified clauses are only rejected for the method
+				// under analysis, be conservative
+				specMethodCallFound = true;
+			}
+		}
+		this.getStack().push(self);
+	}
+
+	@Override
+	public void visitMethodCallExpression(JMethodCallExpression self) {
+		if (self.ident().equals("int_size")) {
+			intSizeFound = true;
+		} else if (!self.ident().equals("has")) {
+			specMethodCallFound = true;
+		}
+		super.visitMethodCallExpression(self);
+	}
+
+}
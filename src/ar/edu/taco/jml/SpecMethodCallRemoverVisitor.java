@@ -87,11 +87,12 @@ import org.multijava.util.compiler.JavaStyleComment;
 import org.multijava.util.compiler.UnpositionedError;
 
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.edu.taco.utils.jml.JmlAstClonerStatementVisitor;
 
 public class SpecMethodCallRemoverVisitor extends JmlAstClonerStatementVisitor {
 
-	public static int newReturnParameterIndex = 0;
+	private static final String RETURN_PARAMETER_NAME_PREFIX = "returnVarFromSpecMethodCall_";
 
 	public boolean translatingAnInvariant = false;
 
@@ -109,8 +110,7 @@ public class SpecMethodCallRemoverVisitor extends JmlAstClonerStatementVisitor {
 
 
 	private String generateNewReturnParameterName(){
-		String theName = "returnVarFromSpecMethodCall_" + newReturnParameterIndex;
-		newReturnParameterIndex++;
+		String theName = RETURN_PARAMETER_NAME_PREFIX + FreshNameSupply.getInstance().nextIndex(RETURN_PARAMETER_NAME_PREFIX);
 		return theName;
 	}
 
@@ -71,6 +71,7 @@ import ar.edu.taco.TacoNotImplementedYetException;
 import ar.edu.taco.jml.utils.ASTUtils;
 import ar.edu.taco.simplejml.methodinfo.MethodInformation;
 import ar.edu.taco.simplejml.methodinfo.MethodInformationBuilder;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.edu.taco.utils.jml.JmlAstClonerExpressionVisitor;
 
 /**
@@ -81,7 +82,7 @@ import ar.edu.taco.utils.jml.JmlAstClonerExpressionVisitor;
  */
 public class ESExpressionVisitor extends JmlAstClonerExpressionVisitor {
 
-	private static int variableNameIndex = 0;
+	private static final String VARIABLE_NAME_PREFIX = "t_";
 
 	private List<JStatement> declarationStatements;
 
@@ -140,8 +141,8 @@ public class ESExpressionVisitor extends JmlAstClonerExpressionVisitor {
 	}
 
 	public static String createNewVariableName() {
-		ESExpressionVisitor.variableNameIndex++;
-		String s = "t_" + variableNameIndex;
+		int variableNameIndex = FreshNameSupply.getInstance().nextIndex(VARIABLE_NAME_PREFIX) + 1;
+		String s = VARIABLE_NAME_PREFIX + variableNameIndex;
 		return s;
 	}
 
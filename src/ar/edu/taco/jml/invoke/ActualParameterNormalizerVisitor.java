@@ -33,6 +33,7 @@ import org.multijava.util.compiler.JavaStyleComment;
 import ar.edu.taco.TacoNotImplementedYetException;
 import ar.edu.taco.jml.utils.ASTUtils;
 import ar.edu.taco.simplejml.JmlBaseVisitor;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.edu.taco.utils.jml.JmlAstClonerStatementVisitor;
 import ar.uba.dc.rfm.alloy.AlloyVariable;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
@@ -40,7 +41,7 @@ import ar.uba.dc.rfm.alloy.util.VarSubstitutor;
 
 public class ActualParameterNormalizerVisitor extends JmlAstClonerStatementVisitor {
 
-	public static int newParameterIndex = 0;
+	private static final String NEW_PARAMETER_NAME_KIND = "param_";
 
 	public ActualParameterNormalizerVisitor(){}
 
@@ -130,7 +131,7 @@ public class ActualParameterNormalizerVisitor extends JmlAstClonerStatementVisit
 	}
 	
 	private String createNewParameterName(String inputName){
-		return "param_" + inputName + "_" + newParameterIndex++;
+		return "param_" + inputName + "_" + FreshNameSupply.getInstance().nextIndex(NEW_PARAMETER_NAME_KIND);
 	}
 
 
@@ -19,6 +19,7 @@
  */
 package ar.edu.taco.jml.loop;
 
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.edu.taco.utils.jml.JmlAstClonerStatementVisitor;
 import org.jmlspecs.checker.JmlAssignmentStatement;
 import org.multijava.mjc.*;
@@ -29,21 +30,16 @@ import java.util.Set;
 
 public class BreakRemoverSimplifier extends JmlAstClonerStatementVisitor {
 
-    private static int variableNameIndex = 0;
+    private static final String VARIABLE_NAME_PREFIX = "breakVariable_";
 
     private Set<JVariableDefinition> collectedBreaks = new LinkedHashSet<JVariableDefinition>();
 
-    public String createNewBreakVariableName() {
-        BreakRemoverSimplifier.variableNameIndex++;
-        String s = "breakVariable_" + variableNameIndex;
-        return s;
-    }
-
     @Override
     public void visitBreakStatement(/* @non_null */JBreakStatement self) {
-           String varName = createNewBreakVariableName();
+        int variableNameIndex = FreshNameSupply.getInstance().nextIndex(VARIABLE_NAME_PREFIX) + 1;
+        String varName = VARIABLE_NAME_PREFIX + variableNameIndex;
         JVariableDefinition breakVariableDefinition = new JVariableDefinition(self.getTokenReference(), 0, CType.parseSignature("Z"), varName, new JBooleanLiteral(self.getTokenReference(), true));
-        breakVariableDefinition.setIndex(this.variableNameIndex);
+        breakVariableDefinition.setIndex(variableNameIndex);
         JLocalVariableExpression new_breakVariableDefinition_expre = new JLocalVariableExpression(self.getTokenReference(), breakVariableDefinition);
         JAssignmentExpression assExprBreak = new JAssignmentExpression(self.getTokenReference(), new_breakVariableDefinition_expre, new JBooleanLiteral(self.getTokenReference(), true));
         JExpressionStatement breakExprStatement = new JExpressionStatement(self.getTokenReference(), assExprBreak, self.getComments());
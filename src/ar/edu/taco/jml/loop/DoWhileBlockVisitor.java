@@ -33,11 +33,12 @@ import org.multijava.mjc.JVariableDefinition;
 import org.multijava.util.compiler.JavaStyleComment;
 
 import ar.edu.taco.jml.utils.ASTUtils;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.edu.taco.utils.jml.JmlAstClonerStatementVisitor;
 
 public class DoWhileBlockVisitor extends JmlAstClonerStatementVisitor {
 
-    private static int variableNameIndex = 0;
+    private static final String VARIABLE_NAME_PREFIX = "dws_";
 
     public List<JStatement> getNewDoWhileStatements() {
         return newStatements;
@@ -54,8 +55,8 @@ public class DoWhileBlockVisitor extends JmlAstClonerStatementVisitor {
     }
 
     public String createNewDoWhileVariableName() {
-        DoWhileBlockVisitor.variableNameIndex++;
-        String s = "dws_" + variableNameIndex;
+        int variableNameIndex = FreshNameSupply.getInstance().nextIndex(VARIABLE_NAME_PREFIX) + 1;
+        String s = VARIABLE_NAME_PREFIX + variableNameIndex;
         return s;
     }	
 
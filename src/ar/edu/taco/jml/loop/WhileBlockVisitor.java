@@ -48,13 +48,14 @@ import org.multijava.util.compiler.JavaStyleComment;
 import org.multijava.util.compiler.UnpositionedError;
 
 import ar.edu.taco.jml.utils.ASTUtils;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.edu.taco.utils.jml.JmlAstClonerStatementVisitor;
 
 public class WhileBlockVisitor extends JmlAstClonerStatementVisitor {
 
-	private static int variantFunctionIndex = 0;
+	private static final String VARIANT_NAME_PREFIX = "variant_";
 
-	private static int variableNameIndex = 0;
+	private static final String VARIABLE_NAME_PREFIX = "ws_";
 
 	public List<JStatement> getNewWhileStatements() {
 		return newStatements;
@@ -71,8 +72,8 @@ public class WhileBlockVisitor extends JmlAstClonerStatementVisitor {
 	}
 
 	public String createNewWhileVariableName() {
-		WhileBlockVisitor.variableNameIndex++;
-		String s = "ws_" + variableNameIndex;
+		int variableNameIndex = FreshNameSupply.getInstance().nextIndex(VARIABLE_NAME_PREFIX) + 1;
+		String s = VARIABLE_NAME_PREFIX + variableNameIndex;
 		return s;
 	}	
 
@@ -146,8 +147,7 @@ public class WhileBlockVisitor extends JmlAstClonerStatementVisitor {
 		JmlVariantFunction[] varFunctions = self.variantFunctions();
 		if (varFunctions.length > 0){
 			CType type = varFunctions[0].specExpression().getApparentType();
-			String newVarName = "variant_" + variantFunctionIndex;
-			variantFunctionIndex++;
+			String newVarName = VARIANT_NAME_PREFIX + FreshNameSupply.getInstance().nextIndex(VARIANT_NAME_PREFIX);
 			JVariableDefinition variableVariantFunction = new JVariableDefinition(loopStatement.getTokenReference(), 0, type, newVarName, varFunctions[0].specExpression());
 			JVariableDeclarationStatement theVariantFunctionVariableDeclaration = new JVariableDeclarationStatement(loopStatement.getTokenReference(), variableVariantFunction, new JavaStyleComment[]{});
 
@@ -40,6 +40,7 @@ import org.multijava.util.compiler.CompilationAbortedError;
 import org.multijava.util.compiler.CompilationAbortedException;
 
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoContext;
 import ar.edu.taco.TacoException;
 
 public class JmlParser {
@@ -73,11 +74,17 @@ public class JmlParser {
 
     private final static JmlParser instance = new JmlParser();
 
+    private static String checkerClassPath = null;
+
     private boolean initialized = false;
     private List<String> file_sources;
     private final HashMap<String, JCompilationUnitType> compilation_unit_of = new HashMap<String, JCompilationUnitType>();
 
     public static JmlParser getInstance() {
+        TacoContext context = TacoContext.getCurrent();
+        if (context != null) {
+            return context.getJmlParser();
+        }
         return instance;
     }
 
@@ -102,10 +109,7 @@ public class JmlParser {
         JmlOptions options = new JmlOptions("jml");
 
         // Paths
-        String classPath = System.getProperty("java.class.path") + PATH_SEP + appClassPath + PATH_SEP
-                + "D:/work/facu/Tesis/Workspace/dynjalloy/lib/jml-release.jar" + PATH_SEP;
-
-        options.set_classpath(classPath);
+        options.set_classpath(getCheckerClassPath(appClassPath));
         StringBuilder sourcePath = new StringBuilder();
         for (String s : sources)
             sourcePath.append(s).append(PATH_SEP);
@@ -165,6 +169,23 @@ public class JmlParser {
         return true;
     }
 
+    /**
+     * The type checker keeps the library types it loaded (the JDK specs, the
+     * JML models) from one compilation session to the next, but forgets them
+     * all whenever the class path changes. The class path is therefore fixed
+     * by the first session of the JVM, so every later parse, including the
+     * parse of the simplified sources and the runs of a batch, reuses the
+     * library specs instead of parsing and type checking them again.
+     */
+    private static synchronized String getCheckerClassPath(String appClassPath) {
+        if (checkerClassPath == null) {
+            checkerClassPath = System.getProperty("java.class.path") + PATH_SEP + appClassPath + PATH_SEP;
+        } else if (!checkerClassPath.contains(PATH_SEP + appClassPath + PATH_SEP)) {
+            checkerClassPath = checkerClassPath + appClassPath + PATH_SEP;
+        }
+        return checkerClassPath;
+    }
+
     protected String getFile(String className, List<String> sources) {
         // check if we are in a thread
         // if true, remove prefix to get pure class name
@@ -56,14 +56,15 @@ import org.multijava.util.compiler.PositionedError;
 import org.multijava.util.compiler.UnpositionedError;
 
 import ar.edu.taco.jml.utils.ASTUtils;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.edu.taco.utils.jml.JmlAstClonerStatementVisitor;
 
 public class VNBlockVisitor extends JmlAstClonerStatementVisitor {
-    private static int variableNameIndex = 0;
+    private static final String VARIABLE_NAME_PREFIX = "var_";
 
     public String createNewName(String originalName) {
-        variableNameIndex++;
-        String s = "var_" + variableNameIndex + "_" + originalName;
+        int variableNameIndex = FreshNameSupply.getInstance().nextIndex(VARIABLE_NAME_PREFIX) + 1;
+        String s = VARIABLE_NAME_PREFIX + variableNameIndex + "_" + originalName;
         return s;
     }
 
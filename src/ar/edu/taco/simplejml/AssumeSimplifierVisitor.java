@@ -28,16 +28,16 @@ import org.multijava.util.compiler.JavaStyleComment;
 
 import ar.edu.jdynalloy.ast.JBlock;
 import ar.edu.jdynalloy.ast.JVariableDeclaration;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.edu.taco.utils.jml.JmlAstClonerStatementVisitor;
 
 public class AssumeSimplifierVisitor extends JmlAstClonerStatementVisitor{
 
-	public static int assumeSimplifierVarIndex = 0;
+	private static final String VAR_NAME_PREFIX = "rightHandSideFormerAssume_";
 	public HashSet<JmlFormalParameter> newParameters = new HashSet<JmlFormalParameter>(); 
 	
 	public String getNewVarName(){
-		assumeSimplifierVarIndex++;
-		return "rightHandSideFormerAssume_" + assumeSimplifierVarIndex;
+		return VAR_NAME_PREFIX + (FreshNameSupply.getInstance().nextIndex(VAR_NAME_PREFIX) + 1);
 	}
 	
 	@Override
@@ -99,7 +99,7 @@ import ar.edu.taco.jml.loop.HasBreakStatementVisitor;
 import ar.edu.taco.jml.utils.LabelUtils;
 import ar.edu.taco.simplejml.JmlBaseExpressionVisitor.Instant;
 import ar.edu.taco.simplejml.builtin.AuxiliaryConstantsFactory;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveIntegerValue;
+import ar.edu.taco.simplejml.builtin.JavaPrimitiveLiterals;
 import ar.edu.taco.simplejml.builtin.AuxiliaryConstantsFactory.AddAuxiliaryConstants;
 import ar.edu.taco.simplejml.builtin.AuxiliaryConstantsFactory.DivAuxiliaryConstants;
 import ar.edu.taco.simplejml.builtin.AuxiliaryConstantsFactory.MinusAuxiliaryConstants;
@@ -108,6 +108,7 @@ import ar.edu.taco.simplejml.helpers.BlockStatementSolver;
 import ar.edu.taco.simplejml.helpers.CTypeAdapter;
 import ar.edu.taco.simplejml.helpers.ExpressionSolver;
 import ar.edu.taco.simplejml.helpers.JavaOperatorSolver;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.uba.dc.rfm.alloy.AlloyTyping;
 import ar.uba.dc.rfm.alloy.AlloyVariable;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
@@ -137,7 +138,7 @@ public class BlockStatementsVisitor extends JDynAlloyASTVisitor {
 
 	private Stack<ExprVariable> whileIndices = new Stack<ExprVariable>();
 
-	private static int variantFunctionIndex = 0;
+	private static final String VARIANT_NAME_PREFIX = "variant_";
 
 	/**
 	 * @return the varsEncodingValueOfArithmeticOperationsInRequiresAndEnsures
@@ -504,8 +505,7 @@ public class BlockStatementsVisitor extends JDynAlloyASTVisitor {
 		JmlVariantFunction[] varFunctions = jmlLoopStatement.variantFunctions();
 		if (varFunctions.length > 0){
 			CType type = varFunctions[0].specExpression().getApparentType();
-			String newVarName = "variant_" + variantFunctionIndex;
-			variantFunctionIndex++;
+			String newVarName = VARIANT_NAME_PREFIX + FreshNameSupply.getInstance().nextIndex(VARIANT_NAME_PREFIX);
 			JVariableDefinition variableVariantFunction = new JVariableDefinition(loopStatement.getTokenReference(), 0, type, newVarName, varFunctions[0].specExpression());
 			JVariableDeclarationStatement theVariantFunctionVariableDeclaration = new JVariableDeclarationStatement(loopStatement.getTokenReference(), variableVariantFunction, new JavaStyleComment[]{});
 
@@ -584,7 +584,7 @@ public class BlockStatementsVisitor extends JDynAlloyASTVisitor {
 		AlloyExpression[] alloyExpressions = new AlloyExpression[2];
 		alloyExpressions[0] = leftSide;
 		if (TacoConfigurator.getInstance().getUseJavaArithmetic() == true) {
-			alloyExpressions[1] = JavaPrimitiveIntegerValue.getInstance().toJavaPrimitiveIntegerLiteral(1,false);
+			alloyExpressions[1] = JavaPrimitiveLiterals.integerLiteral(1);
 		} else {
 			alloyExpressions[1] = new ExprIntLiteral(1);
 		}
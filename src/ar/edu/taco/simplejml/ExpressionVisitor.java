@@ -86,10 +86,7 @@ import ar.edu.jdynalloy.xlator.JTypeHelper;
 import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.TacoException;
 import ar.edu.taco.TacoNotImplementedYetException;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveCharValue;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveFloatValue;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveIntegerValue;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveLongValue;
+import ar.edu.taco.simplejml.builtin.JavaPrimitiveLiterals;
 import ar.edu.taco.simplejml.helpers.ArgEncoder;
 import ar.edu.taco.simplejml.helpers.CTypeAdapter;
 import ar.edu.taco.simplejml.helpers.ExpressionSolver;
@@ -313,8 +310,7 @@ public class ExpressionVisitor extends BaseExpressionVisitor {
         //		super.getStack().push(hashCodeExpression);
 
         char theCharLiteral = (char)jCharLiteral.getValue();
-        AlloyExpression literalAlloyExpression = JavaPrimitiveCharValue
-                .getInstance().toJavaPrimitiveCharLiteral(theCharLiteral, false);
+        AlloyExpression literalAlloyExpression = JavaPrimitiveLiterals.charLiteral(theCharLiteral);
 
         super.getStack().push(literalAlloyExpression);
 
@@ -787,22 +783,19 @@ public class ExpressionVisitor extends BaseExpressionVisitor {
 
                 int int_value = jOrdinalLiteral.numberValue().intValue();
 
-                literalAlloyExpression = JavaPrimitiveIntegerValue
-                        .getInstance().toJavaPrimitiveIntegerLiteral(int_value, false);
+                literalAlloyExpression = JavaPrimitiveLiterals.integerLiteral(int_value);
 
             } else if (alloy_type
                     .equals(JSignatureFactory.JAVA_PRIMITIVE_LONG_VALUE)) {
 
                 long long_value = jOrdinalLiteral.numberValue().longValue();
 
-                literalAlloyExpression = JavaPrimitiveLongValue.getInstance()
-                        .toJavaPrimitiveLongLiteral(long_value, false);
+                literalAlloyExpression = JavaPrimitiveLiterals.longLiteral(long_value);
 
             } else if (alloy_type.equals(JSignatureFactory.JAVA_PRIMITIVE_CHAR_VALUE)) {
 
                 char char_value = ((char) jOrdinalLiteral.numberValue().intValue());
-                literalAlloyExpression = JavaPrimitiveCharValue.getInstance()
-                        .toJavaPrimitiveCharLiteral(char_value, false);
+                literalAlloyExpression = JavaPrimitiveLiterals.charLiteral(char_value);
 
             } else if (alloy_type.equals(JSignatureFactory.ALLOY_INT)) {
 
@@ -989,8 +982,7 @@ public class ExpressionVisitor extends BaseExpressionVisitor {
                 + prettyPrint.getPrettyPrint());
 
         float float_literal = jRealLiteral.numberValue().floatValue();
-        AlloyExpression literalAlloyExpression = JavaPrimitiveFloatValue
-                .getInstance().toJavaPrimitiveFloatLiteral(float_literal, false);
+        AlloyExpression literalAlloyExpression = JavaPrimitiveLiterals.floatLiteral(float_literal);
 
         super.getStack().push(literalAlloyExpression);
 
@@ -111,7 +111,8 @@ public class JDynAlloyASTVisitor extends JmlAstTransverseStatementVisitor {
 
 	private List<JCompilationUnitType> compilationUnits;
 
-	private static String currentModuleName;
+	// per thread, the units may be translated concurrently
+	private static final ThreadLocal<String> currentModuleName = new ThreadLocal<String>();
 
 
 	public JDynAlloyASTVisitor(){
@@ -193,7 +194,7 @@ public class JDynAlloyASTVisitor extends JmlAstTransverseStatementVisitor {
 
 	}
 
-	private static FieldTypes currentModuleFieldsTypes;
+	private static final ThreadLocal<FieldTypes> currentModuleFieldsTypes = new ThreadLocal<FieldTypes>();
 
 
 	public JDynAlloyASTVisitor(Map<String, List<String>> modulesObjectState, 
@@ -218,11 +219,11 @@ public class JDynAlloyASTVisitor extends JmlAstTransverseStatementVisitor {
 	}
 
 	public static String getCurrentModuleName() {
-		return currentModuleName;
+		return currentModuleName.get();
 	}
 
 	public static JType getVariableTypeOnCurrentModule(String varName) {
-		return currentModuleFieldsTypes.get(varName);
+		return currentModuleFieldsTypes.get().get(varName);
 	}
 
 	/**
@@ -373,7 +374,7 @@ public class JDynAlloyASTVisitor extends JmlAstTransverseStatementVisitor {
 		// variableType.setAsNonNull();
 		// }
 
-		JDynAlloyASTVisitor.currentModuleFieldsTypes.put(alloyVariable.getVariableId().getString(), variableType);
+		JDynAlloyASTVisitor.currentModuleFieldsTypes.get().put(alloyVariable.getVariableId().getString(), variableType);
 
 		if (jmlFieldDeclaration.getField().isFieldStatic()) {
 			this.buffer.getStaticFields().put(alloyVariable, variableType);
@@ -504,7 +505,7 @@ public class JDynAlloyASTVisitor extends JmlAstTransverseStatementVisitor {
 		buffer = new DynJMLAlloyModuleBuffer();
 
 		JavaClassNameNormalizer classNameNormalizer = new JavaClassNameNormalizer(jmlTypeDeclaration.getCClass().getJavaName());
-		JDynAlloyASTVisitor.currentModuleName = classNameNormalizer.getQualifiedClassName();
+		JDynAlloyASTVisitor.currentModuleName.set(classNameNormalizer.getQualifiedClassName());
 
 		// process supper interfaces
 		for (CClassType superInterface : jmlTypeDeclaration.getCClass().getInterfaces()) {
@@ -527,15 +528,13 @@ public class JDynAlloyASTVisitor extends JmlAstTransverseStatementVisitor {
 		buffer.setSignatureId(name);
 		buffer.setThisType(new JType(name));
 
-		JDynAlloyASTVisitor.currentModuleFieldsTypes = new FieldTypes();
+		JDynAlloyASTVisitor.currentModuleFieldsTypes.set(new FieldTypes());
 
 		// Transverse Fields
 		if (jmlTypeDeclaration.fields() != null) {
 			List<AlloyFormula> nullityFieldsInvariants = new ArrayList<AlloyFormula>();
 
 			List<String> modelFieldList = extractFieldsName(jmlTypeDeclaration.getModelFields());
-			List<String> objectStateFieldsNames = new ArrayList<String>();
-			List<String> noStaticFieldsNames = new ArrayList<String>();
 			for (JFieldDeclarationType jFieldDeclarationType : jmlTypeDeclaration.fields()) {
 				jFieldDeclarationType.accept(this);
 
@@ -547,30 +546,9 @@ public class JDynAlloyASTVisitor extends JmlAstTransverseStatementVisitor {
 					AlloyFormula nullityFormula = new NotFormula(new EqualsFormula(varExpression, JExpressionFactory.NULL_EXPRESSION));
 					nullityFieldsInvariants.add(nullityFormula);
 				}
-
-				if (jFieldDeclarationType instanceof JmlFieldDeclaration) {
-					JmlFieldDeclaration jmlFieldDeclaration = (JmlFieldDeclaration) jFieldDeclarationType;
-
-					if (!jmlFieldDeclaration.getField().isStatic()) {
-						noStaticFieldsNames.add(jFieldDeclarationType.ident());
-					}
-
-					for (int x = 0; x < jmlFieldDeclaration.getCombinedInGroupClauses().length; x++) {
-						if (jmlFieldDeclaration.getCombinedInGroupClauses()[x].equals(OBJECT_STATE_STRING)) {
-							objectStateFieldsNames.add(jFieldDeclarationType.ident());
-						} else {
-							for (JmlStoreRefExpression jmlStoreRefExpression : jmlFieldDeclaration.getCombinedInGroupClauses()[x].groupList()) {
-								if (jmlStoreRefExpression.getName().equals(OBJECT_STATE_STRING)) {
-									objectStateFieldsNames.add(jFieldDeclarationType.ident());
-								}
-							}
-						}
-					}
-				}
 			}
 
-			this.modulesObjectState.put(name, objectStateFieldsNames);
-			this.modulesNoStaticFields.put(name, noStaticFieldsNames);
+			declareTypeFields(jmlTypeDeclaration, this.modulesObjectState, this.modulesNoStaticFields);
 			if (nullityFieldsInvariants.size() > 0) {
 				buffer.getInvariants().addAll(nullityFieldsInvariants);
 			}
@@ -586,6 +564,62 @@ public class JDynAlloyASTVisitor extends JmlAstTransverseStatementVisitor {
 		}
 	}
 
+	/**
+	 * Records the object state and the non static fields of every type in
+	 * <code>unit</code>, inner types included, so that the methods of any
+	 * unit can refer to them regardless of the order the units are
+	 * translated in.
+	 */
+	@SuppressWarnings("unchecked")
+	static void declareFields(JCompilationUnitType unit, Map<String, List<String>> modulesObjectState, Map<String, List<String>> modulesNoStaticFields) {
+		List<JmlTypeDeclaration> pending = new LinkedList<JmlTypeDeclaration>();
+		for (JTypeDeclarationType typeDeclaration : unit.typeDeclarations()) {
+			if (typeDeclaration instanceof JmlTypeDeclaration) {
+				pending.add((JmlTypeDeclaration) typeDeclaration);
+			}
+		}
+		while (!pending.isEmpty()) {
+			JmlTypeDeclaration jmlTypeDeclaration = pending.remove(0);
+			if (jmlTypeDeclaration.inners() != null) {
+				pending.addAll((ArrayList<JmlClassDeclaration>) jmlTypeDeclaration.inners());
+			}
+			if (jmlTypeDeclaration.fields() != null) {
+				declareTypeFields(jmlTypeDeclaration, modulesObjectState, modulesNoStaticFields);
+			}
+		}
+	}
+
+	private static void declareTypeFields(JmlTypeDeclaration jmlTypeDeclaration, Map<String, List<String>> modulesObjectState,
+			Map<String, List<String>> modulesNoStaticFields) {
+		List<String> objectStateFieldsNames = new ArrayList<String>();
+		List<String> noStaticFieldsNames = new ArrayList<String>();
+		for (JFieldDeclarationType jFieldDeclarationType : jmlTypeDeclaration.fields()) {
+			if (jFieldDeclarationType instanceof JmlFieldDeclaration) {
+				JmlFieldDeclaration jmlFieldDeclaration = (JmlFieldDeclaration) jFieldDeclarationType;
+
+				if (!jmlFieldDeclaration.getField().isStatic()) {
+					noStaticFieldsNames.add(jFieldDeclarationType.ident());
+				}
+
+				for (int x = 0; x < jmlFieldDeclaration.getCombinedInGroupClauses().length; x++) {
+					if (jmlFieldDeclaration.getCombinedInGroupClauses()[x].equals(OBJECT_STATE_STRING)) {
+						objectStateFieldsNames.add(jFieldDeclarationType.ident());
+					} else {
+						for (JmlStoreRefExpression jmlStoreRefExpression : jmlFieldDeclaration.getCombinedInGroupClauses()[x].groupList()) {
+							if (jmlStoreRefExpression.getName().equals(OBJECT_STATE_STRING)) {
+								objectStateFieldsNames.add(jFieldDeclarationType.ident());
+							}
+						}
+					}
+				}
+			}
+		}
+
+		String name = new JavaClassNameNormalizer(jmlTypeDeclaration.getCClass().getJavaName()).getQualifiedClassName();
+		modulesObjectState.put(name, objectStateFieldsNames);
+		modulesNoStaticFields.put(name, noStaticFieldsNames);
+	}
+
 	private List<String> extractFieldsName(JFieldDeclarationType[] modelFields) {
 		List<String> retValues = new ArrayList<String>();
 		for (JFieldDeclarationType fieldDeclarationType : modelFields) {
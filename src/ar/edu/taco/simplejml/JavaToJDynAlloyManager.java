@@ -56,11 +56,36 @@ public class JavaToJDynAlloyManager {
 		this.compilationUnits.addAll(compilation_units);
 	}
 
+	/**
+	 * Records the fields of the classes in <code>unit</code>, so that the
+	 * methods of the units processed later, by this manager or by its copies,
+	 * can refer to them.
+	 */
+	public void declareCompilationUnit(JCompilationUnitType unit) {
+		JDynAlloyASTVisitor.declareFields(unit, this.modulesObjectState, this.modulesNoStaticFields);
+	}
+
+	/**
+	 * @return a manager that knows the fields declared so far and records its
+	 *         own mappings and arithmetic encodings, so that different copies
+	 *         can process units concurrently.
+	 */
+	public JavaToJDynAlloyManager copy() {
+		JavaToJDynAlloyManager copy = new JavaToJDynAlloyManager(this.compilationUnits);
+		copy.modulesObjectState.putAll(this.modulesObjectState);
+		copy.modulesNoStaticFields.putAll(this.modulesNoStaticFields);
+		return copy;
+	}
+
 	public static String getModuleOutput(JDynAlloyModule module) {
+		return getModuleOutput(module, TacoConfigurator.getInstance().getUseJavaArithmetic());
+	}
+
+	public static String getModuleOutput(JDynAlloyModule module, boolean javaArithmetic) {
 		StringBuffer sb = new StringBuffer();
 
 		String modHeader = headerComment(module.getSignature().getSignatureId());
-		String modBody = (String) module.accept(new JDynAlloyPrinter(TacoConfigurator.getInstance().getUseJavaArithmetic()));
+		String modBody = (String) module.accept(new JDynAlloyPrinter(javaArithmetic));
 		sb.append(modHeader);
 		sb.append(modBody);
 
@@ -121,8 +121,6 @@ import ar.edu.taco.utils.jml.JmlAstClonerExpressionVisitor;
 
 public class JmlBaseVisitor extends JmlAbstractVisitor implements JmlVisitor {
 
-	public static int variableNameIndex;
-
 	private List<JStatement> newStatements;
 
 	
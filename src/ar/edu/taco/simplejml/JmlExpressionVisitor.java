@@ -105,9 +105,7 @@ import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.TacoException;
 import ar.edu.taco.TacoNotImplementedYetException;
 import ar.edu.taco.simplejml.builtin.JMLAuxiliaryConstantsFactory;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveFloatValue;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveIntegerValue;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveLongValue;
+import ar.edu.taco.simplejml.builtin.JavaPrimitiveLiterals;
 import ar.edu.taco.simplejml.builtin.JMLAuxiliaryConstantsFactory.JMLAddAuxiliaryConstants;
 import ar.edu.taco.simplejml.builtin.JMLAuxiliaryConstantsFactory.JMLDivAuxiliaryConstants;
 import ar.edu.taco.simplejml.builtin.JMLAuxiliaryConstantsFactory.JMLMinusAuxiliaryConstants;
@@ -1901,11 +1899,11 @@ public class JmlExpressionVisitor extends JmlBaseExpressionVisitor {
 
 				if (arrayContainsAnIntegerVariable(jmlSpecQuantifiedExpression.quantifiedVarDecls())){
 					for (int i = lower; i <= upper; i++){
-						JavaPrimitiveIntegerValue.getInstance().toJavaPrimitiveIntegerLiteral(i, false);
+						JavaPrimitiveLiterals.integerLiteral(i);
 					}
 				} else if (arrayContainsALongVariable(jmlSpecQuantifiedExpression.quantifiedVarDecls())){
 					for (int i = lower; i <= upper; i++){
-						JavaPrimitiveLongValue.getInstance().toJavaPrimitiveLongLiteral(i, false);
+						JavaPrimitiveLiterals.longLiteral(i);
 					}				
 				}
 
@@ -1963,11 +1961,11 @@ public class JmlExpressionVisitor extends JmlBaseExpressionVisitor {
 
 							if (lower <= upper){
 								AlloyFormula af = new EqualsFormula(ExprVariable.buildExprVariable(av), 
-										JavaPrimitiveIntegerValue.getInstance().toJavaPrimitiveIntegerLiteral(lower, false)
+										JavaPrimitiveLiterals.integerLiteral(lower)
 										);
 								for (int i = lower+1; i <= upper; i++){
 									af = new OrFormula(af, new EqualsFormula(ExprVariable.buildExprVariable(av), 
-											JavaPrimitiveIntegerValue.getInstance().toJavaPrimitiveIntegerLiteral(i, false)
+											JavaPrimitiveLiterals.integerLiteral(i)
 											));
 								}
 								alloyFormula = new AndFormula(alloyFormula, af);
@@ -1979,10 +1977,10 @@ public class JmlExpressionVisitor extends JmlBaseExpressionVisitor {
 //							alloyFormula = pff;
 							if (lower <= upper){
 								AlloyFormula af = new EqualsFormula(ExprVariable.buildExprVariable(av), 
-										JavaPrimitiveLongValue.getInstance().toJavaPrimitiveLongLiteral(lower, false));
+										JavaPrimitiveLiterals.longLiteral(lower));
 								for (int i = lower+1; i <= upper; i++){
 									af = new OrFormula(af, new EqualsFormula(ExprVariable.buildExprVariable(av), 
-											JavaPrimitiveLongValue.getInstance().toJavaPrimitiveLongLiteral(i, false)));
+											JavaPrimitiveLiterals.longLiteral(i)));
 								}
 								alloyFormula = new AndFormula(alloyFormula, af);
 							}
@@ -1994,12 +1992,12 @@ public class JmlExpressionVisitor extends JmlBaseExpressionVisitor {
 							if (lower <= upper){
 
 								List<AlloyExpression> params1 = new ArrayList<AlloyExpression>();
-								params1.add(JavaPrimitiveFloatValue.getInstance().toJavaPrimitiveFloatLiteral(lower, false));
+								params1.add(JavaPrimitiveLiterals.floatLiteral(lower));
 								params1.add(ExprVariable.buildExprVariable(av));
 
 								List<AlloyExpression> params2 = new ArrayList<AlloyExpression>();
 								params2.add(ExprVariable.buildExprVariable(av));
-								params2.add(JavaPrimitiveFloatValue.getInstance().toJavaPrimitiveFloatLiteral(upper, false));
+								params2.add(JavaPrimitiveLiterals.floatLiteral(upper));
 								AlloyFormula af = new AndFormula(new PredicateFormula(null, "pred_java_primitive_float_value_lte", params1), new PredicateFormula(null, "pred_java_primitive_float_value_lte", params2));
 								alloyFormula = new AndFormula(alloyFormula, af);
 							}
@@ -2185,7 +2183,7 @@ public class JmlExpressionVisitor extends JmlBaseExpressionVisitor {
 
 		} else if (jMethodCall.ident().equals("int_size")) {
 			for (int idx = 0; idx < (int) Math.pow(2, TacoConfigurator.getInstance().getBitwidth()-1); idx++ ){
-				JavaPrimitiveIntegerValue.getInstance().toJavaPrimitiveIntegerLiteral(idx, false);
+				JavaPrimitiveLiterals.integerLiteral(idx);
 			}
 			if (qualified_name.startsWith("org.jmlspecs.models.JMLObjectSet")) {
 				if (TacoConfigurator.getInstance().getUseJavaArithmetic() == true ){
@@ -2342,16 +2340,14 @@ public class JmlExpressionVisitor extends JmlBaseExpressionVisitor {
 
 				int int_value = jOrdinalLiteral.numberValue().intValue();
 
-				literalAlloyExpression = JavaPrimitiveIntegerValue
-						.getInstance().toJavaPrimitiveIntegerLiteral(int_value, false);
+				literalAlloyExpression = JavaPrimitiveLiterals.integerLiteral(int_value);
 
 			} else if (alloy_type
 					.equals(JSignatureFactory.JAVA_PRIMITIVE_LONG_VALUE)) {
 
 				long long_value = jOrdinalLiteral.numberValue().longValue();
 
-				literalAlloyExpression = JavaPrimitiveLongValue.getInstance()
-						.toJavaPrimitiveLongLiteral(long_value, false);
+				literalAlloyExpression = JavaPrimitiveLiterals.longLiteral(long_value);
 
 			} else if (alloy_type.equals(JSignatureFactory.ALLOY_INT)) {
 
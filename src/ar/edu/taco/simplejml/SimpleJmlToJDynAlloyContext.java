@@ -25,6 +25,14 @@ public class SimpleJmlToJDynAlloyContext {
 //		this.predsEncodingValueOfArithmeticOperationsInContracts.addAll(factCandidates);
 //	}
 	
+	/**
+	 * Adds the mappings recorded in <code>other</code>.
+	 */
+	public void merge(SimpleJmlToJDynAlloyContext other) {
+		this.simpleJml_to_JDynAlloy_map.putAll(other.simpleJml_to_JDynAlloy_map);
+		this.jdynalloy_to_simpleJml_map.putAll(other.jdynalloy_to_simpleJml_map);
+	}
+
 	public JDynAlloyASTNode get_jdynalloy_node(JmlNode simpleJml_node) {
 		return this.simpleJml_to_JDynAlloy_map.get(simpleJml_node);
 	}
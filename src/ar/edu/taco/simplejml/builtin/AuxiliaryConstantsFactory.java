@@ -17,6 +17,7 @@ import ar.edu.jdynalloy.factory.JExpressionFactory;
 import ar.edu.jdynalloy.factory.JPredicateFactory;
 import ar.edu.jdynalloy.factory.JSignatureFactory;
 import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.uba.dc.rfm.alloy.AlloyVariable;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
 import ar.uba.dc.rfm.alloy.ast.expressions.ExprConstant;
@@ -70,14 +71,20 @@ public abstract class AuxiliaryConstantsFactory {
 		}
 	}
 
-	private static int integer_mul_auxiliary_index = -1;
+	/**
+	 * Indexes are drawn from the FreshNameSupply of the current run, so
+	 * skolem constant names do not depend on previous translations.
+	 */
+	private static int next_auxiliary_index(String name_prefix) {
+		return FreshNameSupply.getInstance().nextIndex(name_prefix);
+	}
+
 
-	private static int long_mul_auxiliary_index = -1;
 
 	public static MultAuxiliaryConstants build_long_mult_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_mul_auxiliary_index = ++long_mul_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_MUL;
+		final int current_mul_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_mul_left = build_left_aux(predicate_id, current_mul_auxiliary_index);
 		String sk_mul_right = build_right_aux(predicate_id, current_mul_auxiliary_index);
@@ -97,12 +104,11 @@ public abstract class AuxiliaryConstantsFactory {
 		return mulAuxiliaryConstants;
 	}
 
-	private static int float_mul_auxiliary_index = -1;
 
 	public static MultAuxiliaryConstants build_float_mult_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_mul_auxiliary_index = ++float_mul_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_FLOAT_VALUE_MUL;
+		final int current_mul_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_mul_left = build_left_aux(predicate_id, current_mul_auxiliary_index);
 		String sk_mul_right = build_right_aux(predicate_id, current_mul_auxiliary_index);
@@ -123,11 +129,10 @@ public abstract class AuxiliaryConstantsFactory {
 	}
 
 
-	private static int char_charIntToInt_add_auxiliary_index = -1;
 
 	public static AddAuxiliaryConstants build_charIntToInt_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
-		final int add_auxiliary_index = ++char_charIntToInt_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_charIntToInt_VALUE_ADD;
+		final int add_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_add_left = build_left_aux(predicate_id, add_auxiliary_index);
 		String sk_add_right = build_right_aux(predicate_id, add_auxiliary_index);
@@ -149,11 +154,10 @@ public abstract class AuxiliaryConstantsFactory {
 	}
 
 
-	private static int char_intCharToInt_add_auxiliary_index = -1;
 
 	public static AddAuxiliaryConstants build_intCharToInt_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
-		final int add_auxiliary_index = ++char_intCharToInt_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_intCharToInt_VALUE_ADD;
+		final int add_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_add_left = build_left_aux(predicate_id, add_auxiliary_index);
 		String sk_add_right = build_right_aux(predicate_id, add_auxiliary_index);
@@ -175,11 +179,10 @@ public abstract class AuxiliaryConstantsFactory {
 	}
 
 
-	private static int char_charCharToInt_add_auxiliary_index = -1;
 
 	public static AddAuxiliaryConstants build_charCharToInt_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
-		final int add_auxiliary_index = ++char_charCharToInt_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_charCharToInt_VALUE_ADD;
+		final int add_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_add_left = build_left_aux(predicate_id, add_auxiliary_index);
 		String sk_add_right = build_right_aux(predicate_id, add_auxiliary_index);
@@ -202,11 +205,10 @@ public abstract class AuxiliaryConstantsFactory {
 
 
 
-	private static int char_intCharToInt_sub_auxiliary_index = -1;
 
 	public static MinusAuxiliaryConstants build_intCharToInt_sub_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
-		final int minus_auxiliary_index = ++char_intCharToInt_sub_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_intCharToInt_VALUE_SUB;
+		final int minus_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_add_left = build_left_aux(predicate_id, minus_auxiliary_index);
 		String sk_add_right = build_right_aux(predicate_id, minus_auxiliary_index);
@@ -229,11 +231,10 @@ public abstract class AuxiliaryConstantsFactory {
 
 
 
-	private static int char_charIntToInt_sub_auxiliary_index = -1;
 
 	public static MinusAuxiliaryConstants build_charIntToInt_sub_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
-		final int minus_auxiliary_index = ++char_charIntToInt_sub_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_charIntToInt_VALUE_SUB;
+		final int minus_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_add_left = build_left_aux(predicate_id, minus_auxiliary_index);
 		String sk_add_right = build_right_aux(predicate_id, minus_auxiliary_index);
@@ -257,11 +258,10 @@ public abstract class AuxiliaryConstantsFactory {
 
 
 
-	private static int char_charCharToInt_sub_auxiliary_index = -1;
 
 	public static MinusAuxiliaryConstants build_charCharToInt_sub_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
-		final int minus_auxiliary_index = ++char_charCharToInt_sub_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_charCharToInt_VALUE_SUB;
+		final int minus_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_add_left = build_left_aux(predicate_id, minus_auxiliary_index);
 		String sk_add_right = build_right_aux(predicate_id, minus_auxiliary_index);
@@ -285,13 +285,12 @@ public abstract class AuxiliaryConstantsFactory {
 
 
 
-	private static int float_add_auxiliary_index = -1;
 
 
 	public static AddAuxiliaryConstants build_float_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int add_auxiliary_index = ++float_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_FLOAT_VALUE_ADD;
+		final int add_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_add_left = build_left_aux(predicate_id, add_auxiliary_index);
 		String sk_add_right = build_right_aux(predicate_id, add_auxiliary_index);
@@ -314,12 +313,11 @@ public abstract class AuxiliaryConstantsFactory {
 		return auxiliaryConstants;
 	}
 
-	private static int float_sub_auxiliary_index = -1;
 
 	public static MinusAuxiliaryConstants build_float_sub_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		int sub_auxiliary_index = ++float_sub_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_FLOAT_VALUE_SUB;
+		int sub_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_sub_left = build_left_aux(predicate_id, sub_auxiliary_index);
 		String sk_sub_right = build_right_aux(predicate_id, sub_auxiliary_index);
@@ -374,8 +372,8 @@ public abstract class AuxiliaryConstantsFactory {
 
 	public static MultAuxiliaryConstants build_integer_mult_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_mul_auxiliary_index = ++integer_mul_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_MUL;
+		final int current_mul_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		// define sk var names
 
@@ -436,15 +434,14 @@ public abstract class AuxiliaryConstantsFactory {
 	//---------------------------
 
 
-	private static int integer_add_auxiliary_index = -1;
 
 
 	public static AddAuxiliaryConstants build_integer_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
 		AddAuxiliaryConstants auxiliaryConstants = null;
 
-		final int add_auxiliary_index = ++integer_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_ADD;
+		final int add_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_add_left = build_left_aux(predicate_id, add_auxiliary_index);
 		String sk_add_right = build_right_aux(predicate_id, add_auxiliary_index);
@@ -584,7 +581,6 @@ public abstract class AuxiliaryConstantsFactory {
 
 
 
-	private static int integer_divide_auxiliary_index = -1;
 
 
 	public static DivAuxiliaryConstants build_integer_divide_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
@@ -596,8 +592,8 @@ public abstract class AuxiliaryConstantsFactory {
 			DivAuxiliaryConstants auxiliaryConstantsThen = null;
 			DivAuxiliaryConstants auxiliaryConstantsElse = null;
 
-			int div_auxiliary_index = ++integer_divide_auxiliary_index;
 			final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_DIV_REM;
+			int div_auxiliary_index = next_auxiliary_index(predicate_id);
 
 			String sk_div_right_old = "auxVarForArithmeticExceptionDivisionByZeroJavaPrimitiveIntegerValue_" + div_auxiliary_index;
 			JVariableDeclaration var_decl_right_old = new JVariableDeclaration(new AlloyVariable(sk_div_right_old), JSignatureFactory.JAVA_PRIMITIVE_INTEGER_VALUE);
@@ -611,7 +607,7 @@ public abstract class AuxiliaryConstantsFactory {
 			AlloyFormula arithmeticExceptionCondition = OrFormula.buildOrFormula(new AlloyFormula[]{isZero});
 
 
-			div_auxiliary_index = ++integer_divide_auxiliary_index;
+			div_auxiliary_index = next_auxiliary_index(predicate_id);
 
 			String sk_div_left = build_left_aux(predicate_id, div_auxiliary_index);
 			String sk_div_right_new = build_right_aux(predicate_id, div_auxiliary_index);
@@ -627,7 +623,7 @@ public abstract class AuxiliaryConstantsFactory {
 			String marker_predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_DIV_REM_MARKER;
 
 			auxiliaryConstantsThen = create_divide_auxiliary_statements_for_Arithmetic_Exception(left, right, var_decl_left, var_decl_right_old, var_decl_right_new, var_decl_result,
-					var_decl_remainder, marker_predicate_id, JavaPrimitiveIntegerValue.getInstance().toJavaPrimitiveIntegerLiteral(1, false));
+					var_decl_remainder, marker_predicate_id, JavaPrimitiveLiterals.integerLiteral(1));
 
 			String arithmetic_exception_literal = JArithmeticException
 					.getInstance().getModule().getLiteralSingleton()
@@ -666,8 +662,8 @@ public abstract class AuxiliaryConstantsFactory {
 		} else {
 
 
-			final int div_auxiliary_index = ++integer_divide_auxiliary_index;
 			final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_DIV_REM;
+			final int div_auxiliary_index = next_auxiliary_index(predicate_id);
 
 			String sk_div_left = build_left_aux(predicate_id, div_auxiliary_index);
 			String sk_div_right = build_right_aux(predicate_id, div_auxiliary_index);
@@ -741,7 +737,6 @@ public abstract class AuxiliaryConstantsFactory {
 
 
 
-	private static int long_divide_auxiliary_index = -1;
 
 	public static DivAuxiliaryConstants build_long_divide_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
@@ -753,8 +748,8 @@ public abstract class AuxiliaryConstantsFactory {
 			DivAuxiliaryConstants auxiliaryConstantsThen = null;
 			DivAuxiliaryConstants auxiliaryConstantsElse = null;
 
-			int div_auxiliary_index = ++long_divide_auxiliary_index;
 			final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_DIV_REM;
+			int div_auxiliary_index = next_auxiliary_index(predicate_id);
 
 			String sk_div_right_old = "auxVarForArithmeticExceptionDivisionByZeroJavaPrimitiveLongValue_" + div_auxiliary_index;
 			JVariableDeclaration var_decl_right_old = new JVariableDeclaration(new AlloyVariable(sk_div_right_old), JSignatureFactory.JAVA_PRIMITIVE_LONG_VALUE);
@@ -768,7 +763,7 @@ public abstract class AuxiliaryConstantsFactory {
 			AlloyFormula arithmeticExceptionCondition = OrFormula.buildOrFormula(new AlloyFormula[]{isZero});
 
 
-			div_auxiliary_index = ++long_divide_auxiliary_index;
+			div_auxiliary_index = next_auxiliary_index(predicate_id);
 
 			String sk_div_left = build_left_aux(predicate_id, div_auxiliary_index);
 			String sk_div_right_new = build_right_aux(predicate_id, div_auxiliary_index);
@@ -784,7 +779,7 @@ public abstract class AuxiliaryConstantsFactory {
 			String marker_predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_DIV_REM_MARKER;
 
 			auxiliaryConstantsThen = create_divide_auxiliary_statements_for_Arithmetic_Exception(left, right, var_decl_left, var_decl_right_old, var_decl_right_new, var_decl_result,
-					var_decl_remainder, marker_predicate_id, JavaPrimitiveLongValue.getInstance().toJavaPrimitiveLongLiteral(1, false));
+					var_decl_remainder, marker_predicate_id, JavaPrimitiveLiterals.longLiteral(1));
 
 			String arithmetic_exception_literal = JArithmeticException
 					.getInstance().getModule().getLiteralSingleton()
@@ -823,8 +818,8 @@ public abstract class AuxiliaryConstantsFactory {
 		} else {
 
 
-			final int div_auxiliary_index = ++long_divide_auxiliary_index;
 			final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_DIV_REM;
+			final int div_auxiliary_index = next_auxiliary_index(predicate_id);
 
 			String sk_div_left = build_left_aux(predicate_id, div_auxiliary_index);
 			String sk_div_right = build_right_aux(predicate_id, div_auxiliary_index);
@@ -848,12 +843,11 @@ public abstract class AuxiliaryConstantsFactory {
 
 
 
-	private static int float_divide_auxiliary_index = -1;
 
 	public static DivAuxiliaryConstants build_float_divide_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int div_auxiliary_index = ++float_divide_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_FLOAT_VALUE_DIV;
+		final int div_auxiliary_index = next_auxiliary_index(predicate_id);
 
 		String sk_div_left = build_left_aux(predicate_id, div_auxiliary_index);
 		String sk_div_right = build_right_aux(predicate_id, div_auxiliary_index);
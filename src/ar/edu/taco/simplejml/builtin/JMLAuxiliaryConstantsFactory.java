@@ -15,6 +15,7 @@ import ar.edu.jdynalloy.xlator.JType;
 import ar.edu.taco.simplejml.builtin.JMLAuxiliaryConstantsFactory.JMLDivAuxiliaryConstants;
 import ar.edu.taco.simplejml.builtin.JMLAuxiliaryConstantsFactory.JMLModuloAuxiliaryConstants;
 import ar.edu.taco.simplejml.builtin.JMLAuxiliaryConstantsFactory.JMLMultAuxiliaryConstants;
+import ar.edu.taco.utils.FreshNameSupply;
 import ar.uba.dc.rfm.alloy.AlloyVariable;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
 import ar.uba.dc.rfm.alloy.ast.expressions.ExprVariable;
@@ -73,19 +74,19 @@ public abstract class JMLAuxiliaryConstantsFactory {
 	}
 
 
-	private static int integer_jml_add_auxiliary_index = -1;
+	private static int next_auxiliary_index(String name_prefix) {
+		return FreshNameSupply.getInstance().nextIndex(name_prefix);
+	}
+
 
-	private static int integer_char_jml_add_auxiliary_index = -1;
 
-	private static int char_integer_jml_add_auxiliary_index = -1;
 
-	private static int char_char_jml_add_auxiliary_index = -1;
 
 
 	public static JMLAddAuxiliaryConstants build_integer_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_add_auxiliary_index = ++integer_jml_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_ADD;
+		final int current_add_auxiliary_index = next_auxiliary_index(predicate_id + "_add");
 
 		// define sk var names
 
@@ -106,8 +107,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLAddAuxiliaryConstants build_integer_char_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_add_auxiliary_index = ++integer_char_jml_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_intCharToInt_VALUE_ADD;
+		final int current_add_auxiliary_index = next_auxiliary_index(predicate_id + "_add");
 
 		// define sk var names
 
@@ -128,8 +129,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLAddAuxiliaryConstants build_char_integer_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_add_auxiliary_index = ++char_integer_jml_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_charIntToInt_VALUE_ADD;
+		final int current_add_auxiliary_index = next_auxiliary_index(predicate_id + "_add");
 
 		// define sk var names
 
@@ -150,8 +151,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLAddAuxiliaryConstants build_char_char_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_add_auxiliary_index = ++char_char_jml_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_charCharToInt_VALUE_ADD;
+		final int current_add_auxiliary_index = next_auxiliary_index(predicate_id + "_add");
 
 		// define sk var names
 
@@ -170,12 +171,11 @@ public abstract class JMLAuxiliaryConstantsFactory {
 	}
 
 
-	private static int long_jml_add_auxiliary_index = -1;
 
 	public static JMLAddAuxiliaryConstants build_long_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_add_auxiliary_index = ++long_jml_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_ADD;
+		final int current_add_auxiliary_index = next_auxiliary_index(predicate_id + "_add");
 
 		// define sk var names
 
@@ -194,12 +194,11 @@ public abstract class JMLAuxiliaryConstantsFactory {
 	}
 
 
-	private static int float_add_auxiliary_index = -1;
 
 	public static JMLAddAuxiliaryConstants build_float_add_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int add_auxiliary_index = ++float_add_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_FLOAT_VALUE_ADD;
+		final int add_auxiliary_index = next_auxiliary_index(predicate_id + "_add");
 
 		String sk_add_result = build_result_aux(predicate_id + "_add", add_auxiliary_index);
 		String sk_add_compatibility = build_compatibility_aux(predicate_id + "_add", add_auxiliary_index);
@@ -252,18 +251,12 @@ public abstract class JMLAuxiliaryConstantsFactory {
 	}
 
 
-	private static int integer_jml_minus_auxiliary_index = -1;
-	private static int char_integer_jml_minus_auxiliary_index = -1;
-	private static int integer_char_jml_minus_auxiliary_index = -1;
-	private static int char_char_jml_minus_auxiliary_index = -1;
-	private static int long_jml_minus_auxiliary_index = -1;
-	private static int float_jml_minus_auxiliary_index = -1;
 
 
 	public static JMLMinusAuxiliaryConstants build_integer_minus_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_minus_auxiliary_index = ++integer_jml_minus_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_SUB;
+		final int current_minus_auxiliary_index = next_auxiliary_index(predicate_id + "_minus");
 
 		// define sk var names
 
@@ -283,8 +276,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLMinusAuxiliaryConstants build_char_integer_minus_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_minus_auxiliary_index = ++char_integer_jml_minus_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_charIntToInt_VALUE_SUB;
+		final int current_minus_auxiliary_index = next_auxiliary_index(predicate_id + "_minus");
 
 		// define sk var names
 
@@ -303,8 +296,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLMinusAuxiliaryConstants build_integer_char_minus_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_minus_auxiliary_index = ++integer_char_jml_minus_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_intCharToInt_VALUE_SUB;
+		final int current_minus_auxiliary_index = next_auxiliary_index(predicate_id + "_minus");
 
 		// define sk var names
 
@@ -324,8 +317,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLMinusAuxiliaryConstants build_char_char_minus_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_minus_auxiliary_index = ++char_char_jml_minus_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_charCharToInt_VALUE_SUB;
+		final int current_minus_auxiliary_index = next_auxiliary_index(predicate_id + "_minus");
 
 		// define sk var names
 
@@ -345,8 +338,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLMinusAuxiliaryConstants build_long_minus_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_minus_auxiliary_index = ++long_jml_minus_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_SUB;
+		final int current_minus_auxiliary_index = next_auxiliary_index(predicate_id + "_minus");
 
 		// define sk var names
 
@@ -367,8 +360,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLMinusAuxiliaryConstants build_float_minus_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_minus_auxiliary_index = ++float_jml_minus_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_FLOAT_VALUE_SUB;
+		final int current_minus_auxiliary_index = next_auxiliary_index(predicate_id + "_minus");
 
 		// define sk var names
 
@@ -405,21 +398,16 @@ public abstract class JMLAuxiliaryConstantsFactory {
 	}
 
 
-	private static int integer_jml_mul_auxiliary_index = -1;
 
-	private static int long_jml_mul_auxiliary_index = -1;
 
-	private static int float_mul_auxiliary_index = -1;
 
-	private static int char_int_jml_mul_auxiliary_index = -1;
 
-	private static int char_long_jml_mul_auxiliary_index = -1;
 
 
 	public static JMLMultAuxiliaryConstants build_integer_mult_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_mul_auxiliary_index = ++integer_jml_mul_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_MUL;
+		final int current_mul_auxiliary_index = next_auxiliary_index(predicate_id + "_mult");
 
 		// define sk var names
 
@@ -440,8 +428,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 	
 	public static JMLMultAuxiliaryConstants build_char_int_mult_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_mul_auxiliary_index = ++char_int_jml_mul_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_CHAR_VALUE_INT_MUL;
+		final int current_mul_auxiliary_index = next_auxiliary_index(predicate_id + "_mult");
 
 		// define sk var names
 
@@ -462,8 +450,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 	
 	public static JMLMultAuxiliaryConstants build_char_long_mult_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_mul_auxiliary_index = ++char_long_jml_mul_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_CHAR_VALUE_LONG_MUL;
+		final int current_mul_auxiliary_index = next_auxiliary_index(predicate_id + "_mult");
 
 		// define sk var names
 
@@ -485,8 +473,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLMultAuxiliaryConstants build_long_mult_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_mul_auxiliary_index = ++long_jml_mul_auxiliary_index;
 		final String predicateId = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_MUL;
+		final int current_mul_auxiliary_index = next_auxiliary_index(predicateId + "_mult");
 
 		String sk_mul_result = build_result_aux(predicateId + "_mult", current_mul_auxiliary_index);
 		String sk_mul_overflow = build_overflow_aux(predicateId + "_mult", current_mul_auxiliary_index);
@@ -503,8 +491,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLMultAuxiliaryConstants build_float_mult_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int current_mul_auxiliary_index = ++float_mul_auxiliary_index;
 		final String predicateId = JPredicateFactory.PRED_JAVA_PRIMITIVE_FLOAT_VALUE_MUL;
+		final int current_mul_auxiliary_index = next_auxiliary_index(predicateId + "_mult");
 
 		String sk_mul_result = build_result_aux(predicateId + "_mult", current_mul_auxiliary_index);
 		String sk_mul_overflow = build_overflow_aux(predicateId + "_mult", current_mul_auxiliary_index);
@@ -578,18 +566,15 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 
 
-	private static int integer_divide_auxiliary_index = -1;
 
-	private static int long_divide_auxiliary_index = -1;
 
-	private static int float_divide_auxiliary_index = -1;
 
 
 
 	public static JMLDivAuxiliaryConstants build_integer_divide_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int div_auxiliary_index = ++integer_divide_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_DIV_REM;
+		final int div_auxiliary_index = next_auxiliary_index(predicate_id + "_divide");
 
 		String sk_div_result = build_result_aux(predicate_id + "_divide", div_auxiliary_index);
 		String sk_div_remainder = build_remainder_aux(predicate_id + "_divide", div_auxiliary_index);
@@ -605,8 +590,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLDivAuxiliaryConstants build_long_divide_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int div_auxiliary_index = ++long_divide_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_DIV_REM;
+		final int div_auxiliary_index = next_auxiliary_index(predicate_id + "_divide");
 
 		String sk_div_result = build_result_aux(predicate_id + "_divide", div_auxiliary_index);
 		String sk_div_remainder = build_remainder_aux(predicate_id + "_divide", div_auxiliary_index);
@@ -626,8 +611,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLDivAuxiliaryConstants build_float_divide_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int div_auxiliary_index = ++float_divide_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_FLOAT_VALUE_DIV;
+		final int div_auxiliary_index = next_auxiliary_index(predicate_id + "_divide");
 
 		String sk_div_result = build_result_aux(predicate_id + "_divide", div_auxiliary_index);
 		String sk_div_remainder = build_remainder_aux(predicate_id + "_divide", div_auxiliary_index);
@@ -680,17 +665,11 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 
 
-	private static int integer_modulo_auxiliary_index = -1;
 
-	private static int long_modulo_auxiliary_index = -1;
 
-	private static int char_modulo_int_auxiliary_index = -1;
 
-	private static int char_modulo_long_auxiliary_index = -1;
 
-	private static int char_int_divide_auxiliary_index = -1;
 
-	private static int char_long_divide_auxiliary_index = -1;
 
 	
 
@@ -700,8 +679,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLModuloAuxiliaryConstants build_integer_modulo_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int mod_auxiliary_index = ++integer_modulo_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_INTEGER_VALUE_DIV_REM;
+		final int mod_auxiliary_index = next_auxiliary_index(predicate_id + "_modulo");
 
 		String sk_mod_quotient = build_result_aux(predicate_id + "_modulo", mod_auxiliary_index);
 		String sk_mod_remainder = build_remainder_aux(predicate_id + "_modulo", mod_auxiliary_index);
@@ -717,8 +696,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLModuloAuxiliaryConstants build_long_modulo_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
 
-		final int mod_auxiliary_index = ++long_modulo_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_LONG_VALUE_DIV_REM;
+		final int mod_auxiliary_index = next_auxiliary_index(predicate_id + "_modulo");
 
 		String sk_mod_quotient = build_result_aux(predicate_id + "_modulo", mod_auxiliary_index);
 		String sk_mod_remainder = build_remainder_aux(predicate_id + "_modulo", mod_auxiliary_index);
@@ -734,8 +713,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 
 	public static JMLModuloAuxiliaryConstants build_char_modulo_int_auxiliary_constants(AlloyExpression left, AlloyExpression right) {
-		final int mod_auxiliary_index = ++char_modulo_int_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_CHAR_INT_VALUE_DIV_REM;
+		final int mod_auxiliary_index = next_auxiliary_index(predicate_id + "_modulo");
 
 
 		String sk_mod_quotient = build_result_aux(predicate_id + "_modulo", mod_auxiliary_index);
@@ -753,8 +732,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLModuloAuxiliaryConstants build_char_modulo_long_auxiliary_constants(AlloyExpression left,
 			AlloyExpression right) {
-		final int mod_auxiliary_index = ++char_modulo_long_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_CHAR_LONG_VALUE_DIV_REM;
+		final int mod_auxiliary_index = next_auxiliary_index(predicate_id + "_modulo");
 
 
 		String sk_mod_quotient = build_result_aux(predicate_id + "_modulo", mod_auxiliary_index);
@@ -795,8 +774,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLDivAuxiliaryConstants build_char_int_divide_auxiliary_constants(AlloyExpression left,
 			AlloyExpression right) {
-		final int div_auxiliary_index = ++char_int_divide_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_CHAR_INT_VALUE_DIV_REM;
+		final int div_auxiliary_index = next_auxiliary_index(predicate_id + "_divide");
 
 		String sk_div_result = build_result_aux(predicate_id + "_divide", div_auxiliary_index);
 		String sk_div_remainder = build_remainder_aux(predicate_id + "_divide", div_auxiliary_index);
@@ -814,8 +793,8 @@ public abstract class JMLAuxiliaryConstantsFactory {
 
 	public static JMLDivAuxiliaryConstants build_char_long_divide_auxiliary_constants(AlloyExpression left,
 			AlloyExpression right) {
-		final int div_auxiliary_index = ++char_long_divide_auxiliary_index;
 		final String predicate_id = JPredicateFactory.PRED_JAVA_PRIMITIVE_CHAR_LONG_VALUE_DIV_REM;
+		final int div_auxiliary_index = next_auxiliary_index(predicate_id + "_divide");
 
 		String sk_div_result = build_result_aux(predicate_id + "_divide", div_auxiliary_index);
 		String sk_div_remainder = build_remainder_aux(predicate_id + "_divide", div_auxiliary_index);
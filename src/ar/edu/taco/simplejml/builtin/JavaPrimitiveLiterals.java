@@ -0,0 +1,61 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.simplejml.builtin;
+
+import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
+
+/**
+ * Builds the Java primitive literals used by the SimpleJML to JDynAlloy
+ * translation. Building a literal registers it in the literal modules, so the
+ * units translated concurrently take turns on {@link #REGISTRY_LOCK}, the
+ * stage holds <code>TacoContext.JDYNALLOY_LOCK</code> on their behalf.
+ */
+public final class JavaPrimitiveLiterals {
+
+	private static final Object REGISTRY_LOCK = new Object();
+
+	private JavaPrimitiveLiterals() {
+	}
+
+	public static AlloyExpression integerLiteral(int value) {
+		synchronized (REGISTRY_LOCK) {
+			return JavaPrimitiveIntegerValue.getInstance().toJavaPrimitiveIntegerLiteral(value, false);
+		}
+	}
+
+	public static AlloyExpression longLiteral(long value) {
+		synchronized (REGISTRY_LOCK) {
+			return JavaPrimitiveLongValue.getInstance().toJavaPrimitiveLongLiteral(value, false);
+		}
+	}
+
+	public static AlloyExpression charLiteral(int value) {
+		synchronized (REGISTRY_LOCK) {
+			return JavaPrimitiveCharValue.getInstance().toJavaPrimitiveCharLiteral(value, false);
+		}
+	}
+
+	public static AlloyExpression floatLiteral(float value) {
+		synchronized (REGISTRY_LOCK) {
+			return JavaPrimitiveFloatValue.getInstance().toJavaPrimitiveFloatLiteral(value, false);
+		}
+	}
+
+}
@@ -29,8 +29,8 @@ import ar.edu.jdynalloy.xlator.JType;
 import ar.edu.taco.TacoConfigurator;
 import ar.edu.taco.TacoException;
 import ar.edu.taco.TacoNotImplementedYetException;
-import ar.edu.taco.simplejml.builtin.JavaPrimitiveCharValue;
 import ar.edu.taco.simplejml.builtin.JavaPrimitiveIntegerValue;
+import ar.edu.taco.simplejml.builtin.JavaPrimitiveLiterals;
 import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
 import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
 import ar.uba.dc.rfm.alloy.ast.formulas.AndFormula;
@@ -1252,7 +1252,7 @@ public class JavaOperatorSolver {
 						alloyExpression[1].toString().startsWith("JavaPrimitiveIntegerLiteral")) {
 					
 					int int_value = Integer.parseInt(alloyExpression[1].toString().substring(27));
-					alloyExpression[1] = JavaPrimitiveCharValue.getInstance().toJavaPrimitiveCharLiteral(int_value, false);
+					alloyExpression[1] = JavaPrimitiveLiterals.charLiteral(int_value);
 				}
 				
 				if (right_type.equals(JSignatureFactory.JAVA_PRIMITIVE_CHAR_VALUE) && 
@@ -1260,7 +1260,7 @@ public class JavaOperatorSolver {
 						alloyExpression[0].toString().startsWith("JavaPrimitiveIntegerLiteral")) {
 					
 					int int_value = Integer.parseInt(alloyExpression[0].toString().substring(27));
-					alloyExpression[0] = JavaPrimitiveCharValue.getInstance().toJavaPrimitiveCharLiteral(int_value, false);
+					alloyExpression[0] = JavaPrimitiveLiterals.charLiteral(int_value);
 				}
 
 			}
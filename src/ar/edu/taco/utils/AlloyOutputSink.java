@@ -0,0 +1,94 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only collection of the Alloy fragments that plugins add to the
+ * generated model. Plugins contribute their text here instead of copying
+ * the Alloy text of the module, and once the model is written the fragments
+ * are appended to the file through a buffered channel.
+ */
+public class AlloyOutputSink {
+
+	private final List<String> fragments = new ArrayList<String>();
+
+	public synchronized void append(String fragment) {
+		if (!fragment.isEmpty()) {
+			fragments.add(fragment);
+		}
+	}
+
+	/**
+	 * @return the fragments contributed so far, in order.
+	 */
+	public synchronized List<String> getFragments() {
+		return Collections.unmodifiableList(new ArrayList<String>(fragments));
+	}
+
+	/**
+	 * Appends every fragment to the file at <code>path</code>.
+	 */
+	public synchronized void appendTo(String path) throws IOException {
+		if (fragments.isEmpty()) {
+			return;
+		}
+		Writer writer = openWriter(path, true);
+		try {
+			for (String fragment : fragments) {
+				writer.write(fragment);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Opens a buffered writer over a channel to <code>path</code>, creating
+	 * the missing directories. Text is encoded with the platform charset, as
+	 * <code>FileUtils.writeToFile</code> does.
+	 */
+	public static Writer openWriter(String path, boolean append) throws IOException {
+		File parent = new File(path).getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		FileChannel channel;
+		if (append) {
+			channel = FileChannel.open(new File(path).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		} else {
+			channel = FileChannel.open(new File(path).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		return new BufferedWriter(Channels.newWriter(channel, Charset.defaultCharset().newEncoder(), -1));
+	}
+
+}
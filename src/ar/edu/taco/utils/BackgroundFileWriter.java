@@ -0,0 +1,144 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.utils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import ar.edu.taco.TacoContext;
+import ar.edu.taco.TacoException;
+
+/**
+ * Writes debugging artifacts and the JDynAlloy output from a single
+ * background thread, so writing them does not block the translation. Pending writes are tracked per
+ * <code>TacoContext</code>, so a run only waits for its own writes, and are
+ * completed before the JVM exits.
+ */
+public class BackgroundFileWriter {
+
+	private static final BackgroundFileWriter instance = new BackgroundFileWriter();
+
+	private final ExecutorService executor;
+
+	/**
+	 * Pending writes by the context they were queued from, the null key holds
+	 * the ones queued without a bound context.
+	 */
+	private final Map<TacoContext, List<Future<Void>>> pendingWrites = new HashMap<TacoContext, List<Future<Void>>>();
+
+	public static BackgroundFileWriter getInstance() {
+		return instance;
+	}
+
+	private BackgroundFileWriter() {
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "taco-artifact-writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void run() {
+				List<Future<Void>> writes = new LinkedList<Future<Void>>();
+				synchronized (BackgroundFileWriter.this) {
+					for (List<Future<Void>> contextWrites : pendingWrites.values()) {
+						writes.addAll(contextWrites);
+					}
+					pendingWrites.clear();
+				}
+				try {
+					waitFor(writes);
+				} catch (TacoException e) {
+					System.err.println(e.getMessage());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Queues <code>fileContent</code> to be written to <code>path</code> on
+	 * behalf of the context bound to the current thread.
+	 */
+	public synchronized void write(final String path, final String fileContent) {
+		TacoContext context = TacoContext.getCurrent();
+		List<Future<Void>> writes = pendingWrites.get(context);
+		if (writes == null) {
+			writes = new LinkedList<Future<Void>>();
+			pendingWrites.put(context, writes);
+		}
+		writes.add(executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException {
+				FileUtils.writeToFile(path, fileContent);
+				return null;
+			}
+		}));
+	}
+
+	/**
+	 * Waits until every write queued by the context bound to the current
+	 * thread is done. Writes of other contexts are neither waited for nor
+	 * reported.
+	 * 
+	 * @throws TacoException
+	 *             if any of the writes failed.
+	 */
+	public void flush() {
+		List<Future<Void>> writes;
+		synchronized (this) {
+			writes = pendingWrites.remove(TacoContext.getCurrent());
+		}
+		if (writes != null) {
+			waitFor(writes);
+		}
+	}
+
+	private static void waitFor(List<Future<Void>> writes) {
+		String error = null;
+		for (Future<Void> write : writes) {
+			try {
+				write.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new TacoException("interrupted while writing artifacts");
+			} catch (ExecutionException e) {
+				if (error == null) {
+					error = e.getCause().getMessage();
+				}
+			}
+		}
+		if (error != null) {
+			throw new TacoException("artifact couldn't be written: " + error);
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ar.edu.taco.TacoContext;
+
+/**
+ * Source of the indexes used to build fresh variable, parameter and
+ * skolem constant names. Every kind of name has its own sequence, starting
+ * at 0.
+ * 
+ * The supply of the current <code>TacoContext</code> is reset at the
+ * beginning of each run, so the generated names only depend on the input
+ * and not on what was translated before in the same JVM.
+ * 
+ * Work that may run concurrently draws from the parts of a
+ * {@link #split(int)}: part <code>i</code> of <code>n</code> answers the
+ * indexes congruent to <code>i</code> modulo <code>n</code>, so the names do
+ * not depend on the order the parts run in. Once they are done
+ * {@link #join(List)} moves the supply past every index they answered.
+ */
+public class FreshNameSupply {
+
+	private static final FreshNameSupply global = new FreshNameSupply();
+
+	private static final ThreadLocal<FreshNameSupply> entered = new ThreadLocal<FreshNameSupply>();
+
+	private final Map<String, Integer> nextIndexOf = new HashMap<String, Integer>();
+
+	/**
+	 * The first index of every kind, only set on the parts of a split.
+	 */
+	private final Map<String, Integer> firstIndexOf;
+
+	private final int offset;
+
+	private final int stride;
+
+	public FreshNameSupply() {
+		this(new HashMap<String, Integer>(), 0, 1);
+	}
+
+	private FreshNameSupply(Map<String, Integer> firstIndexOf, int offset, int stride) {
+		this.firstIndexOf = firstIndexOf;
+		this.offset = offset;
+		this.stride = stride;
+	}
+
+	/**
+	 * @return the supply entered on the current thread, else the supply of
+	 *         the context bound to the current thread or, if none, a process
+	 *         wide supply that is never reset.
+	 */
+	public static FreshNameSupply getInstance() {
+		FreshNameSupply supply = entered.get();
+		if (supply != null) {
+			return supply;
+		}
+		TacoContext context = TacoContext.getCurrent();
+		if (context != null) {
+			return context.getNameSupply();
+		}
+		return global;
+	}
+
+	/**
+	 * Makes {@link #getInstance()} answer <code>supply</code> on the current
+	 * thread.
+	 * 
+	 * @return the previously entered supply, to be restored with
+	 *         {@link #exit(FreshNameSupply)}.
+	 */
+	public static FreshNameSupply enter(FreshNameSupply supply) {
+		FreshNameSupply previous = entered.get();
+		entered.set(supply);
+		return previous;
+	}
+
+	public static void exit(FreshNameSupply previous) {
+		if (previous == null) {
+			entered.remove();
+		} else {
+			entered.set(previous);
+		}
+	}
+
+	/**
+	 * @param kind
+	 *            the prefix of the names the index is appended to. Names with
+	 *            the same prefix share one sequence, so they never collide.
+	 * @return the next unused index for <code>kind</code>.
+	 */
+	public synchronized int nextIndex(String kind) {
+		Integer next = nextIndexOf.get(kind);
+		int drawn = next == null ? 0 : next.intValue();
+		nextIndexOf.put(kind, drawn + 1);
+		return firstIndex(kind) + offset + drawn * stride;
+	}
+
+	/**
+	 * @return <code>parts</code> supplies that answer disjoint indexes, all
+	 *         of them unused by this supply.
+	 */
+	public synchronized List<FreshNameSupply> split(int parts) {
+		Map<String, Integer> next = new HashMap<String, Integer>();
+		for (String kind : nextIndexOf.keySet()) {
+			next.put(kind, unusedIndex(kind));
+		}
+		List<FreshNameSupply> supplies = new ArrayList<FreshNameSupply>();
+		for (int part = 0; part < parts; part++) {
+			supplies.add(new FreshNameSupply(next, part, parts));
+		}
+		return supplies;
+	}
+
+	/**
+	 * Moves this supply past every index answered by <code>parts</code>, the
+	 * result of a {@link #split(int)} of this supply.
+	 */
+	public void join(List<FreshNameSupply> parts) {
+		for (FreshNameSupply part : parts) {
+			synchronized (part) {
+				for (String kind : part.nextIndexOf.keySet()) {
+					int unused = part.unusedIndex(kind);
+					synchronized (this) {
+						if (unused > unusedIndex(kind)) {
+							nextIndexOf.put(kind, (unused - firstIndex(kind) - offset + stride - 1) / stride);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	public synchronized void reset() {
+		nextIndexOf.clear();
+	}
+
+	private int firstIndex(String kind) {
+		Integer first = firstIndexOf.get(kind);
+		return first == null ? 0 : first.intValue();
+	}
+
+	/**
+	 * @return an index greater than every index answered for
+	 *         <code>kind</code>.
+	 */
+	private int unusedIndex(String kind) {
+		Integer next = nextIndexOf.get(kind);
+		if (next == null) {
+			return firstIndex(kind);
+		}
+		return firstIndex(kind) + offset + (next.intValue() - 1) * stride + 1;
+	}
+
+}
@@ -0,0 +1,334 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoContext;
+
+/**
+ * <p>Wall time and allocated bytes of the stages, simplifiers and plugins of
+ * a run, along with the node counts and output sizes they report.</p>
+ * <p>Measurements of the same category and name are added up. When the
+ * <code>runReport</code> option is set, the measurements taken since the
+ * last report are written as JSON next to the .als or .inv file the run
+ * produced, replacing its extension with <code>.report.json</code>. A back-end that reuses an
+ * already computed front-end reports only its own work.</p>
+ * <p>Allocated bytes are counted on the thread that takes the measurement,
+ * work handed to other threads is not included. They are -1 if the JVM cannot
+ * count them.</p>
+ */
+public class RunReport {
+
+	private static Logger log = Logger.getLogger(RunReport.class);
+
+	private static final String REPORT_EXTENSION = ".report.json";
+
+	private static final String[] OUTPUT_EXTENSIONS = new String[] { ".als", ".inv" };
+
+	private static final RunReport global = new RunReport();
+
+	private static final Measurement DISABLED = new Measurement(null, null, null);
+
+	private static final com.sun.management.ThreadMXBean allocationCounter = createAllocationCounter();
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+	private String alloyFilename = null;
+
+	private long startNanos = System.nanoTime();
+
+	private static class Entry {
+		private final String category;
+		private final String name;
+		private int invocations = 0;
+		private long wallNanos = 0;
+		private long allocatedBytes = 0;
+		private final Map<String, Long> counters = new LinkedHashMap<String, Long>();
+
+		private Entry(String category, String name) {
+			this.category = category;
+			this.name = name;
+		}
+	}
+
+	/**
+	 * A measurement in progress, started with
+	 * {@link RunReport#start(String, String)}.
+	 */
+	public static final class Measurement {
+		private final RunReport report;
+		private final String category;
+		private final String name;
+		private final long startNanos;
+		private final long startAllocatedBytes;
+		private final Map<String, Long> counters = new LinkedHashMap<String, Long>();
+
+		private Measurement(RunReport report, String category, String name) {
+			this.report = report;
+			this.category = category;
+			this.name = name;
+			this.startAllocatedBytes = report == null ? -1 : allocatedBytes();
+			this.startNanos = System.nanoTime();
+		}
+
+		private boolean stopped = false;
+
+		/**
+		 * Adds <code>value</code> to the counter named <code>counter</code>,
+		 * for instance the number of AST nodes or the size of an output. May
+		 * be called after {@link #stop()}, so that computing the value is not
+		 * measured.
+		 */
+		public Measurement count(String counter, long value) {
+			if (report != null) {
+				if (stopped) {
+					report.count(category, name, counter, value);
+				} else {
+					addTo(counters, counter, value);
+				}
+			}
+			return this;
+		}
+
+		public Measurement stop() {
+			if (report != null && !stopped) {
+				stopped = true;
+				long wallNanos = System.nanoTime() - startNanos;
+				long allocated = startAllocatedBytes < 0 ? -1 : allocatedBytes() - startAllocatedBytes;
+				report.add(this, wallNanos, allocated);
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * @return the report of the context bound to the current thread or, if
+	 *         none, a process wide report.
+	 */
+	public static RunReport getInstance() {
+		TacoContext context = TacoContext.getCurrent();
+		if (context == null) {
+			return global;
+		}
+		synchronized (context) {
+			RunReport report = context.getComponent(RunReport.class);
+			if (report == null) {
+				report = new RunReport();
+				context.putComponent(RunReport.class, report);
+			}
+			return report;
+		}
+	}
+
+	/**
+	 * @return whether the <code>runReport</code> option is set, false while
+	 *         there is no configuration to read it from.
+	 */
+	public static boolean isEnabled() {
+		try {
+			return TacoConfigurator.getInstance().getRunReport();
+		} catch (IllegalStateException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Starts measuring on the current thread. If the <code>runReport</code>
+	 * option is not set, the answer records nothing.
+	 */
+	public static Measurement start(String category, String name) {
+		if (!isEnabled()) {
+			return DISABLED;
+		}
+		return new Measurement(getInstance(), category, name);
+	}
+
+	/**
+	 * The report is written next to <code>alloyFilename</code> on the next
+	 * {@link #flush()}.
+	 */
+	public synchronized void setAlloyFilename(String alloyFilename) {
+		this.alloyFilename = alloyFilename;
+	}
+
+	private synchronized void add(Measurement measurement, long wallNanos, long allocatedBytes) {
+		Entry entry = getEntry(measurement.category, measurement.name);
+		entry.invocations++;
+		entry.wallNanos += wallNanos;
+		entry.allocatedBytes = allocatedBytes < 0 || entry.allocatedBytes < 0 ? -1 : entry.allocatedBytes + allocatedBytes;
+		for (Map.Entry<String, Long> counter : measurement.counters.entrySet()) {
+			addTo(entry.counters, counter.getKey(), counter.getValue());
+		}
+	}
+
+	private synchronized void count(String category, String name, String counter, long value) {
+		addTo(getEntry(category, name).counters, counter, value);
+	}
+
+	private Entry getEntry(String category, String name) {
+		String key = category + ":" + name;
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			entry = new Entry(category, name);
+			entries.put(key, entry);
+		}
+		return entry;
+	}
+
+	private static void addTo(Map<String, Long> counters, String counter, long value) {
+		Long current = counters.get(counter);
+		counters.put(counter, current == null ? value : current + value);
+	}
+
+	/**
+	 * Writes the measurements taken so far next to the .als file set with
+	 * {@link #setAlloyFilename(String)}, and starts a new report. Does nothing
+	 * if no .als file was generated since the last report.
+	 */
+	public void flush() {
+		String reportFilename;
+		String json;
+		synchronized (this) {
+			if (alloyFilename == null) {
+				return;
+			}
+			json = toJson();
+			reportFilename = reportFilename(alloyFilename);
+			entries.clear();
+			alloyFilename = null;
+			startNanos = System.nanoTime();
+		}
+		try {
+			FileUtils.writeToFile(reportFilename, json);
+		} catch (IOException e) {
+			log.warn("Run report couldn't be written to " + reportFilename + ": " + e.getMessage());
+		}
+	}
+
+	private static String reportFilename(String alloyFilename) {
+		for (String extension : OUTPUT_EXTENSIONS) {
+			if (alloyFilename.endsWith(extension)) {
+				return alloyFilename.substring(0, alloyFilename.length() - extension.length()) + REPORT_EXTENSION;
+			}
+		}
+		return alloyFilename + REPORT_EXTENSION;
+	}
+
+	private String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"output\": ").append(quote(alloyFilename)).append(",\n");
+		json.append("  \"outputBytes\": ").append(new File(alloyFilename).length()).append(",\n");
+		json.append("  \"wallMillis\": ").append(millis(System.nanoTime() - startNanos)).append(",\n");
+		json.append("  \"allocationCounted\": ").append(allocationCounter != null).append(",\n");
+		json.append("  \"measurements\": [");
+		boolean first = true;
+		for (Entry entry : entries.values()) {
+			json.append(first ? "\n" : ",\n");
+			first = false;
+			json.append("    {\"category\": ").append(quote(entry.category));
+			json.append(", \"name\": ").append(quote(entry.name));
+			json.append(", \"invocations\": ").append(entry.invocations);
+			json.append(", \"wallMillis\": ").append(millis(entry.wallNanos));
+			json.append(", \"allocatedBytes\": ").append(entry.allocatedBytes);
+			json.append(", \"counters\": {");
+			boolean firstCounter = true;
+			for (Map.Entry<String, Long> counter : entry.counters.entrySet()) {
+				json.append(firstCounter ? "" : ", ");
+				firstCounter = false;
+				json.append(quote(counter.getKey())).append(": ").append(counter.getValue());
+			}
+			json.append("}}");
+		}
+		json.append(first ? "]\n" : "\n  ]\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				quoted.append("\\\"");
+				break;
+			case '\\':
+				quoted.append("\\\\");
+				break;
+			case '\n':
+				quoted.append("\\n");
+				break;
+			case '\r':
+				quoted.append("\\r");
+				break;
+			case '\t':
+				quoted.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					quoted.append(String.format("\\u%04x", (int) c));
+				} else {
+					quoted.append(c);
+				}
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	private static long allocatedBytes() {
+		if (allocationCounter == null) {
+			return -1;
+		}
+		return allocationCounter.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean createAllocationCounter() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+				if (counter.isThreadAllocatedMemorySupported()) {
+					counter.setThreadAllocatedMemoryEnabled(true);
+					return counter;
+				}
+			}
+		} catch (UnsupportedOperationException e) {
+			// counted as unavailable
+		} catch (LinkageError e) {
+			// not a HotSpot based JVM
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.utils.jml;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.multijava.mjc.JPhylum;
+
+/**
+ * Counts the AST nodes (<code>JPhylum</code> instances) reachable from a
+ * node through fields holding nodes, arrays of nodes or collections of
+ * nodes. Types, signatures and any other object that is not a node is not
+ * followed. Every node is counted once, even if it is shared.
+ */
+public class JmlAstNodeCounter {
+
+	private static final Map<Class<?>, List<Field>> fieldsOf = new HashMap<Class<?>, List<Field>>();
+
+	private JmlAstNodeCounter() {
+	}
+
+	public static int count(Object root) {
+		IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<Object, Boolean>();
+		Deque<Object> pending = new ArrayDeque<Object>();
+		push(root, visited, pending);
+		while (!pending.isEmpty()) {
+			Object node = pending.pop();
+			for (Field field : getFields(node.getClass())) {
+				Object value;
+				try {
+					value = field.get(node);
+				} catch (IllegalAccessException e) {
+					continue;
+				}
+				if (value instanceof Object[]) {
+					for (Object element : (Object[]) value) {
+						push(element, visited, pending);
+					}
+				} else if (value instanceof Collection<?>) {
+					for (Object element : (Collection<?>) value) {
+						push(element, visited, pending);
+					}
+				} else {
+					push(value, visited, pending);
+				}
+			}
+		}
+		return visited.size();
+	}
+
+	private static void push(Object value, IdentityHashMap<Object, Boolean> visited, Deque<Object> pending) {
+		if (value instanceof JPhylum && visited.put(value, Boolean.TRUE) == null) {
+			pending.push(value);
+		}
+	}
+
+	private static List<Field> getFields(Class<?> nodeClass) {
+		synchronized (fieldsOf) {
+			List<Field> fields = fieldsOf.get(nodeClass);
+			if (fields == null) {
+				fields = new ArrayList<Field>();
+				for (Class<?> c = nodeClass; c != null && c != Object.class; c = c.getSuperclass()) {
+					for (Field field : c.getDeclaredFields()) {
+						if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+							continue;
+						}
+						try {
+							field.setAccessible(true);
+							fields.add(field);
+						} catch (SecurityException e) {
+							// not counted
+						}
+					}
+				}
+				fieldsOf.put(nodeClass, fields);
+			}
+			return fields;
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.alloy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import ar.edu.jdynalloy.JDynAlloyConfig;
+import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprConstant;
+import ar.uba.dc.rfm.alloy.ast.formulas.PredicateFormula;
+
+public class CardinalSizeOfPluginTest extends TestCase {
+
+	@Override
+	protected void setUp() throws Exception {
+		// no literal declared by a previous translation
+		JDynAlloyConfig.reset();
+	}
+
+	public void testEnumeratedEncodingDeclaresEveryNonNegativeLiteral() {
+		String size_of = CardinalSizeOfPlugin.enumerated_size_of(4);
+
+		for (int i = 0; i <= 7; i++) {
+			assertTrue(size_of.contains("pred_java_primitive_integer_value_literal_" + i + "["));
+		}
+		assertFalse(size_of.contains("pred_java_primitive_integer_value_literal_8["));
+		assertTrue(size_of.contains("fun_java_primitive_integer_value_size_of"));
+		assertTrue(size_of.contains("pred_java_primitive_integer_value_size_of"));
+	}
+
+	public void testBitwiseEncodingSetsEveryBitFromTheCardinality() {
+		String size_of = CardinalSizeOfPlugin.bitwise_size_of(4, 4, Collections.<Integer> emptySet());
+
+		assertTrue(size_of.contains("n >= 0 and n =< 7\n"));
+		assertTrue(size_of.contains("(ret.b00 in true) <=> (rem[n, 2] = 1)\n"));
+		assertTrue(size_of.contains("(ret.b01 in true) <=> (rem[div[n, 2], 2] = 1)\n"));
+		assertTrue(size_of.contains("(ret.b02 in true) <=> (rem[div[n, 4], 2] = 1)\n"));
+		assertTrue(size_of.contains("ret.b03 in false\n"));
+		assertFalse(size_of.contains("pred_java_primitive_integer_value_literal_"));
+	}
+
+	public void testBitwiseEncodingClearsTheBitsAboveTheBitwidth() {
+		String size_of = CardinalSizeOfPlugin.bitwise_size_of(4, 32, Collections.<Integer> emptySet());
+
+		assertTrue(size_of.contains("(ret.b02 in true) <=> (rem[div[n, 4], 2] = 1)\n"));
+		assertTrue(size_of.contains("ret.b03 in false\n"));
+		assertTrue(size_of.contains("ret.b31 in false\n"));
+		assertFalse(size_of.contains("ret.b32"));
+	}
+
+	public void testSignatureBitsAreReadFromItsDeclaration() {
+		String alloy_str = "sig JavaPrimitiveIntegerValue {\n   b00: boolean,\n   b01: boolean,\n   b02: boolean\n}\n"
+				+ "sig Other { b07: boolean }\n";
+
+		assertEquals(3, CardinalSizeOfPlugin.signature_bits("JavaPrimitiveIntegerValue", alloy_str));
+		assertEquals(0, CardinalSizeOfPlugin.signature_bits("JavaPrimitiveLongValue", alloy_str));
+	}
+
+	public void testBitwiseEncodingOnlyDeclaresReferencedLiterals() {
+		String size_of = CardinalSizeOfPlugin.bitwise_size_of(4, 4, new TreeSet<Integer>(Arrays.asList(2, 9)));
+
+		assertTrue(size_of.contains("pred_java_primitive_integer_value_literal_2["));
+		assertFalse(size_of.contains("pred_java_primitive_integer_value_literal_3["));
+		// above the largest non negative integer of the bitwidth
+		assertFalse(size_of.contains("pred_java_primitive_integer_value_literal_9["));
+	}
+
+	public void testLiteralsAreCollectedFromFormulas() {
+		Set<Integer> int_literals = new HashSet<Integer>();
+		PredicateFormula formula = new PredicateFormula(null, "pred_java_primitive_integer_value_literal_3",
+				Arrays.<AlloyExpression> asList(ExprConstant.buildExprConstant("JavaPrimitiveIntegerLiteral5"),
+						ExprConstant.buildExprConstant("JavaPrimitiveIntegerLiteralMinus6")));
+		formula.accept(new CardinalSizeOfPlugin.IntLiteralCollector(int_literals));
+
+		assertEquals(new HashSet<Integer>(Arrays.asList(3, 5)), int_literals);
+	}
+
+	public void testLiteralsAreCollectedFromText() {
+		Set<Integer> int_literals = new HashSet<Integer>();
+		CardinalSizeOfPlugin.collect_int_literals("fact { QF.f = fun_java_primitive_integer_value_literal_6[] }\n"
+				+ "{pred_java_primitive_integer_value_literal_4[JavaPrimitiveIntegerLiteral4]}\n"
+				+ "{pred_java_primitive_integer_value_literal_minus_2[JavaPrimitiveIntegerLiteralMinus2]}\n", int_literals);
+
+		assertEquals(new HashSet<Integer>(Arrays.asList(4, 6)), int_literals);
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.alloy.bound;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import junit.framework.TestCase;
+import ar.edu.taco.TacoException;
+import ar.edu.taco.jdynalloy.JDynAlloyClassDiagram;
+
+public class UBoundGeneratorTest extends TestCase {
+
+	private static final String MODEL = "one sig QF {\n"
+			+ "  fList_next_0: List -> lone (List + null),\n"
+			+ "  bList_next_0: List -> lone List,\n"
+			+ "  fList_value_0: List -> lone Int\n"
+			+ "}\n"
+			+ "one sig List_0, List_1 extends List {} \n"
+			+ "fact {\n  no ( QF.fList_next_0.univ & QF.bList_next_0.univ ) and \n  List = QF.fList_next_0.univ + QF.bList_next_0.univ \n}\n"
+			+ "fact { some QF.fList_value_0 }\n"
+			+ "run {  List_object_invariant[QF.fList_next_0, QF.bList_next_0] } for 0 but 2 List\n";
+
+	private static JDynAlloyClassDiagram listDiagram() {
+		JDynAlloyClassDiagram class_diagram = new JDynAlloyClassDiagram();
+		class_diagram.addSignatureId("List");
+		class_diagram.addField("List_next", "List", new HashSet<String>(Arrays.asList("List", "null")));
+		class_diagram.addField("List_value", "List", Collections.singleton("JavaPrimitiveIntegerValue"));
+		return class_diagram;
+	}
+
+	private static Map<String, Integer> listScopes() {
+		Map<String, Integer> scopes = new HashMap<String, Integer>();
+		scopes.put("List", 2);
+		return scopes;
+	}
+
+	private static List<String> tuple(String source, String target) {
+		return Arrays.asList(source, target);
+	}
+
+	/**
+	 * Answers the instances given for every field, in order, and then that
+	 * there are no more.
+	 */
+	private static class InstancesCheck implements UBoundGenerator.FeasibilityCheck {
+
+		private List<String> models = new ArrayList<String>();
+
+		private Map<String, LinkedList<Set<List<String>>>> instances = new HashMap<String, LinkedList<Set<List<String>>>>();
+
+		void addInstance(String field_label, List<String>... tuples) {
+			if (!instances.containsKey(field_label)) {
+				instances.put(field_label, new LinkedList<Set<List<String>>>());
+			}
+			instances.get(field_label).add(new HashSet<List<String>>(Arrays.asList(tuples)));
+		}
+
+		@Override
+		public Set<List<String>> findTuples(String alloy_model, String field_label) {
+			models.add(alloy_model);
+			LinkedList<Set<List<String>>> field_instances = instances.get(field_label);
+			return field_instances == null ? null : field_instances.poll();
+		}
+	}
+
+	/**
+	 * The instances of an acyclic list starting at List_0.
+	 */
+	@SuppressWarnings("unchecked")
+	private static InstancesCheck acyclicListCheck() {
+		InstancesCheck check = new InstancesCheck();
+		check.addInstance("fList_next_0", tuple("List_0", "List_1"), tuple("List_1", "null"));
+		check.addInstance("fList_next_0", tuple("List_0", "null"));
+		return check;
+	}
+
+	public void testOnlyFeasibleTuplesAreKept() throws Exception {
+		InstancesCheck check = acyclicListCheck();
+		String xml = new UBoundGenerator(check).generate(MODEL, listDiagram(), listScopes());
+
+		// backward: no instance, forward: two instances and no third one
+		assertEquals(4, check.models.size());
+		assertTrue(xml.contains("<field label=\"bList_next_0\" arity=\"2\" >\n</field>\n"));
+		assertTrue(xml.contains("<field label=\"fList_next_0\" arity=\"2\" >\n"
+				+ "  <tuple>\n    <atom label=\"List_0\" />\n    <atom label=\"List_1\" />\n  </tuple>\n"
+				+ "  <tuple>\n    <atom label=\"List_0\" />\n    <atom label=\"null\" />\n  </tuple>\n"
+				+ "  <tuple>\n    <atom label=\"List_1\" />\n    <atom label=\"null\" />\n  </tuple>\n"
+				+ "</field>\n"));
+		assertFalse(xml.contains("fList_value_0"));
+
+		// the repository format
+		SAXParserFactory.newInstance().newSAXParser().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")),
+				new org.xml.sax.helpers.DefaultHandler());
+	}
+
+	public void testTheSeenTuplesAreExcludedFromTheRunCommand() {
+		InstancesCheck check = acyclicListCheck();
+		new UBoundGenerator(check).generate(MODEL, listDiagram(), listScopes());
+
+		String first_model = check.models.get(0);
+		assertTrue(first_model.startsWith(MODEL.substring(0, MODEL.indexOf("run {"))));
+		assertTrue(first_model.endsWith("run { some QF.bList_next_0 and   List_object_invariant[QF.fList_next_0, QF.bList_next_0] } for 0 but 2 List\n"));
+		assertTrue(check.models.get(1).contains("run { some QF.fList_next_0 and "));
+		assertTrue(check.models.get(2).contains("run { some (QF.fList_next_0 - ((List_0 -> List_1) + (List_1 -> null))) and "));
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testNoRunOnceEveryTupleWasSeen() {
+		InstancesCheck check = new InstancesCheck();
+		check.addInstance("bList_next_0", tuple("List_0", "List_0"), tuple("List_0", "List_1"), tuple("List_1", "List_0"),
+				tuple("List_1", "List_1"));
+		new UBoundGenerator(check).generate(MODEL, listDiagram(), listScopes());
+
+		// backward: a single instance, forward: no instance
+		assertEquals(2, check.models.size());
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testAnInstanceWithoutUnseenTuplesFails() {
+		InstancesCheck check = acyclicListCheck();
+		check.addInstance("fList_next_0");
+		try {
+			new UBoundGenerator(check).generate(MODEL, listDiagram(), listScopes());
+			fail();
+		} catch (TacoException e) {
+			// expected
+		}
+	}
+
+	public void testModelsWithoutSymmetryBreakingFieldsHaveNoBounds() {
+		String model = "one sig QF { fList_value_0: List -> lone Int }\nrun { List_object_invariant[QF.fList_value_0] } for 3\n";
+		assertNull(new UBoundGenerator(acyclicListCheck()).generate(model, listDiagram(), listScopes()));
+	}
+
+	public void testOnlyFieldsRelatingASignatureToItselfAreBounded() {
+		JDynAlloyClassDiagram class_diagram = listDiagram();
+		class_diagram.addSignatureId("Node");
+		class_diagram.addField("Node_list", "Node", new HashSet<String>(Arrays.asList("List", "null")));
+		Map<String, Integer> scopes = listScopes();
+		scopes.put("Node", 3);
+
+		InstancesCheck check = acyclicListCheck();
+		String xml = new UBoundGenerator(check).generate(MODEL, class_diagram, scopes);
+
+		assertEquals(4, check.models.size());
+		assertFalse(xml.contains("Node"));
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.alloy.bound;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class UBoundIndexTest extends TestCase {
+
+	private File xml_dir;
+
+	@Override
+	protected void setUp() throws Exception {
+		xml_dir = File.createTempFile("ubounds", "");
+		xml_dir.delete();
+		xml_dir.mkdir();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file : xml_dir.listFiles()) {
+			file.delete();
+		}
+		xml_dir.delete();
+	}
+
+	public void testTuplesAreSortedAndRepeatedOnesDropped() throws IOException {
+		write("List-02.xml", "<upperbound>\n"
+				+ "<field label=\"fList_next_0\" arity=\"2\">\n"
+				+ "  <tuple><atom label=\"List_1\" /><atom label=\"null\" /></tuple>\n"
+				+ "  <tuple><atom label=\"List_0\" /><atom label=\"List_1\" /></tuple>\n"
+				+ "  <tuple><atom label=\"List_0\" /><atom label=\"null\" /></tuple>\n"
+				+ "  <tuple><atom label=\"List_1\" /><atom label=\"null\" /></tuple>\n"
+				+ "</field>\n"
+				+ "</upperbound>\n");
+
+		UBoundIndex index = compileAndLoad();
+		List<UBoundIndex.FieldBound> field_bounds = index.getFieldBounds("List-02");
+
+		assertEquals(1, field_bounds.size());
+		UBoundIndex.FieldBound next = field_bounds.get(0);
+		assertEquals("fList_next_0", index.getAtom(next.label));
+		assertEquals(2, next.arity);
+		assertEquals(3, next.getTupleCount());
+		assertTuple(index, next, 0, "List_0", "List_1");
+		assertTuple(index, next, 1, "List_0", "null");
+		assertTuple(index, next, 2, "List_1", "null");
+	}
+
+	public void testFieldsAreSortedByLabelAndFirstOneWins() throws IOException {
+		write("List-01.xml", "<upperbound>\n"
+				+ "<field label=\"fList_next_0\" arity=\"2\">\n"
+				+ "  <tuple><atom label=\"List_0\" /><atom label=\"null\" /></tuple>\n"
+				+ "</field>\n"
+				+ "<field label=\"bList_next_0\" arity=\"2\">\n"
+				+ "</field>\n"
+				+ "<field label=\"fList_next_0\" arity=\"2\">\n"
+				+ "</field>\n"
+				+ "</upperbound>\n");
+
+		UBoundIndex index = compileAndLoad();
+		List<UBoundIndex.FieldBound> field_bounds = index.getFieldBounds("List-01");
+
+		assertEquals(2, field_bounds.size());
+		assertEquals("bList_next_0", index.getAtom(field_bounds.get(0).label));
+		assertEquals(0, field_bounds.get(0).getTupleCount());
+		assertEquals("fList_next_0", index.getAtom(field_bounds.get(1).label));
+		assertEquals(1, field_bounds.get(1).getTupleCount());
+	}
+
+	public void testEntriesAreKeyedByFileName() throws IOException {
+		write("List-01.xml", "<upperbound>\n<field label=\"fList_next_0\" arity=\"2\">\n</field>\n</upperbound>\n");
+		write("List-02.xml", "<upperbound>\n<field label=\"fList_next_0\" arity=\"2\">\n"
+				+ "  <tuple><atom label=\"List_0\" /><atom label=\"List_1\" /></tuple>\n"
+				+ "</field>\n</upperbound>\n");
+		write("README", "not a bound");
+
+		UBoundIndex index = compileAndLoad();
+
+		assertTrue(index.contains("List-01"));
+		assertTrue(index.contains("List-02"));
+		assertFalse(index.contains("README"));
+		assertNull(index.getFieldBounds("List-03"));
+		assertEquals(0, index.getFieldBounds("List-01").get(0).getTupleCount());
+		assertTuple(index, index.getFieldBounds("List-02").get(0), 0, "List_0", "List_1");
+	}
+
+	public void testOtherFilesAreRejected() throws IOException {
+		File file = write("List-01.xml", "<upperbound/>\n");
+		try {
+			UBoundIndex.load(file);
+			fail("an XML file is not an index");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	private UBoundIndex compileAndLoad() throws IOException {
+		File index_file = new File(xml_dir, UBoundIndex.INDEX_FILENAME);
+		UBoundIndex.compile(xml_dir, index_file);
+		return UBoundIndex.load(index_file);
+	}
+
+	private File write(String filename, String content) throws IOException {
+		File file = new File(xml_dir, filename);
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	private void assertTuple(UBoundIndex index, UBoundIndex.FieldBound field_bound, int tuple, String... atoms) {
+		for (int i = 0; i < atoms.length; i++) {
+			assertEquals(atoms[i], index.getAtom(field_bound.getAtom(tuple, i)));
+		}
+	}
+
+}
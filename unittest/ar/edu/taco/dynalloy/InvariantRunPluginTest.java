@@ -0,0 +1,123 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.dynalloy;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoContext;
+import ar.edu.taco.TacoException;
+import ar.edu.taco.utils.AlloyOutputSink;
+import ar.uba.dc.rfm.alloy.AlloyTyping;
+import ar.uba.dc.rfm.alloy.ast.AlloyModule;
+import ar.uba.dc.rfm.alloy.ast.AlloySig;
+import ar.uba.dc.rfm.alloy.ast.expressions.AlloyExpression;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprConstant;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprJoin;
+import ar.uba.dc.rfm.alloy.ast.expressions.ExprVariable;
+import ar.uba.dc.rfm.alloy.ast.formulas.AlloyFormula;
+import ar.uba.dc.rfm.alloy.ast.formulas.PredicateFormula;
+import ar.uba.dc.rfm.alloy.util.FormulaPrinter;
+
+public class InvariantRunPluginTest extends TestCase {
+
+	private static final String CLASS_TO_CHECK = "ar_edu_taco_jml_LinkList";
+
+	private TacoContext previousContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		previousContext = TacoContext.enter(new TacoContext());
+		Properties properties = new Properties();
+		properties.put(TacoConfigurator.CLASS_TO_CHECK_FIELD, "ar.edu.taco.jml.LinkList");
+		properties.put(TacoConfigurator.METHOD_TO_CHECK_FIELD, "generateInvariant()");
+		properties.put(TacoConfigurator.OBJECT_SCOPE, "2");
+		properties.put(TacoConfigurator.BITWIDTH, "3");
+		properties.put(TacoConfigurator.TYPE_SCOPES, "ar.edu.taco.jml.LinkList:2");
+		new TacoConfigurator("unittest/unittestconfig.properties", properties);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		TacoContext.exit(previousContext);
+	}
+
+	private static AlloyExpression qf(String field) {
+		return ExprJoin.join(ExprConstant.buildExprConstant("QF"), ExprVariable.buildNonMutableExprVariable(field));
+	}
+
+	private static AlloyFormula precondition() {
+		return new PredicateFormula(null, "precondition_" + CLASS_TO_CHECK + "_generateInvariant", Arrays.asList(qf("thiz_0"),
+				qf("head_0"), qf("throw_1")));
+	}
+
+	/**
+	 * A module with the given facts and no assertions.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static AlloyModule module(AlloyFormula... facts) {
+		AlloySig global_sig = new AlloySig(false, true, "QF", new AlloyTyping(), null);
+		return new AlloyModule("", global_sig, new Vector<AlloyFormula>(Arrays.asList(facts)), new Vector());
+	}
+
+	public void testTheRunCommandChecksTheObjectInvariantWithTheScopesOfTheAnalysis() {
+		AlloyOutputSink sink = new AlloyOutputSink();
+		new InvariantRunPlugin(sink).transform(module(precondition()));
+
+		// the thrown exception is not an argument of the object invariant
+		AlloyFormula object_invariant = new PredicateFormula(null, CLASS_TO_CHECK + "_object_invariant", Arrays.asList(qf("thiz_0"),
+				qf("head_0")));
+		String scope_of_analysis = TacoConfigurator.getInstance().getAssertionArguments();
+		assertEquals(1, sink.getFragments().size());
+		assertEquals("run {  " + object_invariant.accept(new FormulaPrinter()) + " } " + scope_of_analysis + "\n", sink.getFragments().get(0));
+
+		assertTrue(scope_of_analysis.startsWith("for 2 but 3 int"));
+		assertTrue(scope_of_analysis.contains(", 2 " + CLASS_TO_CHECK));
+	}
+
+	public void testThePreconditionIsTakenOutOfTheFacts() {
+		AlloyFormula other_fact = new PredicateFormula(null, CLASS_TO_CHECK + "_class_invariant", Arrays.asList(qf("thiz_0")));
+		AlloyModule output = new InvariantRunPlugin(new AlloyOutputSink()).transform(module(precondition(), other_fact));
+
+		int facts = 0;
+		for (AlloyFormula fact : output.getFacts()) {
+			String fact_str = (String) fact.accept(new FormulaPrinter());
+			assertFalse(fact_str.contains("precondition_"));
+			facts++;
+		}
+		assertEquals(2, facts);
+	}
+
+	public void testAModelWithoutThePreconditionFails() {
+		AlloyFormula other_fact = new PredicateFormula(null, CLASS_TO_CHECK + "_class_invariant", Arrays.asList(qf("thiz_0")));
+		AlloyOutputSink sink = new AlloyOutputSink();
+		try {
+			new InvariantRunPlugin(sink).transform(module(other_fact));
+			fail();
+		} catch (TacoException e) {
+			// expected
+		}
+		assertTrue(sink.getFragments().isEmpty());
+	}
+
+}
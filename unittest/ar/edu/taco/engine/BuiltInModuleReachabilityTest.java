@@ -0,0 +1,80 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+import ar.edu.taco.simplejml.builtin.IBuiltInModule;
+
+public class BuiltInModuleReachabilityTest extends TestCase {
+
+	private static final String DATE = "ar/edu/taco/engine/precompiledmodules/java_util_Date.djals";
+
+	private static final String SAX_SOURCE = "ar/edu/taco/engine/precompiledmodules/javax_xml_transform_sax_SAXSource.djals";
+
+	private List<String> retainReachable(BuiltInModuleReachability reachability) {
+		List<String> resources = new ArrayList<String>(Arrays.asList(DATE, SAX_SOURCE));
+		reachability.retainReachable(new ArrayList<IBuiltInModule>(), resources, Collections.<IBuiltInModule> emptySet(),
+				Collections.<String> emptySet());
+		return resources;
+	}
+
+	public void testUnreferencedModuleIsPruned() {
+		BuiltInModuleReachability reachability = new BuiltInModuleReachability();
+		reachability.addRoot("field myapp_Foo_date:(myapp_Foo)->one(java_util_Date) {}");
+
+		assertEquals(Collections.singletonList(DATE), retainReachable(reachability));
+	}
+
+	/**
+	 * The static fields module declares the static fields of every built-in
+	 * module, following all of them would keep every candidate.
+	 */
+	public void testStaticFieldOfPrunedModuleIsNotFollowed() {
+		BuiltInModuleReachability reachability = new BuiltInModuleReachability();
+		reachability.addRoot("field myapp_Foo_next:(myapp_Foo)->one(myapp_Foo) {}");
+		reachability.addStaticField("javax_xml_transform_sax_SAXSource_EPOCH", "ClassFields->one java_util_Date");
+
+		assertTrue(retainReachable(reachability).isEmpty());
+		assertFalse(reachability.isReachableStaticField("javax_xml_transform_sax_SAXSource_EPOCH"));
+	}
+
+	public void testStaticFieldOfReachableModuleIsFollowed() {
+		BuiltInModuleReachability reachability = new BuiltInModuleReachability();
+		reachability.addRoot("field myapp_Foo_source:(myapp_Foo)->one(javax_xml_transform_sax_SAXSource) {}");
+		reachability.addStaticField("javax_xml_transform_sax_SAXSource_EPOCH", "ClassFields->one java_util_Date");
+
+		assertEquals(Arrays.asList(DATE, SAX_SOURCE), retainReachable(reachability));
+		assertTrue(reachability.isReachableStaticField("javax_xml_transform_sax_SAXSource_EPOCH"));
+	}
+
+	public void testStaticFieldOfAnalysedClassIsFollowed() {
+		BuiltInModuleReachability reachability = new BuiltInModuleReachability();
+		reachability.addStaticField("myapp_Foo_EPOCH", "ClassFields->one java_util_Date");
+
+		assertEquals(Collections.singletonList(DATE), retainReachable(reachability));
+		assertTrue(reachability.isReachableStaticField("myapp_Foo_EPOCH"));
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.engine;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+import ar.edu.jdynalloy.JDynAlloyConfig;
+import ar.edu.jdynalloy.ast.JDynAlloyModule;
+import ar.edu.jdynalloy.parser.JDynAlloyParserManager;
+import ar.edu.taco.simplejml.JavaToJDynAlloyManager;
+
+public class PrecompiledModuleSnapshotsTest extends TestCase {
+
+	private static final String RESOURCE = "ar/edu/taco/engine/precompiledmodules/java_util_Map.djals";
+
+	@Override
+	protected void setUp() throws Exception {
+		JDynAlloyConfig.buildConfig("unittest/unittestconfig.properties");
+	}
+
+	/**
+	 * If the parsed modules can't be serialized the snapshots silently turn
+	 * themselves off, so this is the place where it shows.
+	 */
+	public void testModulesRoundTripThroughTheSnapshot() throws Exception {
+		List<JDynAlloyModule> modules = JDynAlloyParserManager.parseModulesResource(RESOURCE, null);
+		assertFalse(modules.isEmpty());
+
+		PrecompiledModuleSnapshots snapshots = PrecompiledModuleSnapshots.getInstance();
+		String key = snapshots.key("roundTrip", Collections.singleton(RESOURCE), "");
+		snapshots.store(key, modules, "");
+		List<JDynAlloyModule> loaded = snapshots.load(key, "");
+		assertNotNull("the parsed modules can't be serialized, precompiled module snapshots are disabled", loaded);
+
+		assertEquals(modules.size(), loaded.size());
+		for (int i = 0; i < modules.size(); i++) {
+			assertNotSame(modules.get(i), loaded.get(i));
+			assertEquals(JavaToJDynAlloyManager.getModuleOutput(modules.get(i), false),
+					JavaToJDynAlloyManager.getModuleOutput(loaded.get(i), false));
+		}
+
+		// every lookup answers a copy of its own
+		assertNotSame(loaded.get(0), snapshots.load(key, "").get(0));
+	}
+
+	public void testSnapshotsAreWrittenToTheSnapshotDir() throws Exception {
+		List<JDynAlloyModule> modules = JDynAlloyParserManager.parseModulesResource(RESOURCE, null);
+		File snapshotDir = Files.createTempDirectory("taco-snapshots").toFile();
+		try {
+			PrecompiledModuleSnapshots snapshots = PrecompiledModuleSnapshots.getInstance();
+			String key = snapshots.key("onDisk", Collections.singleton(RESOURCE), "");
+			snapshots.store(key, modules, snapshotDir.getPath());
+
+			assertTrue(new File(snapshotDir, key + ".snapshot").isFile());
+			assertNotNull(snapshots.load(key, snapshotDir.getPath()));
+		} finally {
+			for (File file : snapshotDir.listFiles()) {
+				file.delete();
+			}
+			snapshotDir.delete();
+		}
+	}
+
+	public void testKeyDependsOnPassAndFlags() {
+		PrecompiledModuleSnapshots snapshots = PrecompiledModuleSnapshots.getInstance();
+		List<String> resources = Collections.singletonList(RESOURCE);
+		String key = snapshots.key("fields[a]", resources, "javaArithmetic=false");
+
+		assertEquals(key, snapshots.key("fields[a]", resources, "javaArithmetic=false"));
+		assertFalse(key.equals(snapshots.key("fields[a, b]", resources, "javaArithmetic=false")));
+		assertFalse(key.equals(snapshots.key("fields[a]", resources, "javaArithmetic=true")));
+	}
+}
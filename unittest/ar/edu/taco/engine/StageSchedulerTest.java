@@ -0,0 +1,100 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoContext;
+
+public class StageSchedulerTest extends TestCase {
+
+	private TacoContext previousContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		previousContext = TacoContext.enter(new TacoContext());
+		new TacoConfigurator("unittest/unittestconfig.properties", new Properties());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		TacoContext.exit(previousContext);
+	}
+
+	private static ITacoStage record(final List<String> log, final String name) {
+		return new ITacoStage() {
+			@Override
+			public void execute() {
+				log.add(name);
+			}
+		};
+	}
+
+	public void testRunKeepsTheOrder() {
+		List<String> log = new ArrayList<String>();
+		StageScheduler scheduler = new StageScheduler();
+		scheduler.add("first", record(log, "first"));
+		scheduler.add("second", record(log, "second"));
+		scheduler.add("third", record(log, "third"));
+		scheduler.run();
+
+		assertEquals(3, log.size());
+		assertEquals("first", log.get(0));
+		assertEquals("second", log.get(1));
+		assertEquals("third", log.get(2));
+	}
+
+	public void testRunOnlyRunsThePendingStages() {
+		List<String> log = new ArrayList<String>();
+		StageScheduler scheduler = new StageScheduler();
+		scheduler.add("first", record(log, "first"));
+		scheduler.run();
+		scheduler.add("second", record(log, "second"));
+		scheduler.run();
+
+		assertEquals(2, log.size());
+		assertEquals("first", log.get(0));
+		assertEquals("second", log.get(1));
+	}
+
+	public void testFailureIsRethrown() {
+		List<String> log = new ArrayList<String>();
+		StageScheduler scheduler = new StageScheduler();
+		scheduler.add("failing", new ITacoStage() {
+			@Override
+			public void execute() {
+				throw new IllegalStateException("failing stage");
+			}
+		});
+		scheduler.add("later", record(log, "later"));
+		try {
+			scheduler.run();
+			fail("the failure of a stage must be rethrown");
+		} catch (IllegalStateException e) {
+			assertEquals("failing stage", e.getMessage());
+		}
+		assertTrue(log.isEmpty());
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+import ar.edu.taco.TacoConfigurator;
+import ar.edu.taco.TacoMain;
+
+/**
+ * Translates a job with several compilation units more than once in the same
+ * process, one run after the other, concurrently and with the units
+ * simplified or translated in parallel, and compares every simplified source
+ * and model byte by byte.
+ */
+public class TranslationDeterminismTest extends TestCase {
+
+	private static final String CONFIG_FILE = "config/genericTest.properties";
+
+	private static final String CLASS_TO_CHECK = "roops.core.objects.linkedlist.base.LinkedList";
+
+	private static final String RELEVANT_CLASSES = "roops.core.objects.linkedlist.base.LinkedList,roops.core.objects.linkedlist.base.LinkedListNode";
+
+	private static final String METHOD_TO_CHECK = "containsTest_0";
+
+	private File workDir;
+
+	@Override
+	protected void setUp() throws Exception {
+		workDir = File.createTempFile("taco-determinism", "");
+		workDir.delete();
+		workDir.mkdirs();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(workDir);
+	}
+
+	protected Properties jobProperties(String output_dir) {
+		Properties properties = new Properties();
+		properties.put(TacoConfigurator.CLASS_TO_CHECK_FIELD, CLASS_TO_CHECK);
+		properties.put(TacoConfigurator.RELEVANT_CLASSES, RELEVANT_CLASSES);
+		properties.put(TacoConfigurator.METHOD_TO_CHECK_FIELD, METHOD_TO_CHECK);
+		properties.put(TacoConfigurator.JMLPARSER_SOURCE_PATH_STR, "tests");
+		properties.put(TacoConfigurator.OUTPUT_DIR, new File(workDir, output_dir).getPath());
+		properties.put(TacoConfigurator.PARSE_SIMPLIFIED_SOURCES_IN_MEMORY, "false");
+		properties.put(TacoConfigurator.GENERATE_UNIT_TEST_CASE, "false");
+		return properties;
+	}
+
+	/**
+	 * @return the content of every simplified source and model the job
+	 *         wrote, by path relative to its output directory.
+	 */
+	protected Map<String, String> translate(String output_dir) throws IOException {
+		return translate(output_dir, new Properties());
+	}
+
+	protected Map<String, String> translate(String output_dir, Properties overriding_properties) throws IOException {
+		Properties properties = jobProperties(output_dir);
+		properties.putAll(overriding_properties);
+		new TacoMain(null).run(CONFIG_FILE, properties);
+		return readOutputs(new File(workDir, output_dir));
+	}
+
+	public void testRepeatedRunsWriteIdenticalOutputs() throws IOException {
+		Map<String, String> first_run = translate("first");
+		Map<String, String> second_run = translate("second");
+
+		assertFalse(first_run.isEmpty());
+		assertEquals(first_run.keySet(), second_run.keySet());
+		for (String path : first_run.keySet()) {
+			assertEquals(path, first_run.get(path), second_run.get(path));
+		}
+	}
+
+	public void testParallelSimplificationWritesTheSequentialOutputs() throws IOException {
+		Properties sequential = new Properties();
+		sequential.put(TacoConfigurator.PARALLEL_SIMPLIFICATION, "false");
+		Map<String, String> sequential_run = translate("sequential-simplification", sequential);
+		Properties parallel = new Properties();
+		parallel.put(TacoConfigurator.PARALLEL_SIMPLIFICATION, "true");
+		Map<String, String> parallel_run = translate("parallel-simplification", parallel);
+
+		assertFalse(sequential_run.isEmpty());
+		assertEquals(sequential_run.keySet(), parallel_run.keySet());
+		for (String path : sequential_run.keySet()) {
+			assertEquals(path, sequential_run.get(path), parallel_run.get(path));
+		}
+	}
+
+	public void testParallelTranslationWritesTheSequentialOutputs() throws IOException {
+		Properties sequential = new Properties();
+		sequential.put(TacoConfigurator.PARALLEL_TRANSLATION, "false");
+		Map<String, String> sequential_run = translate("sequential-translation", sequential);
+		Properties parallel = new Properties();
+		parallel.put(TacoConfigurator.PARALLEL_TRANSLATION, "true");
+		Map<String, String> parallel_run = translate("parallel-translation", parallel);
+
+		assertFalse(sequential_run.isEmpty());
+		assertEquals(sequential_run.keySet(), parallel_run.keySet());
+		for (String path : sequential_run.keySet()) {
+			assertEquals(path, sequential_run.get(path), parallel_run.get(path));
+		}
+	}
+
+	public void testConcurrentRunsWriteIdenticalOutputs() throws Exception {
+		final List<Map<String, String>> concurrent_runs = Collections.synchronizedList(new ArrayList<Map<String, String>>());
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (final String output_dir : new String[] { "concurrent-a", "concurrent-b" }) {
+			threads.add(new Thread("taco-" + output_dir) {
+				@Override
+				public void run() {
+					try {
+						concurrent_runs.add(translate(output_dir));
+					} catch (Throwable e) {
+						failures.add(e);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (!failures.isEmpty()) {
+			throw new AssertionError(failures.get(0));
+		}
+
+		Map<String, String> sequential_run = translate("sequential");
+		assertFalse(sequential_run.isEmpty());
+		assertEquals(2, concurrent_runs.size());
+		for (Map<String, String> concurrent_run : concurrent_runs) {
+			assertEquals(sequential_run.keySet(), concurrent_run.keySet());
+			for (String path : sequential_run.keySet()) {
+				assertEquals(path, sequential_run.get(path), concurrent_run.get(path));
+			}
+		}
+	}
+
+	protected static Map<String, String> readOutputs(File output_dir) throws IOException {
+		Map<String, String> outputs = new TreeMap<String, String>();
+		collectOutputs(output_dir, "", outputs);
+		return outputs;
+	}
+
+	private static void collectOutputs(File dir, String prefix, Map<String, String> outputs) throws IOException {
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String path = prefix + file.getName();
+			if (file.isDirectory()) {
+				collectOutputs(file, path + "/", outputs);
+			} else if (path.endsWith(".java") || path.endsWith(".als") || path.endsWith(".inv") || path.endsWith(".dals")) {
+				outputs.put(path, readFully(file));
+			}
+		}
+	}
+
+	private static String readFully(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toString("UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * TACO: Translation of Annotated COde
+ * Copyright (c) 2010 Universidad de Buenos Aires
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA,
+ * 02110-1301, USA
+ */
+package ar.edu.taco.infer;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class GraphPathCounterTest extends TestCase {
+
+	public void testAcyclicPathsAreAddedUp() {
+		Graph graph = new Graph();
+		graph.addEge("$Root$", "A", "thiz");
+		graph.addEge("$Root$", "B", "arg");
+		graph.addEge("A", "B", "left");
+		graph.addEge("A", "B", "right");
+		graph.addEge("B", "C", "value");
+
+		Map<String, IntegerOrInfinity> paths = new GraphPathCounter().count_all_paths(graph);
+
+		assertEquals(1, paths.get("$Root$").int_value);
+		assertEquals(1, paths.get("A").int_value);
+		assertEquals(3, paths.get("B").int_value);
+		assertEquals(3, paths.get("C").int_value);
+	}
+
+	public void testSelfLoopIsInfinite() {
+		Graph graph = new Graph();
+		graph.addEge("$Root$", "List", "thiz");
+		graph.addEge("List", "Node", "header");
+		graph.addEge("Node", "Node", "next");
+
+		Map<String, IntegerOrInfinity> paths = new GraphPathCounter().count_all_paths(graph);
+
+		assertEquals(1, paths.get("List").int_value);
+		assertEquals(IntegerOrInfinity.INFINITY, paths.get("Node"));
+	}
+
+	public void testNodesAfterACycleAreInfinite() {
+		Graph graph = new Graph();
+		graph.addEge("$Root$", "A", "thiz");
+		graph.addEge("A", "B", "f");
+		graph.addEge("B", "A", "g");
+		graph.addEge("B", "C", "h");
+		graph.addEge("$Root$", "D", "arg");
+
+		Map<String, IntegerOrInfinity> paths = new GraphPathCounter().count_all_paths(graph);
+
+		assertEquals(IntegerOrInfinity.INFINITY, paths.get("A"));
+		assertEquals(IntegerOrInfinity.INFINITY, paths.get("B"));
+		assertEquals(IntegerOrInfinity.INFINITY, paths.get("C"));
+		assertEquals(1, paths.get("D").int_value);
+	}
+
+	public void testUnreachableNodesHaveNoPaths() {
+		Graph graph = new Graph();
+		graph.addEge("$Root$", "A", "thiz");
+		graph.addEge("B", "B", "next");
+		graph.addEge("B", "C", "value");
+
+		Map<String, IntegerOrInfinity> paths = new GraphPathCounter().count_all_paths(graph);
+
+		assertEquals(1, paths.get("A").int_value);
+		assertEquals(0, paths.get("B").int_value);
+		assertEquals(0, paths.get("C").int_value);
+	}
+
+}